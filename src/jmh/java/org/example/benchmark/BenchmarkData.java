@@ -0,0 +1,58 @@
+package org.example.benchmark;
+
+import org.example.model.Company;
+import org.example.model.Customer;
+import org.example.model.Invoice;
+import org.example.model.InvoiceItem;
+import org.example.model.enums.InvoiceStatus;
+import org.example.model.enums.PaymentMethod;
+
+import java.time.LocalDate;
+
+/**
+ * Dane testowe wspólne dla benchmarków.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Tworzy fakturę z podaną liczbą pozycji (bez zapisanej sumy - suma liczona z pozycji).
+     */
+    static Invoice invoice(int itemCount) {
+        Customer customer = new Customer();
+        customer.setName("Przykładowy Klient Sp. z o.o.");
+        customer.setAddress("ul. Długa 12/3, 00-001 Warszawa");
+        customer.setNip("5252525252");
+
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("FV/2024/05/01");
+        invoice.setIssueDate(LocalDate.of(2024, 5, 1));
+        invoice.setDueDate(LocalDate.of(2024, 5, 15));
+        invoice.setStatus(InvoiceStatus.NIEOPLACONA);
+        invoice.setPaymentMethod(PaymentMethod.PRZELEW);
+        invoice.setCustomer(customer);
+        for (int i = 1; i <= itemCount; i++) {
+            InvoiceItem item = new InvoiceItem();
+            item.setProduct("Usługa wdrożeniowa nr " + i);
+            item.setQuantity(1 + i % 5);
+            item.setPrice(99.99 + i);
+            invoice.addItem(item);
+        }
+        return invoice;
+    }
+
+    /**
+     * Tworzy dane firmy wyświetlane w bloku sprzedawcy.
+     */
+    static Company company() {
+        Company company = new Company();
+        company.setName("InvoicerApp Sp. z o.o.");
+        company.setAddress("ul. Żółkiewskiego 5, 30-001 Kraków");
+        company.setNip("6762476224");
+        company.setBankAccount("12 1020 1026 0000 0102 0000 0000");
+        company.setVersion(1L);
+        return company;
+    }
+}
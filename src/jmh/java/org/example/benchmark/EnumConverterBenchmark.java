@@ -0,0 +1,48 @@
+package org.example.benchmark;
+
+import org.example.model.enums.InvoiceStatus;
+import org.example.model.enums.PaymentMethod;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark konwerterów enumów odczytywanych z bazy danych - dla bieżących wartości
+ * oraz dla ścieżek zgodności ze starszymi danymi (nazwa wyświetlana, dopasowanie fragmentu,
+ * wartość pusta i nieznana).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumConverterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class InvoiceStatusInput {
+
+        @Param({"OPLACONA", "NIEOPŁACONA", "STATUS_OPŁACONA", "", "NIEZNANY"})
+        public String dbData;
+
+        private final InvoiceStatus.InvoiceStatusConverter converter = new InvoiceStatus.InvoiceStatusConverter();
+    }
+
+    @State(Scope.Benchmark)
+    public static class PaymentMethodInput {
+
+        @Param({"PRZELEW", "Gotówka", "karta", "", "CZEK"})
+        public String dbData;
+
+        private final PaymentMethod.PaymentMethodConverter converter = new PaymentMethod.PaymentMethodConverter();
+    }
+
+    @Benchmark
+    public InvoiceStatus invoiceStatus(InvoiceStatusInput input) {
+        return input.converter.convertToEntityAttribute(input.dbData);
+    }
+
+    @Benchmark
+    public PaymentMethod paymentMethod(PaymentMethodInput input) {
+        return input.converter.convertToEntityAttribute(input.dbData);
+    }
+}
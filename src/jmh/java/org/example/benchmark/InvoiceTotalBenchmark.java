@@ -0,0 +1,42 @@
+package org.example.benchmark;
+
+import org.example.model.Invoice;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark sumy faktury ({@link Invoice#getTotal()}) - z zapisanej sumy
+ * oraz liczonej z pozycji (faktury sprzed wprowadzenia kolumny z sumą).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvoiceTotalBenchmark {
+
+    @Param({"1", "10", "500"})
+    public int itemCount;
+
+    private Invoice storedTotal;
+    private Invoice computedTotal;
+
+    @Setup
+    public void setup() {
+        storedTotal = BenchmarkData.invoice(itemCount);
+        storedTotal.recalculateTotal();
+        computedTotal = BenchmarkData.invoice(itemCount);
+    }
+
+    @Benchmark
+    public double storedTotal() {
+        return storedTotal.getTotal();
+    }
+
+    @Benchmark
+    public double computedTotal() {
+        return computedTotal.getTotal();
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.benchmark;
+
+import org.example.model.Invoice;
+import org.example.model.enums.PdfOutputMode;
+import org.example.service.CompanyService;
+import org.example.service.LogoImageService;
+import org.example.service.PdfService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Benchmark generowania dokumentu PDF faktury ({@link PdfService#generateInvoicePdf(Invoice)}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PdfRenderingBenchmark {
+
+    @Param({"1", "10", "500"})
+    public int itemCount;
+
+    private PdfService pdfService;
+    private Invoice invoice;
+
+    @Setup
+    public void setup() {
+        // Atrapa bez zapisywania wywołań - inaczej historia wywołań rosłaby przez cały pomiar
+        CompanyService companyService = mock(CompanyService.class, withSettings().stubOnly());
+        when(companyService.getCompanyInfo()).thenReturn(BenchmarkData.company());
+
+        pdfService = new PdfService(companyService, new LogoImageService(600, 240),
+                PdfOutputMode.STANDARD, "", "");
+        invoice = BenchmarkData.invoice(itemCount);
+    }
+
+    @Benchmark
+    public byte[] generateInvoicePdf() throws Exception {
+        return pdfService.generateInvoicePdf(invoice);
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Konfiguracja zadań cyklicznych (np. nocne odświeżanie flag przeterminowania faktur).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
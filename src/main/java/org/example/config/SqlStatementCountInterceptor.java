@@ -0,0 +1,46 @@
+package org.example.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Interceptor raportujący liczbę zapytań SQL wykonanych podczas obsługi żądania.
+ * Pozwala wykryć problem N+1 - liczba zapytań dla listy nie powinna rosnąć razem z liczbą wierszy.
+ */
+@Component
+public class SqlStatementCountInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementCountInterceptor.class);
+
+    @Value("${app.sql.statement-warn-threshold:30}")
+    private int warnThreshold;
+
+    /**
+     * Zeruje licznik zapytań przed obsługą żądania.
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlStatementCounter.reset();
+        return true;
+    }
+
+    /**
+     * Loguje liczbę zapytań po zakończeniu żądania (razem z renderowaniem widoku).
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int count = SqlStatementCounter.getCount();
+        if (count > warnThreshold) {
+            logger.warn("Żądanie {} {} wykonało {} zapytań SQL (próg: {})",
+                    request.getMethod(), request.getRequestURI(), count, warnThreshold);
+        } else {
+            logger.debug("Żądanie {} {} wykonało {} zapytań SQL", request.getMethod(), request.getRequestURI(), count);
+        }
+        SqlStatementCounter.reset();
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Licznik zapytań SQL wykonywanych przez Hibernate w bieżącym wątku.
+ * Rejestrowany w Hibernate przez właściwość hibernate.session_factory.statement_inspector;
+ * odczytywany przez {@link SqlStatementCountInterceptor} po obsłużeniu żądania HTTP.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNTER = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * Zlicza zapytanie i zwraca je bez zmian.
+     */
+    @Override
+    public String inspect(String sql) {
+        COUNTER.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Zeruje licznik zapytań bieżącego wątku.
+     */
+    public static void reset() {
+        COUNTER.get()[0] = 0;
+    }
+
+    /**
+     * Zwraca liczbę zapytań wykonanych w bieżącym wątku od ostatniego wyzerowania.
+     */
+    public static int getCount() {
+        return COUNTER.get()[0];
+    }
+}
@@ -16,16 +16,22 @@ public class WebConfig implements WebMvcConfigurer {
 
     private final PasswordChangeInterceptor passwordChangeInterceptor;
     private final InactiveUserInterceptor inactiveUserInterceptor;
+    private final SqlStatementCountInterceptor sqlStatementCountInterceptor;
 
     @Autowired
     public WebConfig(PasswordChangeInterceptor passwordChangeInterceptor,
-                     InactiveUserInterceptor inactiveUserInterceptor) {
+                     InactiveUserInterceptor inactiveUserInterceptor,
+                     SqlStatementCountInterceptor sqlStatementCountInterceptor) {
         this.passwordChangeInterceptor = passwordChangeInterceptor;
         this.inactiveUserInterceptor = inactiveUserInterceptor;
+        this.sqlStatementCountInterceptor = sqlStatementCountInterceptor;
     }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // Licznik zapytań SQL na żądanie - rejestrowany jako pierwszy, aby objąć pozostałe interceptory
+        registry.addInterceptor(sqlStatementCountInterceptor);
+
         // Interceptor wymagający zmiany hasła
         registry.addInterceptor(passwordChangeInterceptor);
 
@@ -1,10 +1,11 @@
 package org.example.controller;
 
-import org.example.model.User;
-import org.example.model.enums.InvoiceStatus;
+import org.example.model.StatisticsSnapshot;
+import org.example.model.enums.BackupFormat;
+import org.example.model.enums.BackupRestoreMode;
 import org.example.service.BackupService;
-import org.example.service.CustomerService;
-import org.example.service.InvoiceService;
+import org.example.service.PdfCacheService;
+import org.example.service.StatisticsService;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
@@ -46,50 +47,42 @@ public class AdminController {
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
 
     private final UserService userService;
-    private final InvoiceService invoiceService;
-    private final CustomerService customerService;
+    private final StatisticsService statisticsService;
     private final BackupService backupService;
+    private final PdfCacheService pdfCacheService;
 
     @Autowired
     public AdminController(UserService userService,
-                           InvoiceService invoiceService,
-                           CustomerService customerService,
-                           BackupService backupService) {
+                           StatisticsService statisticsService,
+                           BackupService backupService,
+                           PdfCacheService pdfCacheService) {
         this.userService = userService;
-        this.invoiceService = invoiceService;
-        this.customerService = customerService;
+        this.statisticsService = statisticsService;
         this.backupService = backupService;
+        this.pdfCacheService = pdfCacheService;
     }
 
     /**
      * Wyświetla panel administracyjny ze statystykami.
-     * Zbiera informacje o użytkownikach, fakturach i klientach.
+     * Zbiera informacje o użytkownikach, fakturach i klientach (ze zbuforowanej migawki statystyk).
      */
     @GetMapping
     public String adminPanel(Model model) {
-        // Pobieranie danych o użytkownikach
-        List<User> users = userService.findAll();
-        long activeUsers = users.stream().filter(User::isActive).count();
-        long inactiveUsers = users.size() - activeUsers;
-
-        // Pobieranie danych o fakturach
-        long totalInvoices = invoiceService.findAll().size();
-        long paidInvoices = invoiceService.findByStatus(InvoiceStatus.OPLACONA).size();
-        long unpaidInvoices = invoiceService.findByStatus(InvoiceStatus.NIEOPLACONA).size();
-
-        // Pobieranie danych o klientach
-        long totalCustomers = customerService.findAll().size();
+        StatisticsSnapshot statistics = statisticsService.getSnapshot();
 
         // Dodawanie danych do modelu
-        model.addAttribute("totalUsers", users.size());
-        model.addAttribute("activeUsers", activeUsers);
-        model.addAttribute("inactiveUsers", inactiveUsers);
+        model.addAttribute("totalUsers", statistics.getTotalUsers());
+        model.addAttribute("activeUsers", statistics.getActiveUsers());
+        model.addAttribute("inactiveUsers", statistics.getInactiveUsers());
 
-        model.addAttribute("totalInvoices", totalInvoices);
-        model.addAttribute("paidInvoices", paidInvoices);
-        model.addAttribute("unpaidInvoices", unpaidInvoices);
+        model.addAttribute("totalInvoices", statistics.getTotalInvoices());
+        model.addAttribute("paidInvoices", statistics.getPaidInvoices());
+        model.addAttribute("unpaidInvoices", statistics.getUnpaidInvoices());
+        model.addAttribute("overdueInvoices", statistics.getOverdueInvoices());
 
-        model.addAttribute("totalCustomers", totalCustomers);
+        model.addAttribute("totalCustomers", statistics.getTotalCustomers());
+
+        model.addAttribute("pdfCache", pdfCacheService.getStatistics());
 
         return "admin/dashboard";
     }
@@ -160,6 +153,24 @@ public class AdminController {
         return "redirect:/admin/system/backups";
     }
 
+    /**
+     * Tworzy kopię przyrostową na bazie wybranej kopii zapasowej (ZIP).
+     */
+    @PostMapping("/system/backups/incremental")
+    public String createIncrementalBackup(@RequestParam String baseFileName, RedirectAttributes redirectAttributes) {
+        try {
+            String backupPath = backupService.createIncrementalBackup(baseFileName);
+            redirectAttributes.addFlashAttribute("message",
+                    "Kopia przyrostowa została utworzona: " + backupPath);
+            logger.info("Utworzono kopię przyrostową: {} (baza: {})", backupPath, baseFileName);
+        } catch (Exception e) {
+            logger.error("Błąd podczas tworzenia kopii przyrostowej: {}", e.getMessage(), e);
+            redirectAttributes.addFlashAttribute("error",
+                    "Wystąpił błąd podczas tworzenia kopii przyrostowej: " + e.getMessage());
+        }
+        return "redirect:/admin/system/backups";
+    }
+
     @GetMapping("/system/backups")
     public String showBackups(Model model) {
         try {
@@ -170,7 +181,7 @@ public class AdminController {
 
             List<Map<String, Object>> backupFiles = new ArrayList<>();
             Files.list(backupDir)
-                    .filter(path -> path.toString().endsWith(".json"))
+                    .filter(path -> BackupFormat.fromFileName(path.getFileName().toString()) != null)
                     .sorted((p1, p2) -> {
                         try {
                             return Files.getLastModifiedTime(p2).compareTo(Files.getLastModifiedTime(p1));
@@ -208,11 +219,12 @@ public class AdminController {
         try {
             Path filePath = Paths.get("backups", fileName);
             Resource resource = new UrlResource(filePath.toUri());
+            BackupFormat format = BackupFormat.fromFileName(fileName);
 
-            if (resource.exists() && resource.isReadable()) {
+            if (format != null && resource.exists() && resource.isReadable()) {
                 return ResponseEntity.ok()
                         .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                        .contentType(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.parseMediaType(format.getContentType()))
                         .body(resource);
             } else {
                 throw new RuntimeException("Nie można znaleźć pliku: " + fileName);
@@ -225,11 +237,14 @@ public class AdminController {
 
     /**
      * Przywraca dane z wybranej kopii zapasowej.
+     * Bez parametru {@code mode} rekordy otrzymują nowe identyfikatory.
      */
     @PostMapping("/system/backups/restore")
-    public String restoreBackup(@RequestParam String fileName, RedirectAttributes redirectAttributes) {
+    public String restoreBackup(@RequestParam String fileName,
+                                @RequestParam(defaultValue = "REMAP_IDS") BackupRestoreMode mode,
+                                RedirectAttributes redirectAttributes) {
         try {
-            String message = backupService.restoreFromBackup(fileName);
+            String message = backupService.restoreFromBackup(fileName, mode);
             redirectAttributes.addFlashAttribute("message", message);
             logger.info("Pomyślnie przywrócono dane z kopii zapasowej: {}", fileName);
         } catch (Exception e) {
@@ -1,6 +1,7 @@
 package org.example.controller;
 
 import org.example.model.Customer;
+import org.example.repository.projection.CustomerView;
 import org.example.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -33,7 +34,7 @@ public class CustomerController {
      */
     @GetMapping
     public String getAllCustomers(Model model) {
-        List<Customer> customers = customerService.findAll();
+        List<CustomerView> customers = customerService.findAllViews();
         model.addAttribute("customers", customers);
         return "customer-list";
     }
@@ -1,21 +1,21 @@
 package org.example.controller;
 
-import org.example.model.Invoice;
-import org.example.model.enums.InvoiceStatus;
-import org.example.service.InvoiceService;
+import org.example.model.StatisticsSnapshot;
+import org.example.service.StatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.format.TextStyle;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Kontroler obsługujący stronę główną (dashboard).
@@ -24,73 +24,63 @@ import java.util.stream.Collectors;
 @Controller
 public class DashboardController {
 
-    private final InvoiceService invoiceService;
+    private static final Locale POLISH = new Locale("pl");
+
+    private final StatisticsService statisticsService;
 
     @Autowired
-    public DashboardController(InvoiceService invoiceService) {
-        this.invoiceService = invoiceService;
+    public DashboardController(StatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
     }
 
     /**
      * Wyświetla dashboard z podsumowaniem faktur i wykresem miesięcznym.
+     * Dane pochodzą ze zbuforowanych statystyk, przeliczanych tylko po zmianie danych.
+     * Wykres porównuje wybrany rok (domyślnie bieżący) z rokiem poprzednim. Rok spoza lat
+     * wystawionych faktur zastępowany jest bieżącym, aby parametr żądania nie tworzył nowych
+     * wpisów w buforze statystyk.
      */
     @GetMapping("/")
-    public String dashboard(Model model) {
-        List<Invoice> allInvoices = invoiceService.findAll();
-
-        // Obliczanie sum faktur opłaconych i nieopłaconych
-        double paidTotal = allInvoices.stream()
-                .filter(invoice -> invoice.getStatus() == InvoiceStatus.OPLACONA)
-                .mapToDouble(Invoice::getTotal)
-                .sum();
-
-        double unpaidTotal = allInvoices.stream()
-                .filter(invoice -> invoice.getStatus() == InvoiceStatus.NIEOPLACONA)
-                .mapToDouble(Invoice::getTotal)
-                .sum();
+    public String dashboard(@RequestParam(required = false) Integer year, Model model) {
+        StatisticsSnapshot statistics = statisticsService.getSnapshot();
+
+        int currentYear = LocalDate.now().getYear();
+        List<Integer> years = new ArrayList<>(statistics.getInvoiceYears());
+        int selectedYear = year != null && years.contains(year) ? year : currentYear;
+        if (!years.contains(selectedYear)) {
+            years.add(selectedYear);
+            years.sort((a, b) -> Integer.compare(b, a));
+        }
 
-        // Przygotowanie danych miesięcznych dla wykresu
-        Map<String, Double> monthlyData = prepareMonthlyDataForChart(allInvoices);
+        // Dane miesięczne dla wykresu: wybrany rok i rok poprzedni
+        Map<Integer, Map<String, Double>> monthlyDataByYear = new LinkedHashMap<>();
+        monthlyDataByYear.put(selectedYear - 1, prepareMonthlyDataForChart(selectedYear - 1));
+        monthlyDataByYear.put(selectedYear, prepareMonthlyDataForChart(selectedYear));
 
         // Dodawanie danych do modelu
-        model.addAttribute("paidTotal", paidTotal);
-        model.addAttribute("unpaidTotal", unpaidTotal);
-        model.addAttribute("invoiceCount", allInvoices.size());
-        model.addAttribute("monthlyData", monthlyData);
+        model.addAttribute("paidTotal", statistics.getPaidTotal());
+        model.addAttribute("unpaidTotal", statistics.getUnpaidTotal());
+        model.addAttribute("invoiceCount", statistics.getTotalInvoices());
+        model.addAttribute("monthlyData", monthlyDataByYear.get(selectedYear));
+        model.addAttribute("monthlyDataByYear", monthlyDataByYear);
+        model.addAttribute("selectedYear", selectedYear);
+        model.addAttribute("years", years);
 
         return "dashboard";
     }
 
     /**
-     * Przygotowuje dane miesięczne do wykresu przychodów.
+     * Przygotowuje dane miesięczne do wykresu przychodów dla podanego roku.
      */
-    private Map<String, Double> prepareMonthlyDataForChart(List<Invoice> invoices) {
+    private Map<String, Double> prepareMonthlyDataForChart(int year) {
         Map<String, Double> monthlyData = new LinkedHashMap<>();
-        LocalDate now = LocalDate.now();
-        int currentYear = now.getYear();
-
-        // Inicjalizacja wszystkich miesięcy z zerami w kolejności chronologicznej
-        for (int i = 1; i <= 12; i++) {
-            Month month = Month.of(i);
-            String monthName = month.getDisplayName(TextStyle.FULL, new Locale("pl"));
-            monthlyData.put(monthName, 0.0);
-        }
-
-        // Pogrupowanie faktur według miesięcy i obliczenie sum
-        Map<Month, Double> monthlyTotals = invoices.stream()
-                .filter(invoice -> invoice.getIssueDate() != null &&
-                        invoice.getIssueDate().getYear() == currentYear)
-                .collect(Collectors.groupingBy(
-                        invoice -> invoice.getIssueDate().getMonth(),
-                        Collectors.summingDouble(Invoice::getTotal)
-                ));
 
-        // Aktualizacja mapy rzeczywistymi danymi
-        monthlyTotals.forEach((month, total) -> {
-            String monthName = month.getDisplayName(TextStyle.FULL, new Locale("pl"));
-            monthlyData.put(monthName, total);
+        // Wszystkie miesiące w kolejności chronologicznej, z zerami dla miesięcy bez faktur
+        statisticsService.getYearStatistics(year).forEach((month, statistics) -> {
+            String monthName = Month.of(month).getDisplayName(TextStyle.FULL, POLISH);
+            monthlyData.put(monthName, statistics.getTotal());
         });
 
         return monthlyData;
     }
-}
\ No newline at end of file
+}
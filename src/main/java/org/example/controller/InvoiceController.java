@@ -1,19 +1,28 @@
 package org.example.controller;
 
 import org.example.exception.ResourceNotFoundException;
-import org.example.model.Customer;
 import org.example.model.Invoice;
 import org.example.model.InvoiceItem;
+import org.example.model.InvoiceSearchCriteria;
+import org.example.model.KeysetPage;
+import org.example.model.PdfJobStatus;
 import org.example.model.enums.InvoiceStatus;
 import org.example.model.enums.PaymentMethod;
+import org.example.repository.projection.CustomerView;
+import org.example.repository.projection.InvoiceListView;
+import org.example.repository.projection.InvoiceSummary;
+import org.example.service.BulkPdfExportService;
 import org.example.service.CustomerService;
+import org.example.service.InvoiceArchiveService;
 import org.example.service.InvoiceService;
-import org.example.service.PdfService;
+import org.example.service.PdfCacheService;
+import org.example.service.PdfJobService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -22,12 +31,20 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.beans.PropertyEditorSupport;
+import java.net.URI;
+import java.security.Principal;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Kontroler obsługujący operacje na fakturach.
@@ -39,14 +56,22 @@ public class InvoiceController {
     private static final Logger logger = LoggerFactory.getLogger(InvoiceController.class);
 
     private final InvoiceService invoiceService;
-    private final PdfService pdfService;
+    private final PdfCacheService pdfCacheService;
     private final CustomerService customerService;
+    private final BulkPdfExportService bulkPdfExportService;
+    private final PdfJobService pdfJobService;
+    private final InvoiceArchiveService invoiceArchiveService;
 
     @Autowired
-    public InvoiceController(InvoiceService invoiceService, PdfService pdfService, CustomerService customerService) {
+    public InvoiceController(InvoiceService invoiceService, PdfCacheService pdfCacheService,
+                             CustomerService customerService, BulkPdfExportService bulkPdfExportService,
+                             PdfJobService pdfJobService, InvoiceArchiveService invoiceArchiveService) {
         this.invoiceService = invoiceService;
-        this.pdfService = pdfService;
+        this.pdfCacheService = pdfCacheService;
         this.customerService = customerService;
+        this.bulkPdfExportService = bulkPdfExportService;
+        this.pdfJobService = pdfJobService;
+        this.invoiceArchiveService = invoiceArchiveService;
     }
 
     @InitBinder
@@ -90,17 +115,18 @@ public class InvoiceController {
     }
 
     /**
-     * Wyświetla listę faktur, opcjonalnie filtrowaną po statusie.
+     * Wyświetla stronę listy faktur, opcjonalnie filtrowaną po statusie.
+     * Lista jest stronicowana kursorami (after/before), a podsumowanie wyliczane zapytaniem agregującym.
      */
     @GetMapping
-    public String getAll(@RequestParam(required = false) InvoiceStatus status, Model model) {
-        List<Invoice> invoices = (status == null) ?
-                invoiceService.findAll() :
-                invoiceService.findByStatus(status);
-
-        double total = invoices.stream().mapToDouble(Invoice::getTotal).sum();
-        model.addAttribute("invoices", invoices);
-        model.addAttribute("summary", total);
+    public String getAll(@RequestParam(required = false) InvoiceStatus status,
+                         @RequestParam(required = false) String after,
+                         @RequestParam(required = false) String before,
+                         @RequestParam(required = false) Integer size,
+                         HttpServletRequest request,
+                         Model model) {
+        InvoiceSearchCriteria criteria = InvoiceSearchCriteria.byStatus(status);
+        addInvoicePage(criteria, after, before, size, request, model);
         model.addAttribute("statusFilter", status);
         return "invoice-list";
     }
@@ -114,7 +140,7 @@ public class InvoiceController {
         invoice.getItems().add(new InvoiceItem());
 
         // Pobierz listę wszystkich klientów
-        List<Customer> customers = customerService.findAll();
+        List<CustomerView> customers = customerService.findAllViews();
 
         model.addAttribute("invoice", invoice);
         model.addAttribute("customers", customers);
@@ -170,7 +196,7 @@ public class InvoiceController {
             }
 
             // Pobierz listę wszystkich klientów
-            List<Customer> customers = customerService.findAll();
+            List<CustomerView> customers = customerService.findAllViews();
 
             model.addAttribute("invoice", invoice);
             model.addAttribute("customers", customers);
@@ -207,21 +233,32 @@ public class InvoiceController {
     }
 
     /**
-     * Generuje PDF faktury.
+     * Generuje PDF faktury (lub zwraca go z pamięci podręcznej, jeśli dane faktury się nie zmieniły).
+     * Dokument jest przygotowywany przed rozpoczęciem odpowiedzi, więc błędy kończą się
+     * właściwym kodem HTTP, a treść jest przesyłana strumieniowo, bez kopiowania całości w pamięci.
+     * Opłacone faktury są wysyłane z archiwum - z nagłówkiem ETag i obsługą żądań częściowych (Range).
      */
     @GetMapping("/pdf/{id}")
-    public ResponseEntity<byte[]> generatePdf(@PathVariable Long id) {
+    public ResponseEntity<StreamingResponseBody> generatePdf(@PathVariable Long id,
+                                                             @RequestHeader HttpHeaders requestHeaders) {
         try {
             Invoice invoice = invoiceService.findById(id);
-            byte[] pdfContent = pdfService.generateInvoicePdf(invoice);
+            String filename = "faktura_" + invoice.getInvoiceNumber() + ".pdf";
+
+            InvoiceArchiveService.ArchivedPdf archived = invoiceArchiveService.findArchivedPdf(invoice);
+            if (archived != null) {
+                return archivedPdfResponse(archived, filename, requestHeaders);
+            }
+
+            PdfCacheService.CachedPdf pdf = pdfCacheService.openInvoicePdf(invoice);
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
-            String filename = "faktura_" + invoice.getInvoiceNumber() + ".pdf";
+            headers.setContentLength(pdf.getSize());
             headers.setContentDispositionFormData(filename, filename);
             headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
 
-            return new ResponseEntity<>(pdfContent, headers, HttpStatus.OK);
+            return new ResponseEntity<>(pdf::writeTo, headers, HttpStatus.OK);
         } catch (ResourceNotFoundException e) {
             logger.warn("Próba wygenerowania PDF dla nieistniejącej faktury: {}", id);
             return ResponseEntity.notFound().build();
@@ -231,8 +268,171 @@ public class InvoiceController {
         }
     }
 
+    /**
+     * Przygotowuje odpowiedź z dokumentem z archiwum. Skrót SHA-256 pliku jest silnym ETagiem,
+     * więc ponowne pobranie niezmienionego dokumentu kończy się odpowiedzią 304. Obsługiwany jest
+     * pojedynczy zakres bajtów (206); przy kilku zakresach wysyłany jest cały dokument.
+     */
+    private ResponseEntity<StreamingResponseBody> archivedPdfResponse(InvoiceArchiveService.ArchivedPdf pdf,
+                                                                      String filename, HttpHeaders requestHeaders) {
+        String etag = "\"" + pdf.getSha256() + "\"";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl("private, no-cache");
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (requestHeaders.getIfNoneMatch().contains(etag) || requestHeaders.getIfNoneMatch().contains("*")) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData(filename, filename);
+
+        long size = pdf.getSize();
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        List<HttpRange> ranges = ifRange == null || ifRange.equals(etag)
+                ? parseRanges(requestHeaders.getFirst(HttpHeaders.RANGE))
+                : List.of();
+        if (ranges.size() == 1) {
+            HttpRange range = ranges.get(0);
+            long start;
+            long end;
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            }
+            long length = end - start + 1;
+            headers.setContentLength(length);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            return new ResponseEntity<>(out -> pdf.transferTo(out, start, length), headers, HttpStatus.PARTIAL_CONTENT);
+        }
+
+        headers.setContentLength(size);
+        return new ResponseEntity<>(out -> pdf.transferTo(out, 0, size), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Odczytuje nagłówek Range; nieprawidłowy nagłówek jest pomijany (wysyłany jest cały dokument).
+     */
+    private List<HttpRange> parseRanges(String range) {
+        if (range == null) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Zleca wygenerowanie PDF faktury w tle. Zwraca identyfikator zadania (202 Accepted),
+     * a gdy kolejka zadań jest pełna - 429 Too Many Requests z sugerowanym czasem ponowienia.
+     */
+    @PostMapping("/pdf/{id}/jobs")
+    public ResponseEntity<PdfJobStatus> submitPdfJob(@PathVariable Long id, Principal principal) {
+        try {
+            PdfJobStatus job = pdfJobService.submit(id, principal.getName());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/invoices/pdf-jobs/" + job.getId()))
+                    .body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
+    /**
+     * Zwraca stan zadania generowania PDF.
+     */
+    @GetMapping("/pdf-jobs/{jobId}")
+    public ResponseEntity<PdfJobStatus> getPdfJob(@PathVariable String jobId, Principal principal) {
+        try {
+            return ResponseEntity.ok(pdfJobService.getStatus(jobId, principal.getName()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Pobiera dokument wygenerowany przez zadanie (409 Conflict, jeśli nie jest jeszcze gotowy).
+     */
+    @GetMapping("/pdf-jobs/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadPdfJob(@PathVariable String jobId, Principal principal) {
+        try {
+            String owner = principal.getName();
+            PdfCacheService.CachedPdf pdf = pdfJobService.openResult(jobId, owner);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentLength(pdf.getSize());
+            String filename = "faktura_" + pdfJobService.getInvoiceNumber(jobId, owner) + ".pdf";
+            headers.setContentDispositionFormData(filename, filename);
+
+            return new ResponseEntity<>(pdf::writeTo, headers, HttpStatus.OK);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            logger.error("Błąd podczas pobierania PDF zadania {}: {}", jobId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Eksportuje dokumenty PDF faktur spełniających kryteria wyszukiwania - jako archiwum ZIP
+     * (format "zip") lub jeden połączony dokument do wydruku (format "pdf").
+     * Dokumenty są generowane równolegle i wysyłane strumieniowo w miarę postępu.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPdfs(
+            @RequestParam(defaultValue = "zip") String format,
+            @RequestParam(required = false) InvoiceStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String customerName,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) Double maxAmount) {
+        try {
+            boolean merged = "pdf".equalsIgnoreCase(format);
+            if (!merged && !"zip".equalsIgnoreCase(format)) {
+                throw new IllegalArgumentException("Nieobsługiwany format eksportu: " + format);
+            }
+
+            InvoiceSearchCriteria criteria = new InvoiceSearchCriteria(
+                    status, startDate, endDate, customerName, minAmount, maxAmount);
+            List<Long> invoiceIds = bulkPdfExportService.findInvoiceIds(criteria);
+            if (invoiceIds.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            logger.info("Eksport {} faktur do formatu {} ({})", invoiceIds.size(), format, criteria);
+
+            HttpHeaders headers = new HttpHeaders();
+            String filename = "faktury_" + LocalDate.now() + (merged ? ".pdf" : ".zip");
+            headers.setContentType(merged ? MediaType.APPLICATION_PDF : MediaType.parseMediaType("application/zip"));
+            headers.setContentDispositionFormData(filename, filename);
+
+            StreamingResponseBody body = merged
+                    ? out -> bulkPdfExportService.writeMergedPdf(invoiceIds, out)
+                    : out -> bulkPdfExportService.writeZip(invoiceIds, out);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Odrzucono eksport faktur: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Błąd podczas eksportu faktur: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Wyszukuje faktury według podanych kryteriów.
+     * Wyniki są stronicowane tak samo jak lista faktur.
      */
     @GetMapping("/search")
     public String searchInvoices(
@@ -242,15 +442,16 @@ public class InvoiceController {
             @RequestParam(required = false) String customerName,
             @RequestParam(required = false) Double minAmount,
             @RequestParam(required = false) Double maxAmount,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer size,
+            HttpServletRequest request,
             Model model) {
 
         try {
-            List<Invoice> invoices = invoiceService.searchInvoices(
+            InvoiceSearchCriteria criteria = new InvoiceSearchCriteria(
                     status, startDate, endDate, customerName, minAmount, maxAmount);
-
-            double total = invoices.stream().mapToDouble(Invoice::getTotal).sum();
-            model.addAttribute("invoices", invoices);
-            model.addAttribute("summary", total);
+            addInvoicePage(criteria, after, before, size, request, model);
             model.addAttribute("statusFilter", status);
             model.addAttribute("startDate", startDate);
             model.addAttribute("endDate", endDate);
@@ -265,4 +466,47 @@ public class InvoiceController {
             return "invoice-list";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Dodaje do modelu stronę faktur, podsumowanie dla kryteriów oraz adresy nawigacji między stronami.
+     */
+    private void addInvoicePage(InvoiceSearchCriteria criteria, String after, String before, Integer size,
+                                HttpServletRequest request, Model model) {
+        KeysetPage<InvoiceListView> page = invoiceService.findInvoicePage(criteria, after, before, size);
+        InvoiceSummary summary = invoiceService.summarizeInvoices(criteria);
+
+        model.addAttribute("invoices", page.getContent());
+        model.addAttribute("itemsByInvoice", invoiceService.findItemsByInvoice(page.getContent()));
+        model.addAttribute("page", page);
+        model.addAttribute("summary", summary.getTotal());
+        model.addAttribute("invoiceCount", summary.getCount());
+        model.addAttribute("pageSize", page.getSize());
+
+        // Adresy sąsiednich stron zachowują bieżące kryteria wyszukiwania
+        UriComponentsBuilder current = UriComponentsBuilder.fromPath(request.getRequestURI())
+                .query(request.getQueryString());
+        if (page.hasNext()) {
+            model.addAttribute("nextPageUrl", current.cloneBuilder()
+                    .replaceQueryParam("before")
+                    .replaceQueryParam("after", page.getNextCursor())
+                    .build(true).toUriString());
+        }
+        if (page.hasPrevious()) {
+            model.addAttribute("previousPageUrl", current.cloneBuilder()
+                    .replaceQueryParam("after")
+                    .replaceQueryParam("before", page.getPreviousCursor())
+                    .build(true).toUriString());
+        }
+
+        // Zmiana rozmiaru strony wraca na pierwszą stronę
+        Map<Integer, String> pageSizeUrls = new LinkedHashMap<>();
+        for (Integer pageSize : InvoiceService.PAGE_SIZES) {
+            pageSizeUrls.put(pageSize, current.cloneBuilder()
+                    .replaceQueryParam("after")
+                    .replaceQueryParam("before")
+                    .replaceQueryParam("size", pageSize)
+                    .build(true).toUriString());
+        }
+        model.addAttribute("pageSizeUrls", pageSizeUrls);
+    }
+}
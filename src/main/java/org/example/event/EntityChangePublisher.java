@@ -0,0 +1,29 @@
+package org.example.event;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Listener JPA publikujący {@link EntityChangedEvent} po każdym zapisie lub usunięciu encji.
+ * Rejestrowany na encjach przez {@code @EntityListeners}; instancję tworzy Spring (przez Hibernate),
+ * więc zależności są wstrzykiwane przez konstruktor.
+ */
+public class EntityChangePublisher {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public EntityChangePublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onEntityChanged(Object entity) {
+        eventPublisher.publishEvent(new EntityChangedEvent(entity.getClass()));
+    }
+}
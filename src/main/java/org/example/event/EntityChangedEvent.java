@@ -0,0 +1,23 @@
+package org.example.event;
+
+/**
+ * Zdarzenie publikowane po utrwaleniu, zmianie lub usunięciu encji obserwowanej
+ * przez {@link EntityChangePublisher}. Służy do unieważniania danych zbuforowanych w pamięci.
+ */
+public class EntityChangedEvent {
+
+    private final Class<?> entityType;
+
+    public EntityChangedEvent(Class<?> entityType) {
+        this.entityType = entityType;
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityChangedEvent{entityType=" + entityType.getSimpleName() + "}";
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.event;
+
+import org.example.model.InvoiceStatsSnapshot;
+
+/**
+ * Zdarzenie publikowane przy utworzeniu, zmianie lub usunięciu faktury.
+ * Zawiera stan faktury istotny dla agregatów przed i po zmianie.
+ */
+public class InvoiceChangedEvent {
+
+    private final Long invoiceId;
+    private final InvoiceStatsSnapshot before;
+    private final InvoiceStatsSnapshot after;
+
+    /**
+     * @param invoiceId identyfikator faktury
+     * @param before stan przed zmianą (null dla nowej faktury)
+     * @param after stan po zmianie (null dla usuniętej faktury)
+     */
+    public InvoiceChangedEvent(Long invoiceId, InvoiceStatsSnapshot before, InvoiceStatsSnapshot after) {
+        this.invoiceId = invoiceId;
+        this.before = before;
+        this.after = after;
+    }
+
+    public Long getInvoiceId() {
+        return invoiceId;
+    }
+
+    public InvoiceStatsSnapshot getBefore() {
+        return before;
+    }
+
+    public InvoiceStatsSnapshot getAfter() {
+        return after;
+    }
+
+    @Override
+    public String toString() {
+        return "InvoiceChangedEvent{invoiceId=" + invoiceId + ", before=" + before + ", after=" + after + "}";
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.event;
+
+import jakarta.persistence.PostRemove;
+import org.example.model.Customer;
+import org.example.model.Invoice;
+import org.example.model.InvoiceItem;
+import org.example.model.Tombstone;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Listener JPA zapisujący {@link Tombstone} po usunięciu klienta, faktury lub pozycji faktury.
+ * <p>
+ * Wpis jest dodawany przez JDBC na tym samym połączeniu co usunięcie (w trakcie zapisu zmian
+ * Hibernate nie można utrwalać nowych encji), więc jest zatwierdzany lub wycofywany razem z nim.
+ * Instancję tworzy Spring (przez Hibernate), więc zależności są wstrzykiwane przez konstruktor.
+ */
+public class TombstoneRecorder {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO tombstone (entity_type, entity_id, parent_id, deleted_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public TombstoneRecorder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostRemove
+    public void onEntityRemoved(Object entity) {
+        if (entity instanceof Customer customer) {
+            record(Customer.class, customer.getId(), null);
+        } else if (entity instanceof Invoice invoice) {
+            record(Invoice.class, invoice.getId(), null);
+        } else if (entity instanceof InvoiceItem item) {
+            record(InvoiceItem.class, item.getId(), item.getInvoice() != null ? item.getInvoice().getId() : null);
+        }
+    }
+
+    private void record(Class<?> type, Long id, Long parentId) {
+        jdbcTemplate.update(INSERT_SQL, type.getSimpleName(), id, parentId, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Encja wskazująca zarchiwizowany dokument PDF opłaconej faktury.
+ * Dokument jest przechowywany w archiwum adresowanym treścią - jego nazwą jest skrót SHA-256
+ * zawartości pliku, więc raz zapisany plik nigdy się nie zmienia.
+ */
+@Entity
+@Table(name = "archived_invoice_pdf")
+public class ArchivedInvoicePdf {
+
+    @Id
+    @Column(name = "invoice_id")
+    private Long invoiceId;
+
+    /**
+     * Numer faktury w chwili archiwizacji - chroni przed wydaniem dokumentu innej faktury,
+     * gdy identyfikator zostanie użyty ponownie (np. po odtworzeniu kopii zapasowej).
+     */
+    @Column(name = "invoice_number", nullable = false)
+    private String invoiceNumber;
+
+    /**
+     * Skrót SHA-256 zawartości dokumentu (szesnastkowo) - nazwa pliku w archiwum.
+     */
+    @Column(name = "sha256", length = 64, nullable = false)
+    private String sha256;
+
+    /**
+     * Rozmiar dokumentu w bajtach.
+     */
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * Konstruktor domyślny wymagany przez JPA.
+     */
+    public ArchivedInvoicePdf() {
+    }
+
+    public ArchivedInvoicePdf(Long invoiceId, String invoiceNumber, String sha256, long size) {
+        this.invoiceId = invoiceId;
+        this.invoiceNumber = invoiceNumber;
+        this.sha256 = sha256;
+        this.size = size;
+        this.archivedAt = LocalDateTime.now();
+    }
+
+    // Gettery i settery
+
+    public Long getInvoiceId() {
+        return invoiceId;
+    }
+
+    public void setInvoiceId(Long invoiceId) {
+        this.invoiceId = invoiceId;
+    }
+
+    public String getInvoiceNumber() {
+        return invoiceNumber;
+    }
+
+    public void setInvoiceNumber(String invoiceNumber) {
+        this.invoiceNumber = invoiceNumber;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Column;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
@@ -51,6 +52,14 @@ public class Company {
      */
     private String logoPath;
 
+    /**
+     * Wersja danych firmy, zwiększana przy każdej zmianie.
+     * Pozwala tanio sprawdzić aktualność danych firmy przechowywanych w pamięci
+     * oraz wykryć równoczesną edycję danych przez dwóch administratorów.
+     */
+    @Version
+    private Long version;
+
     // Konstruktor domyślny wymagany przez JPA
     public Company() {
     }
@@ -151,4 +160,29 @@ public class Company {
     public void setLogoPath(String logoPath) {
         this.logoPath = logoPath;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Kopiuje dane firmy (bez identyfikatora i wersji) z innego obiektu, np. z formularza edycji.
+     */
+    public void copyDetailsFrom(Company other) {
+        this.name = other.name;
+        this.address = other.address;
+        this.nip = other.nip;
+        this.regon = other.regon;
+        this.email = other.email;
+        this.phone = other.phone;
+        this.website = other.website;
+        this.bankName = other.bankName;
+        this.bankAccount = other.bankAccount;
+        this.additionalInfo = other.additionalInfo;
+        this.logoPath = other.logoPath;
+    }
+}
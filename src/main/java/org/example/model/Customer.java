@@ -1,13 +1,21 @@
 package org.example.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import org.example.event.EntityChangePublisher;
+import org.example.event.TombstoneRecorder;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,6 +24,8 @@ import java.util.List;
  * Przechowuje informacje o firmie lub osobie, dla której wystawiane są faktury.
  */
 @Entity
+@EntityListeners({EntityChangePublisher.class, TombstoneRecorder.class})
+@Table(indexes = @Index(name = "idx_customer_modified_at", columnList = "modified_at"))
 public class Customer {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -38,6 +48,13 @@ public class Customer {
     @OneToMany(mappedBy = "customer")
     private List<Invoice> invoices = new ArrayList<>();
 
+    /**
+     * Czas ostatniego zapisu klienta - na jego podstawie kopia przyrostowa wybiera zmienionych klientów.
+     */
+    @UpdateTimestamp
+    @Column(name = "modified_at")
+    private LocalDateTime modifiedAt;
+
     /**
      * Konstruktor domyślny wymagany przez JPA.
      */
@@ -102,6 +119,14 @@ public class Customer {
         this.phone = phone;
     }
 
+    public LocalDateTime getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public void setModifiedAt(LocalDateTime modifiedAt) {
+        this.modifiedAt = modifiedAt;
+    }
+
     public List<Invoice> getInvoices() {
         return invoices;
     }
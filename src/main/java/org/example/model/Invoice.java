@@ -2,8 +2,14 @@ package org.example.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.example.event.EntityChangePublisher;
+import org.example.event.TombstoneRecorder;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import org.example.model.enums.InvoiceStatus;
@@ -14,7 +20,30 @@ import org.example.model.enums.PaymentMethod;
  * Przechowuje informacje o fakturze, powiązanym kliencie i pozycjach faktury.
  */
 @Entity
+@EntityListeners({EntityChangePublisher.class, TombstoneRecorder.class})
+@NamedEntityGraph(name = Invoice.GRAPH_WITH_CUSTOMER,
+        attributeNodes = @NamedAttributeNode("customer"))
+@NamedEntityGraph(name = Invoice.GRAPH_WITH_CUSTOMER_AND_ITEMS,
+        attributeNodes = {@NamedAttributeNode("customer"), @NamedAttributeNode("items")})
+@Table(name = "invoice", indexes = {
+        @Index(name = "idx_invoice_total", columnList = "total"),
+        @Index(name = "idx_invoice_issue_date_id", columnList = "issue_date, id"),
+        @Index(name = "idx_invoice_status_due_date", columnList = "status, due_date"),
+        @Index(name = "idx_invoice_overdue_due_date", columnList = "overdue, due_date"),
+        @Index(name = "idx_invoice_modified_at", columnList = "modified_at")
+})
 public class Invoice {
+
+    /**
+     * Plan pobierania faktury razem z klientem - używany przez listy i wyszukiwanie.
+     */
+    public static final String GRAPH_WITH_CUSTOMER = "Invoice.withCustomer";
+
+    /**
+     * Plan pobierania faktury razem z klientem i pozycjami - używany przy edycji i generowaniu PDF.
+     */
+    public static final String GRAPH_WITH_CUSTOMER_AND_ITEMS = "Invoice.withCustomerAndItems";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -31,7 +60,7 @@ public class Invoice {
     @Convert(converter = PaymentMethod.PaymentMethodConverter.class)
     private PaymentMethod paymentMethod = PaymentMethod.PRZELEW;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
     private Customer customer;
 
@@ -42,9 +71,38 @@ public class Invoice {
 
     private String notes;
 
+    /**
+     * Pozycje faktury. Dla list faktur pobierane są zbiorczo (po kilkadziesiąt faktur jednym zapytaniem).
+     */
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<InvoiceItem> items = new ArrayList<>();
 
+    /**
+     * Łączna kwota faktury przechowywana w bazie (suma wartości pozycji).
+     * Aktualizowana przy każdym zapisie faktury, dzięki czemu listy, wyszukiwanie po kwocie
+     * i podsumowania nie muszą wczytywać pozycji faktury.
+     * Wartość null oznacza fakturę sprzed wprowadzenia kolumny (uzupełniana przy starcie aplikacji).
+     */
+    @Column(name = "total")
+    private Double total;
+
+    /**
+     * Flaga przeterminowania (nieopłacona i po terminie płatności) zapisana w bazie.
+     * Ustawiana przy zapisie faktury oraz odświeżana co noc przez {@link org.example.service.OverdueInvoiceService},
+     * dzięki czemu liczba przeterminowanych faktur jest odczytywana z indeksu.
+     */
+    @Column(name = "overdue", nullable = false)
+    private boolean overdue;
+
+    /**
+     * Czas ostatniego zapisu faktury (ustawiany przez Hibernate), używany do wyboru faktur do kopii przyrostowej.
+     * Nocne odświeżanie flagi przeterminowania go nie zmienia - flaga jest wyliczana ponownie przy przywracaniu.
+     */
+    @UpdateTimestamp
+    @Column(name = "modified_at")
+    private LocalDateTime modifiedAt;
+
     /**
      * Konstruktor domyślny wymagany przez JPA.
      */
@@ -52,7 +110,8 @@ public class Invoice {
     }
 
     /**
-     * Metoda wywoływana przed zapisem do bazy, aby ustawić domyślny status jeśli jest null.
+     * Metoda wywoływana przed zapisem do bazy, aby ustawić domyślny status jeśli jest null,
+     * wyliczyć łączną kwotę, jeśli nie została jeszcze ustawiona, oraz odświeżyć flagę przeterminowania.
      */
     @PrePersist
     @PreUpdate
@@ -60,6 +119,10 @@ public class Invoice {
         if (status == null) {
             status = InvoiceStatus.NIEOPLACONA;
         }
+        if (total == null && Hibernate.isInitialized(items)) {
+            recalculateTotal();
+        }
+        refreshOverdue(LocalDate.now());
     }
 
     // Gettery i settery
@@ -131,6 +194,14 @@ public class Invoice {
         this.notes = notes;
     }
 
+    public LocalDateTime getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public void setModifiedAt(LocalDateTime modifiedAt) {
+        this.modifiedAt = modifiedAt;
+    }
+
     public List<InvoiceItem> getItems() {
         return items;
     }
@@ -145,6 +216,7 @@ public class Invoice {
     public void addItem(InvoiceItem item) {
         items.add(item);
         item.setInvoice(this);
+        recalculateTotal();
     }
 
     /**
@@ -153,19 +225,42 @@ public class Invoice {
     public void removeItem(InvoiceItem item) {
         items.remove(item);
         item.setInvoice(null);
+        recalculateTotal();
     }
 
     /**
-     * Oblicza łączną kwotę faktury na podstawie jej pozycji.
+     * Zwraca łączną kwotę faktury.
+     * Korzysta z zapisanej kolumny total; pozycje są sumowane tylko wtedy, gdy kwota nie została jeszcze wyliczona.
      */
     public double getTotal() {
+        if (total != null) {
+            return total;
+        }
         return items.stream().mapToDouble(InvoiceItem::getTotal).sum();
     }
 
+    /**
+     * Przelicza łączną kwotę faktury na podstawie jej pozycji.
+     * Należy wywołać po każdej zmianie pozycji faktury przed zapisem.
+     */
+    public void recalculateTotal() {
+        this.total = items.stream().mapToDouble(InvoiceItem::getTotal).sum();
+    }
+
     /**
      * Sprawdza czy faktura jest przeterminowana (nieopłacona i po terminie płatności).
+     * Zwraca flagę zapisaną w bazie - stan na dzień ostatniego zapisu faktury lub nocnego odświeżenia.
      */
     public boolean isOverdue() {
-        return status == InvoiceStatus.NIEOPLACONA && LocalDate.now().isAfter(dueDate);
+        return overdue;
+    }
+
+    /**
+     * Przelicza flagę przeterminowania na podany dzień.
+     *
+     * @param today dzień, względem którego sprawdzany jest termin płatności
+     */
+    public void refreshOverdue(LocalDate today) {
+        this.overdue = status == InvoiceStatus.NIEOPLACONA && dueDate != null && dueDate.isBefore(today);
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package org.example.model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Kursor stronicowania listy faktur (keyset pagination).
+ * Wskazuje pozycję na liście posortowanej malejąco po (data wystawienia, id)
+ * i jest przekazywany w adresie URL w postaci "RRRR-MM-DD_id".
+ */
+public final class InvoiceCursor {
+
+    /**
+     * Kursor położony przed pierwszą fakturą listy - używany do pobrania pierwszej strony.
+     */
+    public static final InvoiceCursor START = new InvoiceCursor(LocalDate.of(9999, 12, 31), Long.MAX_VALUE);
+
+    private static final char SEPARATOR = '_';
+
+    private final LocalDate issueDate;
+    private final long id;
+
+    private InvoiceCursor(LocalDate issueDate, long id) {
+        this.issueDate = issueDate;
+        this.id = id;
+    }
+
+    /**
+     * Tworzy kursor wskazujący na podaną fakturę.
+     */
+    public static InvoiceCursor of(Invoice invoice) {
+        return new InvoiceCursor(invoice.getIssueDate(), invoice.getId());
+    }
+
+    /**
+     * Tworzy kursor z daty wystawienia i identyfikatora faktury.
+     */
+    public static InvoiceCursor of(LocalDate issueDate, long id) {
+        return new InvoiceCursor(issueDate, id);
+    }
+
+    /**
+     * Odczytuje kursor z postaci tekstowej.
+     *
+     * @throws IllegalArgumentException gdy kursor ma nieprawidłowy format
+     */
+    public static InvoiceCursor parse(String value) {
+        int separator = value != null ? value.lastIndexOf(SEPARATOR) : -1;
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Nieprawidłowy kursor stronicowania: " + value);
+        }
+        try {
+            return new InvoiceCursor(LocalDate.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Nieprawidłowy kursor stronicowania: " + value);
+        }
+    }
+
+    public LocalDate getIssueDate() {
+        return issueDate;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Zwraca kursor w postaci tekstowej używanej w adresach URL.
+     */
+    @Override
+    public String toString() {
+        return issueDate.toString() + SEPARATOR + id;
+    }
+}
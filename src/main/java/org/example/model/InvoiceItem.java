@@ -3,12 +3,18 @@ package org.example.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import org.example.event.TombstoneRecorder;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
 
 /**
  * Encja reprezentująca pozycję na fakturze.
  * Przechowuje informacje o produkcie/usłudze, ilości i cenie.
  */
 @Entity
+@EntityListeners(TombstoneRecorder.class)
+@Table(name = "invoice_item", indexes = @Index(name = "idx_invoice_item_modified_at", columnList = "modified_at"))
 public class InvoiceItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,6 +33,14 @@ public class InvoiceItem {
     @JoinColumn(name = "invoice_id")
     private Invoice invoice;
 
+    /**
+     * Czas ostatniego zapisu pozycji. Zmiana samej pozycji nie musi zmieniać faktury,
+     * dlatego kopia przyrostowa sprawdza także ten znacznik.
+     */
+    @UpdateTimestamp
+    @Column(name = "modified_at")
+    private LocalDateTime modifiedAt;
+
     /**
      * Konstruktor domyślny wymagany przez JPA.
      */
@@ -75,6 +89,14 @@ public class InvoiceItem {
         this.invoice = invoice;
     }
 
+    public LocalDateTime getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public void setModifiedAt(LocalDateTime modifiedAt) {
+        this.modifiedAt = modifiedAt;
+    }
+
     /**
      * Oblicza łączną wartość pozycji (ilość * cena).
      */
@@ -0,0 +1,132 @@
+package org.example.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import org.example.model.enums.InvoiceStatus;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Encja statystyk faktur dla miesiąca i statusu.
+ * Przechowuje liczbę i łączną kwotę faktur wystawionych w danym miesiącu o danym statusie.
+ * Wiersze są aktualizowane przyrostowo w transakcji zapisu lub usunięcia faktury,
+ * dzięki czemu podsumowania miesięczne nie wymagają przeglądania faktur.
+ */
+@Entity
+@Table(name = "invoice_monthly_stats")
+public class InvoiceMonthlyStats {
+
+    @EmbeddedId
+    private Key id;
+
+    /**
+     * Liczba faktur w miesiącu o danym statusie.
+     */
+    @Column(name = "invoice_count", nullable = false)
+    private long invoiceCount;
+
+    /**
+     * Łączna kwota faktur w miesiącu o danym statusie.
+     */
+    @Column(name = "total_amount", nullable = false)
+    private double totalAmount;
+
+    /**
+     * Konstruktor domyślny wymagany przez JPA.
+     */
+    public InvoiceMonthlyStats() {
+    }
+
+    public InvoiceMonthlyStats(Key id, long invoiceCount, double totalAmount) {
+        this.id = id;
+        this.invoiceCount = invoiceCount;
+        this.totalAmount = totalAmount;
+    }
+
+    // Gettery i settery
+
+    public Key getId() {
+        return id;
+    }
+
+    public void setId(Key id) {
+        this.id = id;
+    }
+
+    public long getInvoiceCount() {
+        return invoiceCount;
+    }
+
+    public void setInvoiceCount(long invoiceCount) {
+        this.invoiceCount = invoiceCount;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(double totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    /**
+     * Klucz statystyk: rok, miesiąc i status faktury.
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Column(name = "period_year", nullable = false)
+        private int year;
+
+        @Column(name = "period_month", nullable = false)
+        private int month;
+
+        /**
+         * Status faktury zapisany jako nazwa stałej {@link InvoiceStatus}.
+         */
+        @Column(name = "status", length = 20, nullable = false)
+        private String status;
+
+        /**
+         * Konstruktor domyślny wymagany przez JPA.
+         */
+        public Key() {
+        }
+
+        public Key(int year, int month, InvoiceStatus status) {
+            this.year = year;
+            this.month = month;
+            this.status = status.name();
+        }
+
+        public int getYear() {
+            return year;
+        }
+
+        public int getMonth() {
+            return month;
+        }
+
+        public InvoiceStatus getStatus() {
+            return InvoiceStatus.valueOf(status);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return year == key.year && month == key.month && Objects.equals(status, key.status);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(year, month, status);
+        }
+    }
+}
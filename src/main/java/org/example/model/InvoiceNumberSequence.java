@@ -0,0 +1,112 @@
+package org.example.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Encja licznika numerów faktur.
+ * Dla każdej serii i miesiąca przechowuje ostatnio wydany numer,
+ * dzięki czemu nadanie kolejnego numeru nie wymaga liczenia istniejących faktur.
+ */
+@Entity
+@Table(name = "invoice_number_sequence")
+public class InvoiceNumberSequence {
+
+    @EmbeddedId
+    private Key id;
+
+    /**
+     * Ostatni wydany numer w danej serii i miesiącu.
+     */
+    @Column(name = "current_value", nullable = false)
+    private long currentValue;
+
+    /**
+     * Konstruktor domyślny wymagany przez JPA.
+     */
+    public InvoiceNumberSequence() {
+    }
+
+    public InvoiceNumberSequence(Key id, long currentValue) {
+        this.id = id;
+        this.currentValue = currentValue;
+    }
+
+    // Gettery i settery
+
+    public Key getId() {
+        return id;
+    }
+
+    public void setId(Key id) {
+        this.id = id;
+    }
+
+    public long getCurrentValue() {
+        return currentValue;
+    }
+
+    public void setCurrentValue(long currentValue) {
+        this.currentValue = currentValue;
+    }
+
+    /**
+     * Klucz licznika: seria numeracji, rok i miesiąc.
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Column(name = "series", length = 10, nullable = false)
+        private String series;
+
+        @Column(name = "period_year", nullable = false)
+        private int year;
+
+        @Column(name = "period_month", nullable = false)
+        private int month;
+
+        /**
+         * Konstruktor domyślny wymagany przez JPA.
+         */
+        public Key() {
+        }
+
+        public Key(String series, int year, int month) {
+            this.series = series;
+            this.year = year;
+            this.month = month;
+        }
+
+        public String getSeries() {
+            return series;
+        }
+
+        public int getYear() {
+            return year;
+        }
+
+        public int getMonth() {
+            return month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return year == key.year && month == key.month && Objects.equals(series, key.series);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(series, year, month);
+        }
+    }
+}
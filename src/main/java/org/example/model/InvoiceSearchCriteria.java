@@ -0,0 +1,70 @@
+package org.example.model;
+
+import org.example.model.enums.InvoiceStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Kryteria wyszukiwania faktur.
+ * Wszystkie pola są opcjonalne - wartość null oznacza brak filtrowania po danym kryterium.
+ */
+public class InvoiceSearchCriteria {
+
+    private final InvoiceStatus status;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final String customerName;
+    private final Double minAmount;
+    private final Double maxAmount;
+
+    public InvoiceSearchCriteria(InvoiceStatus status,
+                                 LocalDate startDate,
+                                 LocalDate endDate,
+                                 String customerName,
+                                 Double minAmount,
+                                 Double maxAmount) {
+        this.status = status;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.customerName = (customerName == null || customerName.isBlank()) ? null : customerName.trim();
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+    }
+
+    /**
+     * Tworzy kryteria filtrujące wyłącznie po statusie faktury.
+     */
+    public static InvoiceSearchCriteria byStatus(InvoiceStatus status) {
+        return new InvoiceSearchCriteria(status, null, null, null, null, null);
+    }
+
+    public InvoiceStatus getStatus() {
+        return status;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public Double getMinAmount() {
+        return minAmount;
+    }
+
+    public Double getMaxAmount() {
+        return maxAmount;
+    }
+
+    @Override
+    public String toString() {
+        return "status=" + status + ", startDate=" + startDate + ", endDate=" + endDate +
+                ", customerName=" + customerName + ", minAmount=" + minAmount + ", maxAmount=" + maxAmount;
+    }
+}
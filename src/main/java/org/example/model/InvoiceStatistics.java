@@ -0,0 +1,52 @@
+package org.example.model;
+
+import org.example.model.enums.InvoiceStatus;
+
+/**
+ * Podsumowanie faktur z okresu (miesiąca, roku lub całej historii):
+ * liczba i kwota łącznie oraz w podziale na opłacone i nieopłacone.
+ */
+public class InvoiceStatistics {
+
+    private long paidCount;
+    private double paidTotal;
+    private long unpaidCount;
+    private double unpaidTotal;
+
+    /**
+     * Dolicza do podsumowania faktury o podanym statusie.
+     */
+    public void add(InvoiceStatus status, long count, double total) {
+        if (status == InvoiceStatus.OPLACONA) {
+            paidCount += count;
+            paidTotal += total;
+        } else {
+            unpaidCount += count;
+            unpaidTotal += total;
+        }
+    }
+
+    public long getCount() {
+        return paidCount + unpaidCount;
+    }
+
+    public double getTotal() {
+        return paidTotal + unpaidTotal;
+    }
+
+    public long getPaidCount() {
+        return paidCount;
+    }
+
+    public double getPaidTotal() {
+        return paidTotal;
+    }
+
+    public long getUnpaidCount() {
+        return unpaidCount;
+    }
+
+    public double getUnpaidTotal() {
+        return unpaidTotal;
+    }
+}
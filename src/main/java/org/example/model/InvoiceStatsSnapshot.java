@@ -0,0 +1,60 @@
+package org.example.model;
+
+import org.example.model.enums.InvoiceStatus;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Stan faktury istotny dla statystyk miesięcznych: data wystawienia, status i kwota.
+ * Porównanie stanu sprzed i po zapisie faktury wyznacza zmianę statystyk.
+ */
+public final class InvoiceStatsSnapshot {
+
+    private final LocalDate issueDate;
+    private final InvoiceStatus status;
+    private final double total;
+
+    public InvoiceStatsSnapshot(LocalDate issueDate, InvoiceStatus status, Double total) {
+        this.issueDate = issueDate;
+        this.status = status != null ? status : InvoiceStatus.NIEOPLACONA;
+        this.total = total != null ? total : 0.0;
+    }
+
+    /**
+     * Tworzy migawkę na podstawie faktury.
+     */
+    public static InvoiceStatsSnapshot of(Invoice invoice) {
+        return new InvoiceStatsSnapshot(invoice.getIssueDate(), invoice.getStatus(), invoice.getTotal());
+    }
+
+    public LocalDate getIssueDate() {
+        return issueDate;
+    }
+
+    public InvoiceStatus getStatus() {
+        return status;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof InvoiceStatsSnapshot that)) return false;
+        return Double.compare(total, that.total) == 0 && Objects.equals(issueDate, that.issueDate)
+                && status == that.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(issueDate, status, total);
+    }
+
+    @Override
+    public String toString() {
+        return "InvoiceStatsSnapshot{issueDate=" + issueDate + ", status=" + status.name() + ", total=" + total + "}";
+    }
+}
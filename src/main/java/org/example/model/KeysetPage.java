@@ -0,0 +1,60 @@
+package org.example.model;
+
+import java.util.List;
+
+/**
+ * Strona wyników stronicowanych metodą keyset (seek).
+ * Zamiast numeru strony przechowuje kursory wskazujące na sąsiednie strony.
+ *
+ * @param <T> typ elementów strony
+ */
+public class KeysetPage<T> {
+
+    private final List<T> content;
+    private final int size;
+    private final String nextCursor;
+    private final String previousCursor;
+
+    public KeysetPage(List<T> content, int size, String nextCursor, String previousCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.previousCursor = previousCursor;
+    }
+
+    /**
+     * Zwraca elementy bieżącej strony.
+     */
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * Zwraca maksymalną liczbę elementów na stronie.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Zwraca kursor następnej strony lub null, gdy jest to ostatnia strona.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Zwraca kursor poprzedniej strony lub null, gdy jest to pierwsza strona.
+     */
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+}
@@ -1,13 +1,15 @@
 package org.example.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import java.time.LocalDateTime;
 
 /**
  * Encja przechowująca historię logowań użytkowników.
  */
 @Entity
-@Table(name = "login_audit")
+@Table(name = "login_audit", indexes = @Index(name = "idx_login_audit_modified_at", columnList = "modified_at"))
 public class LoginAudit {
 
     @Id
@@ -29,6 +31,13 @@ public class LoginAudit {
     @Column
     private boolean successful;
 
+    /**
+     * Czas zapisu wpisu (używany przez kopie przyrostowe).
+     */
+    @UpdateTimestamp
+    @Column(name = "modified_at")
+    private LocalDateTime modifiedAt;
+
     public LoginAudit() {
     }
 
@@ -87,4 +96,12 @@ public class LoginAudit {
     public void setSuccessful(boolean successful) {
         this.successful = successful;
     }
+
+    public LocalDateTime getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public void setModifiedAt(LocalDateTime modifiedAt) {
+        this.modifiedAt = modifiedAt;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package org.example.model;
+
+/**
+ * Niezmienna migawka liczników pamięci podręcznej dokumentów PDF faktur
+ * (wyświetlana w panelu administratora).
+ */
+public final class PdfCacheStatistics {
+
+    private final long memoryHits;
+    private final long diskHits;
+    private final long misses;
+    private final int memoryEntries;
+    private final long memoryBytes;
+    private final long diskBytes;
+
+    public PdfCacheStatistics(long memoryHits, long diskHits, long misses,
+                              int memoryEntries, long memoryBytes, long diskBytes) {
+        this.memoryHits = memoryHits;
+        this.diskHits = diskHits;
+        this.misses = misses;
+        this.memoryEntries = memoryEntries;
+        this.memoryBytes = memoryBytes;
+        this.diskBytes = diskBytes;
+    }
+
+    public long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public long getDiskHits() {
+        return diskHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int getMemoryEntries() {
+        return memoryEntries;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public long getDiskBytes() {
+        return diskBytes;
+    }
+
+    public long getRequests() {
+        return memoryHits + diskHits + misses;
+    }
+
+    /**
+     * Zwraca odsetek żądań obsłużonych z pamięci podręcznej (0-100).
+     */
+    public double getHitRatio() {
+        long requests = getRequests();
+        return requests == 0 ? 0.0 : 100.0 * (memoryHits + diskHits) / requests;
+    }
+}
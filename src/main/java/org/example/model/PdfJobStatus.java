@@ -0,0 +1,52 @@
+package org.example.model;
+
+import org.example.model.enums.PdfJobState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Niezmienny stan zadania generowania dokumentu PDF w tle (zwracany klientowi jako JSON).
+ */
+public final class PdfJobStatus {
+
+    private final String id;
+    private final Long invoiceId;
+    private final PdfJobState state;
+    private final String error;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime completedAt;
+
+    public PdfJobStatus(String id, Long invoiceId, PdfJobState state, String error,
+                        LocalDateTime createdAt, LocalDateTime completedAt) {
+        this.id = id;
+        this.invoiceId = invoiceId;
+        this.state = state;
+        this.error = error;
+        this.createdAt = createdAt;
+        this.completedAt = completedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getInvoiceId() {
+        return invoiceId;
+    }
+
+    public PdfJobState getState() {
+        return state;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+}
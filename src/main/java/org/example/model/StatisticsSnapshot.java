@@ -0,0 +1,102 @@
+package org.example.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Niezmienna migawka statystyk systemu wyświetlanych na dashboardzie i w panelu administratora.
+ * Zawiera wersję danych, dla której została wyliczona - migawka jest aktualna,
+ * dopóki wersja danych w {@link org.example.service.StatisticsService} się nie zmieni.
+ */
+public final class StatisticsSnapshot {
+
+    private final long dataVersion;
+    private final LocalDateTime computedAt;
+
+    private final long totalUsers;
+    private final long activeUsers;
+
+    private final long totalInvoices;
+    private final long paidInvoices;
+    private final long unpaidInvoices;
+    private final long overdueInvoices;
+    private final double paidTotal;
+    private final double unpaidTotal;
+    private final List<Integer> invoiceYears;
+
+    private final long totalCustomers;
+
+    public StatisticsSnapshot(long dataVersion, LocalDateTime computedAt,
+                              long totalUsers, long activeUsers,
+                              long totalInvoices, long paidInvoices, long unpaidInvoices, long overdueInvoices,
+                              double paidTotal, double unpaidTotal, List<Integer> invoiceYears,
+                              long totalCustomers) {
+        this.dataVersion = dataVersion;
+        this.computedAt = computedAt;
+        this.totalUsers = totalUsers;
+        this.activeUsers = activeUsers;
+        this.totalInvoices = totalInvoices;
+        this.paidInvoices = paidInvoices;
+        this.unpaidInvoices = unpaidInvoices;
+        this.overdueInvoices = overdueInvoices;
+        this.paidTotal = paidTotal;
+        this.unpaidTotal = unpaidTotal;
+        this.invoiceYears = List.copyOf(invoiceYears);
+        this.totalCustomers = totalCustomers;
+    }
+
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+
+    public long getActiveUsers() {
+        return activeUsers;
+    }
+
+    public long getInactiveUsers() {
+        return totalUsers - activeUsers;
+    }
+
+    public long getTotalInvoices() {
+        return totalInvoices;
+    }
+
+    public long getPaidInvoices() {
+        return paidInvoices;
+    }
+
+    public long getUnpaidInvoices() {
+        return unpaidInvoices;
+    }
+
+    public long getOverdueInvoices() {
+        return overdueInvoices;
+    }
+
+    public double getPaidTotal() {
+        return paidTotal;
+    }
+
+    public double getUnpaidTotal() {
+        return unpaidTotal;
+    }
+
+    /**
+     * Lata, w których wystawiono faktury (malejąco).
+     */
+    public List<Integer> getInvoiceYears() {
+        return invoiceYears;
+    }
+
+    public long getTotalCustomers() {
+        return totalCustomers;
+    }
+}
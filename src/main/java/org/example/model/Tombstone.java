@@ -0,0 +1,96 @@
+package org.example.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Encja zapisująca usunięcie rekordu, aby kopia przyrostowa mogła je odtworzyć.
+ * Wpisy tworzy {@link org.example.event.TombstoneRecorder} w transakcji usuwającej rekord.
+ */
+@Entity
+@Table(name = "tombstone", indexes = @Index(name = "idx_tombstone_type_deleted_at", columnList = "entity_type, deleted_at"))
+public class Tombstone {
+
+    /**
+     * Typ wpisu oznaczającego przywrócenie danych z kopii zapasowej, które usuwa i wstawia na nowo
+     * wszystkie rekordy (czas przywrócenia w {@code deletedAt}).
+     */
+    public static final String RESTORE = "Restore";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Nazwa klasy usuniętej encji (np. {@code Invoice}).
+     */
+    @Column(name = "entity_type", length = 50, nullable = false)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    /**
+     * Identyfikator rekordu nadrzędnego - dla pozycji faktury identyfikator faktury.
+     */
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    /**
+     * Konstruktor domyślny wymagany przez JPA.
+     */
+    public Tombstone() {
+    }
+
+    // Gettery i settery
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
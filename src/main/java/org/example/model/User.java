@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.example.event.EntityChangePublisher;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -13,6 +14,7 @@ import java.util.Set;
  * Przechowuje dane uwierzytelniające oraz informacje o rolach i statusie użytkownika.
  */
 @Entity
+@EntityListeners(EntityChangePublisher.class)
 @Table(name = "users")
 public class User {
     @Id
@@ -0,0 +1,59 @@
+package org.example.model.enums;
+
+/**
+ * Enum reprezentujący format pliku kopii zapasowej.
+ * Format jest rozpoznawany po rozszerzeniu nazwy pliku.
+ */
+public enum BackupFormat {
+    /**
+     * Pojedynczy, sformatowany dokument JSON.
+     */
+    JSON(".json", "application/json"),
+    /**
+     * Plik ZIP z tabelami podzielonymi na skompresowane fragmenty i manifestem z sumami kontrolnymi.
+     */
+    ZIP(".zip", "application/zip");
+
+    private final String extension;
+    private final String contentType;
+
+    /**
+     * Tworzy format z określonym rozszerzeniem pliku i typem zawartości.
+     *
+     * @param extension rozszerzenie nazwy pliku (z kropką)
+     * @param contentType typ MIME pliku
+     */
+    BackupFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    /**
+     * Zwraca rozszerzenie nazwy pliku (z kropką).
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Zwraca typ MIME pliku.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Znajduje format po rozszerzeniu nazwy pliku.
+     *
+     * @param fileName nazwa pliku kopii zapasowej
+     * @return odpowiadający format lub null, gdy plik nie jest kopią zapasową
+     */
+    public static BackupFormat fromFileName(String fileName) {
+        for (BackupFormat format : values()) {
+            if (fileName != null && fileName.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.model.enums;
+
+/**
+ * Enum reprezentujący sposób przywracania identyfikatorów z kopii zapasowej.
+ */
+public enum BackupRestoreMode {
+    /**
+     * Rekordy otrzymują nowe identyfikatory, a klucze obce są przepisywane przez mapowanie stare ID -> nowe ID.
+     */
+    REMAP_IDS,
+    /**
+     * Rekordy zachowują identyfikatory z kopii, więc klucze obce są zapisywane bez zmian w jednym przebiegu.
+     * Wymaga, aby każdy rekord w kopii miał identyfikator.
+     */
+    PRESERVE_IDS
+}
@@ -0,0 +1,16 @@
+package org.example.model.enums;
+
+/**
+ * Enum reprezentujący rodzaj kopii zapasowej.
+ */
+public enum BackupType {
+    /**
+     * Wszystkie dane systemu.
+     */
+    FULL,
+    /**
+     * Tylko rekordy zmienione i usunięte od utworzenia kopii bazowej (pełnej lub przyrostowej).
+     * Przywracana jest razem z całym łańcuchem kopii, począwszy od kopii pełnej.
+     */
+    INCREMENTAL
+}
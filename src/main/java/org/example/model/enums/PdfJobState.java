@@ -0,0 +1,31 @@
+package org.example.model.enums;
+
+/**
+ * Enum reprezentujący stan zadania generowania dokumentu PDF w tle.
+ */
+public enum PdfJobState {
+    QUEUED("W kolejce"),
+    RUNNING("W trakcie"),
+    DONE("Gotowe"),
+    FAILED("Błąd");
+
+    private final String displayName;
+
+    PdfJobState(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Zwraca nazwę wyświetlaną stanu zadania.
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Sprawdza, czy zadanie zostało zakończone (powodzeniem lub błędem).
+     */
+    public boolean isFinished() {
+        return this == DONE || this == FAILED;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.model.enums;
+
+/**
+ * Enum reprezentujący tryb zapisu dokumentów PDF.
+ */
+public enum PdfOutputMode {
+    /**
+     * Dotychczasowy zapis (PDF 1.4, kompresja treści stron).
+     */
+    STANDARD,
+    /**
+     * Najmniejsze pliki: pełna kompresja, strumienie obiektów i tablica xref w postaci strumienia (PDF 1.5).
+     */
+    COMPACT,
+    /**
+     * Ustawienia zgodne z PDF/A-1b: PDF 1.4 bez strumieni obiektów, metadane XMP,
+     * profil kolorów sRGB i osadzone podzbiory czcionek (wymaga czcionki TrueType).
+     */
+    ARCHIVE
+}
@@ -0,0 +1,12 @@
+package org.example.repository;
+
+import org.example.model.ArchivedInvoicePdf;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repozytorium dla wskazań zarchiwizowanych dokumentów PDF faktur.
+ */
+@Repository
+public interface ArchivedInvoicePdfRepository extends JpaRepository<ArchivedInvoicePdf, Long> {
+}
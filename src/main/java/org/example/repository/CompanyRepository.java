@@ -2,17 +2,38 @@ package org.example.repository;
 
 import org.example.model.Company;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 /**
  * Repozytorium dla encji Company.
  * Dostarcza metody do operacji na bazie danych dla informacji o firmie.
  */
 @Repository
 public interface CompanyRepository extends JpaRepository<Company, Long> {
+
+    /**
+     * Pobiera pierwszy (i jedyny) rekord firmy.
+     *
+     * @return opcjonalne dane firmy
+     */
+    Optional<Company> findFirstByOrderByIdAsc();
+
+    /**
+     * Pobiera samą wersję danych firmy (zapytanie po kluczu głównym, bez wczytywania encji).
+     *
+     * @param id identyfikator firmy
+     * @return wersja danych firmy lub null, gdy rekord nie istnieje
+     */
+    @Query("SELECT c.version FROM Company c WHERE c.id = :id")
+    Long findVersionById(@Param("id") Long id);
+
     // Ponieważ w systemie powinien być tylko jeden rekord firmy,
     // możemy dodać metodę do łatwego pobierania pierwszego (i jedynego) rekordu
     default Company getCompanyInfo() {
-        return findAll().stream().findFirst().orElse(new Company());
+        return findFirstByOrderByIdAsc().orElse(new Company());
     }
-}
\ No newline at end of file
+}
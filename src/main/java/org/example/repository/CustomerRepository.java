@@ -1,11 +1,14 @@
 package org.example.repository;
 
 import org.example.model.Customer;
+import org.example.repository.projection.CustomerView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -56,4 +59,33 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
             @Param("name") String name,
             @Param("nip") String nip,
             @Param("email") String email);
-}
\ No newline at end of file
+
+    /**
+     * Pobiera wszystkich klientów jako projekcję (bez wczytywania encji i ich faktur).
+     *
+     * @return lista klientów posortowana po identyfikatorze
+     */
+    @Query("SELECT c.id AS id, c.name AS name, c.nip AS nip, c.address AS address, " +
+            "c.email AS email, c.phone AS phone FROM Customer c ORDER BY c.id")
+    List<CustomerView> findAllViews();
+
+    /**
+     * Pobiera kolejną stronę klientów o identyfikatorach większych od podanego (eksport kopii zapasowej).
+     *
+     * @param afterId identyfikator ostatniego klienta z poprzedniej strony
+     * @param pageable rozmiar strony
+     * @return klienci posortowani po identyfikatorze
+     */
+    List<Customer> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Pobiera kolejną stronę klientów zmienionych od podanej chwili (eksport kopii przyrostowej).
+     *
+     * @param since najwcześniejszy czas zmiany
+     * @param afterId identyfikator ostatniego klienta z poprzedniej strony
+     * @param pageable rozmiar strony
+     * @return klienci posortowani po identyfikatorze
+     */
+    List<Customer> findByModifiedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+            LocalDateTime since, Long afterId, Pageable pageable);
+}
@@ -2,14 +2,34 @@ package org.example.repository;
 
 import org.example.model.InvoiceItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Repozytorium dla encji InvoiceItem.
  * Dostarcza metody do operacji na bazie danych dla pozycji faktur.
  */
 @Repository
 public interface InvoiceItemRepository extends JpaRepository<InvoiceItem, Long> {
-    // Można dodać tutaj metody specyficzne dla pozycji faktur
     // Domyślne metody jak save(), findById(), findAll() są już dostępne z JpaRepository
+
+    /**
+     * Pobiera pozycje wskazanych faktur jednym zapytaniem (np. dla strony eksportowanych faktur).
+     *
+     * @param invoiceIds identyfikatory faktur
+     * @return pozycje faktur posortowane po fakturze i identyfikatorze pozycji
+     */
+    @Query("SELECT it FROM InvoiceItem it WHERE it.invoice.id IN :invoiceIds ORDER BY it.invoice.id, it.id")
+    List<InvoiceItem> findByInvoiceIds(@Param("invoiceIds") Collection<Long> invoiceIds);
+
+    /**
+     * Zwraca identyfikatory faktur, których pozycje zapisano od podanej chwili (eksport kopii przyrostowej).
+     */
+    @Query("SELECT DISTINCT it.invoice.id FROM InvoiceItem it WHERE it.modifiedAt >= :since")
+    List<Long> findInvoiceIdsModifiedSince(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package org.example.repository;
+
+import org.example.model.InvoiceMonthlyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repozytorium dla statystyk miesięcznych faktur.
+ * Zmiany statystyk są wykonywane atomowo po stronie bazy danych (MySQL).
+ */
+@Repository
+public interface InvoiceMonthlyStatsRepository
+        extends JpaRepository<InvoiceMonthlyStats, InvoiceMonthlyStats.Key> {
+
+    /**
+     * Pobiera statystyki miesiąca (po jednym wierszu dla każdego statusu).
+     *
+     * @param year rok
+     * @param month miesiąc (1-12)
+     * @return statystyki miesiąca
+     */
+    List<InvoiceMonthlyStats> findByIdYearAndIdMonth(int year, int month);
+
+    /**
+     * Pobiera statystyki wszystkich miesięcy roku.
+     *
+     * @param year rok
+     * @return statystyki roku (po jednym wierszu dla każdego miesiąca i statusu)
+     */
+    List<InvoiceMonthlyStats> findByIdYear(int year);
+
+    /**
+     * Pobiera lata, dla których istnieją statystyki.
+     *
+     * @return lata posortowane malejąco
+     */
+    @Query("SELECT DISTINCT s.id.year FROM InvoiceMonthlyStats s ORDER BY s.id.year DESC")
+    List<Integer> findYears();
+
+    /**
+     * Sumuje statystyki wszystkich miesięcy w podziale na status.
+     *
+     * @return wiersze [status, liczba faktur, łączna kwota]
+     */
+    @Query("SELECT s.id.status, SUM(s.invoiceCount), SUM(s.totalAmount) FROM InvoiceMonthlyStats s GROUP BY s.id.status")
+    List<Object[]> sumByStatus();
+
+    /**
+     * Atomowo dolicza zmianę liczby i kwoty faktur do statystyk miesiąca i statusu.
+     * Brakujący wiersz statystyk zostaje utworzony. Wiersz pozostaje zablokowany do końca transakcji,
+     * więc równoległe zapisy faktur z tego samego miesiąca nie gubią zmian.
+     *
+     * @param countDelta zmiana liczby faktur (może być ujemna)
+     * @param amountDelta zmiana łącznej kwoty faktur (może być ujemna)
+     * @return liczba zmienionych rekordów
+     */
+    @Modifying
+    @Query(value = "INSERT INTO invoice_monthly_stats (period_year, period_month, status, invoice_count, total_amount) " +
+            "VALUES (:year, :month, :status, :countDelta, :amountDelta) " +
+            "ON DUPLICATE KEY UPDATE invoice_count = invoice_count + :countDelta, " +
+            "total_amount = total_amount + :amountDelta", nativeQuery = true)
+    int applyDelta(@Param("year") int year,
+                   @Param("month") int month,
+                   @Param("status") String status,
+                   @Param("countDelta") long countDelta,
+                   @Param("amountDelta") double amountDelta);
+
+    /**
+     * Usuwa wszystkie statystyki (przed przeliczeniem ich od nowa).
+     */
+    @Modifying
+    @Query(value = "DELETE FROM invoice_monthly_stats", nativeQuery = true)
+    int deleteAllStats();
+
+    /**
+     * Wylicza statystyki od nowa na podstawie tabeli faktur jednym zapytaniem grupującym.
+     *
+     * @return liczba utworzonych wierszy statystyk
+     */
+    @Modifying
+    @Query(value = "INSERT INTO invoice_monthly_stats (period_year, period_month, status, invoice_count, total_amount) " +
+            "SELECT YEAR(i.issue_date), MONTH(i.issue_date), i.status, COUNT(*), COALESCE(SUM(i.total), 0) " +
+            "FROM invoice i WHERE i.issue_date IS NOT NULL AND i.status IS NOT NULL " +
+            "GROUP BY YEAR(i.issue_date), MONTH(i.issue_date), i.status", nativeQuery = true)
+    int insertFromInvoices();
+}
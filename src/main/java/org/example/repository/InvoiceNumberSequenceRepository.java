@@ -0,0 +1,54 @@
+package org.example.repository;
+
+import org.example.model.InvoiceNumberSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repozytorium dla liczników numerów faktur.
+ * Operacje przydziału numerów są wykonywane atomowo po stronie bazy danych (MySQL).
+ */
+@Repository
+public interface InvoiceNumberSequenceRepository
+        extends JpaRepository<InvoiceNumberSequence, InvoiceNumberSequence.Key> {
+
+    /**
+     * Tworzy licznik dla danej serii i miesiąca, jeśli jeszcze nie istnieje.
+     * Przy równoległym wywołaniu z kilku węzłów rekord zostanie utworzony tylko raz.
+     *
+     * @param initialValue wartość początkowa licznika (liczba faktur już wystawionych w miesiącu)
+     * @return liczba utworzonych rekordów (0 lub 1)
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO invoice_number_sequence (series, period_year, period_month, current_value) " +
+            "VALUES (:series, :year, :month, :initialValue)", nativeQuery = true)
+    int createIfAbsent(@Param("series") String series,
+                       @Param("year") int year,
+                       @Param("month") int month,
+                       @Param("initialValue") long initialValue);
+
+    /**
+     * Atomowo zwiększa licznik o podaną wartość i zapamiętuje nową wartość w LAST_INSERT_ID() połączenia.
+     * Wiersz licznika pozostaje zablokowany do końca transakcji, więc numeracja jest ciągła
+     * również przy wycofaniu transakcji.
+     *
+     * @param count liczba rezerwowanych numerów
+     * @return liczba zaktualizowanych rekordów
+     */
+    @Modifying
+    @Query(value = "UPDATE invoice_number_sequence SET current_value = LAST_INSERT_ID(current_value + :count) " +
+            "WHERE series = :series AND period_year = :year AND period_month = :month", nativeQuery = true)
+    int increment(@Param("series") String series,
+                  @Param("year") int year,
+                  @Param("month") int month,
+                  @Param("count") int count);
+
+    /**
+     * Zwraca wartość zapamiętaną przez ostatnie wywołanie {@link #increment} w bieżącym połączeniu.
+     */
+    @Query(value = "SELECT LAST_INSERT_ID()", nativeQuery = true)
+    Long lastAllocatedValue();
+}
@@ -1,14 +1,26 @@
 package org.example.repository;
 
+import jakarta.persistence.LockModeType;
 import org.example.model.Invoice;
 import org.example.model.enums.InvoiceStatus;
+import org.example.repository.projection.InvoiceItemView;
+import org.example.repository.projection.InvoiceListView;
+import org.example.repository.projection.InvoiceSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repozytorium dla encji Invoice.
@@ -17,17 +29,135 @@ import java.util.List;
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
+    /**
+     * Znajduje fakturę po identyfikatorze razem z klientem i pozycjami (jedno zapytanie).
+     *
+     * @param id identyfikator faktury
+     * @return opcjonalna faktura
+     */
+    @Override
+    @EntityGraph(Invoice.GRAPH_WITH_CUSTOMER_AND_ITEMS)
+    Optional<Invoice> findById(Long id);
+
+    /**
+     * Pobiera wszystkie faktury razem z klientami.
+     *
+     * @return lista wszystkich faktur
+     */
+    @Override
+    @EntityGraph(Invoice.GRAPH_WITH_CUSTOMER)
+    List<Invoice> findAll();
+
     /**
      * Znajduje faktury o określonym statusie.
      *
      * @param status status faktury do wyszukania
      * @return lista faktur o podanym statusie
      */
+    @EntityGraph(Invoice.GRAPH_WITH_CUSTOMER)
     List<Invoice> findByStatus(InvoiceStatus status);
 
+    /**
+     * Znajduje faktury o podanym statusie z terminem płatności przed podaną datą (indeks status, due_date).
+     *
+     * @param status status faktury
+     * @param date data, przed którą mija termin płatności (wyłącznie)
+     * @param pageable strona wyników i sortowanie
+     * @return strona faktur razem z klientami
+     */
+    @EntityGraph(Invoice.GRAPH_WITH_CUSTOMER)
+    Page<Invoice> findByStatusAndDueDateBefore(InvoiceStatus status, LocalDate date, Pageable pageable);
+
+    /**
+     * Zlicza faktury o podanym statusie (zapytanie COUNT korzystające z indeksu status, due_date).
+     *
+     * @param status status faktury
+     * @return liczba faktur o podanym statusie
+     */
+    long countByStatus(InvoiceStatus status);
+
+    /**
+     * Zlicza faktury oznaczone jako przeterminowane (indeks overdue, due_date).
+     *
+     * @return liczba przeterminowanych faktur
+     */
+    long countByOverdueTrue();
+
+    /**
+     * Oznacza jako przeterminowane faktury o podanym statusie, których termin płatności minął.
+     *
+     * @param status status faktur nieopłaconych
+     * @param today bieżący dzień
+     * @return liczba oznaczonych faktur
+     */
+    @Modifying
+    @Query("UPDATE Invoice i SET i.overdue = true " +
+            "WHERE i.overdue = false AND i.status = :status AND i.dueDate < :today")
+    int markOverdue(@Param("status") InvoiceStatus status, @Param("today") LocalDate today);
+
+    /**
+     * Zdejmuje flagę przeterminowania z faktur, które nie są już przeterminowane
+     * (zmieniony status lub przesunięty termin płatności).
+     *
+     * @param status status faktur nieopłaconych
+     * @param today bieżący dzień
+     * @return liczba zaktualizowanych faktur
+     */
+    @Modifying
+    @Query("UPDATE Invoice i SET i.overdue = false " +
+            "WHERE i.overdue = true AND (i.status <> :status OR i.dueDate >= :today)")
+    int clearOverdue(@Param("status") InvoiceStatus status, @Param("today") LocalDate today);
+
+    /**
+     * Znajduje faktury wystawione w przedziale dat [startDate, endDate) (indeks issue_date, id).
+     *
+     * @param startDate data początkowa (włącznie)
+     * @param endDate data końcowa (wyłącznie)
+     * @return faktury razem z klientami, posortowane po dacie wystawienia i id
+     */
+    @EntityGraph(Invoice.GRAPH_WITH_CUSTOMER)
+    List<Invoice> findByIssueDateGreaterThanEqualAndIssueDateLessThanOrderByIssueDateAscIdAsc(
+            LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Pobiera fakturę z blokadą wiersza (SELECT ... FOR UPDATE) przed jej zmianą lub usunięciem.
+     * Równoległa transakcja zmieniająca tę samą fakturę czeka na zatwierdzenie bieżącej,
+     * więc stan sprzed zmiany (podstawa aktualizacji statystyk) nie zostanie odczytany dwukrotnie.
+     *
+     * @param id identyfikator faktury
+     * @return faktura lub pusty wynik, gdy faktura nie istnieje
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Invoice i WHERE i.id = :id")
+    Optional<Invoice> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Zlicza faktury wystawione w przedziale dat [startDate, endDate).
+     *
+     * @param startDate data początkowa (włącznie)
+     * @param endDate data końcowa (wyłącznie)
+     * @return liczba faktur wystawionych w przedziale
+     */
+    long countByIssueDateGreaterThanEqualAndIssueDateLessThan(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Warunki filtrowania faktur wspólne dla wyszukiwania, stronicowania i podsumowań.
+     * Parametry mogą być null, co oznacza brak filtrowania po danym kryterium.
+     * Zapytania korzystające z warunków muszą dołączać klienta jako "LEFT JOIN i.customer c",
+     * aby faktury bez klienta nie znikały z wyników.
+     */
+    String SEARCH_CONDITIONS =
+            "(:status IS NULL OR i.status = :status) AND " +
+            "(:startDate IS NULL OR i.issueDate >= :startDate) AND " +
+            "(:endDate IS NULL OR i.issueDate <= :endDate) AND " +
+            "(:customerName IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :customerName, '%'))) AND " +
+            "(:minAmount IS NULL OR i.total >= :minAmount) AND " +
+            "(:maxAmount IS NULL OR i.total <= :maxAmount)";
+
     /**
      * Zaawansowane wyszukiwanie faktur z wieloma kryteriami.
      * Parametry mogą być null, co oznacza brak filtrowania po danym kryterium.
+     * Filtrowanie po kwocie korzysta z indeksowanej kolumny total.
      *
      * @param status opcjonalny status faktury
      * @param startDate opcjonalna minimalna data wystawienia faktury
@@ -37,13 +167,8 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
      * @param maxAmount opcjonalna maksymalna kwota faktury
      * @return lista faktur pasujących do kryteriów
      */
-    @Query("SELECT i FROM Invoice i WHERE " +
-            "(:status IS NULL OR i.status = :status) AND " +
-            "(:startDate IS NULL OR i.issueDate >= :startDate) AND " +
-            "(:endDate IS NULL OR i.issueDate <= :endDate) AND " +
-            "(:customerName IS NULL OR LOWER(i.customer.name) LIKE LOWER(CONCAT('%', :customerName, '%'))) AND " +
-            "(:minAmount IS NULL OR (SELECT SUM(it.quantity * it.price) FROM InvoiceItem it WHERE it.invoice = i) >= :minAmount) AND " +
-            "(:maxAmount IS NULL OR (SELECT SUM(it.quantity * it.price) FROM InvoiceItem it WHERE it.invoice = i) <= :maxAmount)")
+    @EntityGraph(Invoice.GRAPH_WITH_CUSTOMER)
+    @Query("SELECT i FROM Invoice i LEFT JOIN i.customer c WHERE " + SEARCH_CONDITIONS)
     List<Invoice> searchInvoices(
             @Param("status") InvoiceStatus status,
             @Param("startDate") LocalDate startDate,
@@ -51,4 +176,132 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
             @Param("customerName") String customerName,
             @Param("minAmount") Double minAmount,
             @Param("maxAmount") Double maxAmount);
-}
\ No newline at end of file
+
+    /**
+     * Pobiera identyfikatory faktur spełniających kryteria (np. do eksportu zbiorczego).
+     *
+     * @param limit maksymalna liczba zwracanych identyfikatorów
+     * @return identyfikatory faktur posortowane rosnąco po (data wystawienia, id)
+     */
+    @Query("SELECT i.id FROM Invoice i LEFT JOIN i.customer c WHERE " + SEARCH_CONDITIONS +
+            " ORDER BY i.issueDate ASC, i.id ASC")
+    List<Long> searchInvoiceIds(
+            @Param("status") InvoiceStatus status,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("customerName") String customerName,
+            @Param("minAmount") Double minAmount,
+            @Param("maxAmount") Double maxAmount,
+            Pageable limit);
+
+    /**
+     * Kolumny projekcji {@link InvoiceListView} pobierane na potrzeby listy faktur.
+     */
+    String LIST_VIEW_COLUMNS =
+            "i.id AS id, i.invoiceNumber AS invoiceNumber, i.issueDate AS issueDate, i.dueDate AS dueDate, " +
+            "i.status AS status, i.total AS total, c.name AS customerName";
+
+    /**
+     * Pobiera stronę faktur położonych za kursorem na liście posortowanej malejąco po (data wystawienia, id).
+     * Korzysta z indeksu (issue_date, id), więc koszt nie zależy od numeru strony.
+     * Zwraca projekcję zamiast encji - wiersze nie trafiają do kontekstu utrwalania.
+     *
+     * @param cursorDate data wystawienia faktury wskazywanej przez kursor
+     * @param cursorId identyfikator faktury wskazywanej przez kursor
+     * @param limit maksymalna liczba zwracanych faktur
+     * @return faktury posortowane malejąco po (data wystawienia, id)
+     */
+    @Query("SELECT " + LIST_VIEW_COLUMNS + " FROM Invoice i LEFT JOIN i.customer c WHERE " + SEARCH_CONDITIONS + " AND " +
+            "(i.issueDate < :cursorDate OR (i.issueDate = :cursorDate AND i.id < :cursorId)) " +
+            "ORDER BY i.issueDate DESC, i.id DESC")
+    List<InvoiceListView> searchInvoicesAfter(
+            @Param("status") InvoiceStatus status,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("customerName") String customerName,
+            @Param("minAmount") Double minAmount,
+            @Param("maxAmount") Double maxAmount,
+            @Param("cursorDate") LocalDate cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
+
+    /**
+     * Pobiera stronę faktur położonych przed kursorem (nawigacja wstecz).
+     *
+     * @return faktury posortowane rosnąco po (data wystawienia, id) - w odwrotnej kolejności niż na liście
+     */
+    @Query("SELECT " + LIST_VIEW_COLUMNS + " FROM Invoice i LEFT JOIN i.customer c WHERE " + SEARCH_CONDITIONS + " AND " +
+            "(i.issueDate > :cursorDate OR (i.issueDate = :cursorDate AND i.id > :cursorId)) " +
+            "ORDER BY i.issueDate ASC, i.id ASC")
+    List<InvoiceListView> searchInvoicesBefore(
+            @Param("status") InvoiceStatus status,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("customerName") String customerName,
+            @Param("minAmount") Double minAmount,
+            @Param("maxAmount") Double maxAmount,
+            @Param("cursorDate") LocalDate cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit);
+
+    /**
+     * Wylicza liczbę i łączną kwotę faktur spełniających kryteria jednym zapytaniem agregującym.
+     *
+     * @return podsumowanie faktur pasujących do kryteriów
+     */
+    @Query("SELECT COUNT(i) AS count, COALESCE(SUM(i.total), 0) AS total " +
+            "FROM Invoice i LEFT JOIN i.customer c WHERE " + SEARCH_CONDITIONS)
+    InvoiceSummary summarizeInvoices(
+            @Param("status") InvoiceStatus status,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("customerName") String customerName,
+            @Param("minAmount") Double minAmount,
+            @Param("maxAmount") Double maxAmount);
+
+    /**
+     * Pobiera pozycje wskazanych faktur jednym zapytaniem (np. dla faktur z bieżącej strony listy).
+     *
+     * @param invoiceIds identyfikatory faktur
+     * @return pozycje faktur posortowane po fakturze i identyfikatorze pozycji
+     */
+    @Query("SELECT it.invoice.id AS invoiceId, it.product AS product, it.quantity AS quantity, it.price AS price " +
+            "FROM InvoiceItem it WHERE it.invoice.id IN :invoiceIds ORDER BY it.invoice.id, it.id")
+    List<InvoiceItemView> findItemViewsByInvoiceIds(@Param("invoiceIds") Collection<Long> invoiceIds);
+
+    /**
+     * Pobiera kolejną stronę faktur (z klientem) o identyfikatorach większych od podanego
+     * (eksport kopii zapasowej). Pozycje faktur należy pobrać osobno dla całej strony.
+     *
+     * @param afterId identyfikator ostatniej faktury z poprzedniej strony
+     * @param pageable rozmiar strony
+     * @return faktury posortowane po identyfikatorze
+     */
+    @EntityGraph(Invoice.GRAPH_WITH_CUSTOMER)
+    List<Invoice> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Pobiera kolejną stronę faktur (z klientem) z zakresu identyfikatorów
+     * (równoległy eksport kopii zapasowej).
+     *
+     * @param afterId identyfikator ostatniej faktury z poprzedniej strony (lub dolna granica zakresu)
+     * @param maxId górna granica zakresu (włącznie)
+     * @param pageable rozmiar strony
+     * @return faktury posortowane po identyfikatorze
+     */
+    @EntityGraph(Invoice.GRAPH_WITH_CUSTOMER)
+    List<Invoice> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long afterId, Long maxId, Pageable pageable);
+
+    /**
+     * Zwraca identyfikatory faktur zapisanych od podanej chwili (eksport kopii przyrostowej).
+     */
+    @Query("SELECT i.id FROM Invoice i WHERE i.modifiedAt >= :since")
+    List<Long> findIdsModifiedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Pobiera wskazane faktury (z klientem) posortowane po identyfikatorze.
+     * Pozycje faktur należy pobrać osobno dla całej strony.
+     */
+    @EntityGraph(Invoice.GRAPH_WITH_CUSTOMER)
+    List<Invoice> findByIdInOrderByIdAsc(Collection<Long> ids);
+}
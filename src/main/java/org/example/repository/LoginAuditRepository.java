@@ -40,4 +40,24 @@ public interface LoginAuditRepository extends JpaRepository<LoginAudit, Long> {
      * Znajduje najnowsze logi logowań.
      */
     List<LoginAudit> findTop10ByOrderByLoginTimeDesc();
-}
\ No newline at end of file
+
+    /**
+     * Pobiera kolejną stronę logów o identyfikatorach większych od podanego (eksport kopii zapasowej).
+     *
+     * @param afterId identyfikator ostatniego logu z poprzedniej strony
+     * @param pageable rozmiar strony
+     * @return logi posortowane po identyfikatorze
+     */
+    List<LoginAudit> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Pobiera kolejną stronę logów zapisanych od podanej chwili (eksport kopii przyrostowej).
+     *
+     * @param since najwcześniejszy czas zapisu
+     * @param afterId identyfikator ostatniego logu z poprzedniej strony
+     * @param pageable rozmiar strony
+     * @return logi posortowane po identyfikatorze
+     */
+    List<LoginAudit> findByModifiedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+            LocalDateTime since, Long afterId, Pageable pageable);
+}
@@ -0,0 +1,44 @@
+package org.example.repository;
+
+import org.example.model.Tombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repozytorium dla zapisów usunięć rekordów (kopie przyrostowe).
+ */
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+    /**
+     * Pobiera kolejną stronę usunięć danego typu encji od podanej chwili.
+     *
+     * @param entityType nazwa klasy encji
+     * @param since najwcześniejszy czas usunięcia
+     * @param afterId identyfikator ostatniego wpisu z poprzedniej strony
+     * @param pageable rozmiar strony
+     * @return wpisy posortowane po identyfikatorze
+     */
+    List<Tombstone> findByEntityTypeAndDeletedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+            String entityType, LocalDateTime since, Long afterId, Pageable pageable);
+
+    /**
+     * Zwraca identyfikatory rekordów nadrzędnych (np. faktur), których rekordy podrzędne
+     * danego typu usunięto od podanej chwili.
+     */
+    @Query("SELECT DISTINCT t.parentId FROM Tombstone t " +
+            "WHERE t.entityType = :entityType AND t.deletedAt >= :since AND t.parentId IS NOT NULL")
+    List<Long> findParentIdsDeletedSince(@Param("entityType") String entityType, @Param("since") LocalDateTime since);
+
+    /**
+     * Zwraca czas najpóźniejszego wpisu danego typu (np. ostatniego przywrócenia danych) lub null.
+     */
+    @Query("SELECT MAX(t.deletedAt) FROM Tombstone t WHERE t.entityType = :entityType")
+    LocalDateTime findLastDeletedAt(@Param("entityType") String entityType);
+}
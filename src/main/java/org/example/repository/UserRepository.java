@@ -1,9 +1,13 @@
 package org.example.repository;
 
 import org.example.model.User;
+import org.example.repository.projection.UserView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -36,4 +40,32 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return true jeśli użytkownik istnieje, false w przeciwnym przypadku
      */
     Boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Zlicza aktywnych użytkowników.
+     *
+     * @return liczba aktywnych użytkowników
+     */
+    long countByActiveTrue();
+
+    /**
+     * Pobiera wszystkich użytkowników jako projekcję z licznikami ról wyliczonymi w jednym zapytaniu.
+     *
+     * @return lista użytkowników posortowana po identyfikatorze
+     */
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email, u.active AS active, " +
+            "SUM(CASE WHEN r.name = org.example.model.enums.RoleType.ROLE_ADMIN THEN 1 ELSE 0 END) AS adminRoleCount, " +
+            "SUM(CASE WHEN r.name = org.example.model.enums.RoleType.ROLE_USER THEN 1 ELSE 0 END) AS userRoleCount " +
+            "FROM User u LEFT JOIN u.roles r " +
+            "GROUP BY u.id, u.username, u.email, u.active ORDER BY u.id")
+    List<UserView> findAllViews();
+
+    /**
+     * Pobiera kolejną stronę użytkowników o identyfikatorach większych od podanego (eksport kopii zapasowej).
+     *
+     * @param afterId identyfikator ostatniego użytkownika z poprzedniej strony
+     * @param pageable rozmiar strony
+     * @return użytkownicy posortowani po identyfikatorze
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package org.example.repository.projection;
+
+/**
+ * Projekcja klienta do wyświetlania na listach i w polach wyboru.
+ */
+public interface CustomerView {
+
+    Long getId();
+
+    String getName();
+
+    String getNip();
+
+    String getAddress();
+
+    String getEmail();
+
+    String getPhone();
+}
@@ -0,0 +1,22 @@
+package org.example.repository.projection;
+
+/**
+ * Projekcja pozycji faktury do wyświetlania na liście faktur.
+ */
+public interface InvoiceItemView {
+
+    Long getInvoiceId();
+
+    String getProduct();
+
+    int getQuantity();
+
+    double getPrice();
+
+    /**
+     * Oblicza wartość pozycji (ilość * cena).
+     */
+    default double getTotal() {
+        return getQuantity() * getPrice();
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.repository.projection;
+
+import org.example.model.enums.InvoiceStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Projekcja faktury do wyświetlania na liście faktur.
+ * Zawiera tylko kolumny potrzebne w widoku, bez wczytywania encji klienta i pozycji.
+ */
+public interface InvoiceListView {
+
+    Long getId();
+
+    String getInvoiceNumber();
+
+    LocalDate getIssueDate();
+
+    LocalDate getDueDate();
+
+    InvoiceStatus getStatus();
+
+    Double getTotal();
+
+    String getCustomerName();
+}
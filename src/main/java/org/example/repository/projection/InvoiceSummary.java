@@ -0,0 +1,18 @@
+package org.example.repository.projection;
+
+/**
+ * Projekcja z podsumowaniem faktur spełniających kryteria wyszukiwania.
+ * Wyliczana jednym zapytaniem agregującym po stronie bazy danych.
+ */
+public interface InvoiceSummary {
+
+    /**
+     * Liczba faktur.
+     */
+    long getCount();
+
+    /**
+     * Łączna kwota faktur.
+     */
+    double getTotal();
+}
@@ -0,0 +1,34 @@
+package org.example.repository.projection;
+
+/**
+ * Projekcja użytkownika do wyświetlania na liście użytkowników.
+ * Zamiast kolekcji ról zawiera liczniki ról wyliczone w zapytaniu.
+ */
+public interface UserView {
+
+    Long getId();
+
+    String getUsername();
+
+    String getEmail();
+
+    boolean isActive();
+
+    long getAdminRoleCount();
+
+    long getUserRoleCount();
+
+    /**
+     * Sprawdza czy użytkownik ma rolę administratora.
+     */
+    default boolean isAdmin() {
+        return getAdminRoleCount() > 0;
+    }
+
+    /**
+     * Sprawdza czy użytkownik ma rolę zwykłego użytkownika.
+     */
+    default boolean isUser() {
+        return getUserRoleCount() > 0;
+    }
+}
@@ -0,0 +1,267 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.enums.BackupType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Skompresowany format kopii zapasowej (plik ZIP).
+ * <p>
+ * Każda tabela jest zapisywana jako ciąg niezależnych fragmentów ({@code customers/000000.json}, ...),
+ * z których każdy jest tablicą JSON jednej strony eksportu skompresowaną algorytmem DEFLATE.
+ * Manifest ({@value #MANIFEST_ENTRY}) zawiera liczbę rekordów każdej tabeli oraz nazwę, rozmiar
+ * i skrót SHA-256 każdego fragmentu; położenie fragmentów w pliku wskazuje katalog centralny ZIP.
+ * Dzięki temu przywracanie może sprawdzić każdy fragment przed zmianą danych i czytać fragmenty
+ * niezależnie od siebie.
+ * <p>
+ * Manifest opisuje też rodzaj kopii ({@link BackupType}) i chwilę rozpoczęcia eksportu; kopia
+ * przyrostowa wskazuje dodatkowo kopię bazową, na której została utworzona.
+ */
+final class BackupArchive {
+
+    static final String MANIFEST_ENTRY = "manifest.json";
+    static final String FORMAT_VERSION = "2.0";
+
+    private BackupArchive() {
+    }
+
+    /**
+     * Odczytuje manifest kopii.
+     *
+     * @throws IOException gdy plik nie zawiera manifestu lub manifest jest w innej wersji
+     */
+    static Manifest readManifest(ObjectMapper mapper, ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(MANIFEST_ENTRY);
+        if (entry == null) {
+            throw new IOException("Brak manifestu w pliku kopii zapasowej: " + zip.getName());
+        }
+        Manifest manifest;
+        try (InputStream in = zip.getInputStream(entry)) {
+            manifest = mapper.readValue(in, Manifest.class);
+        }
+        if (!FORMAT_VERSION.equals(manifest.version)) {
+            throw new IOException("Nieobsługiwana wersja kopii zapasowej: " + manifest.version);
+        }
+        return manifest;
+    }
+
+    /**
+     * Sprawdza skróty SHA-256 i rozmiary wszystkich fragmentów wymienionych w manifeście.
+     *
+     * @throws IOException gdy brakuje fragmentu albo jego zawartość nie zgadza się z manifestem
+     */
+    static void verify(ZipFile zip, Manifest manifest) throws IOException {
+        byte[] buffer = new byte[8192];
+        for (TableEntry table : manifest.tables.values()) {
+            for (ChunkEntry chunk : table.chunks) {
+                MessageDigest digest = sha256();
+                long size = 0;
+                try (InputStream in = new DigestInputStream(openChunk(zip, chunk), digest)) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        size += read;
+                    }
+                }
+                if (size != chunk.size || !HexFormat.of().formatHex(digest.digest()).equals(chunk.sha256)) {
+                    throw new IOException("Uszkodzony fragment kopii zapasowej: " + chunk.entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Otwiera strumień nieskompresowanej zawartości fragmentu (tablicy JSON).
+     */
+    static InputStream openChunk(ZipFile zip, ChunkEntry chunk) throws IOException {
+        ZipEntry entry = zip.getEntry(chunk.entry);
+        if (entry == null) {
+            throw new IOException("Brak fragmentu kopii zapasowej: " + chunk.entry);
+        }
+        return zip.getInputStream(entry);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Brak algorytmu SHA-256", e);
+        }
+    }
+
+    /**
+     * Zapisuje kopię w formacie ZIP. Manifest jest zapisywany na końcu, gdy liczby rekordów są już znane.
+     */
+    static final class Writer implements Closeable {
+
+        private final ObjectMapper mapper;
+        private final ZipOutputStream zip;
+        private final Manifest manifest;
+
+        /**
+         * @param manifest manifest z uzupełnionym opisem kopii (rodzaj, czas, kopia bazowa);
+         *                 tabele są dopisywane podczas zapisu
+         */
+        Writer(ObjectMapper mapper, OutputStream out, Manifest manifest) {
+            this.mapper = mapper;
+            this.zip = new ZipOutputStream(out);
+            this.manifest = manifest;
+        }
+
+        /**
+         * Zapisuje pojedynczy obiekt jako osobny wpis (np. dane firmy).
+         */
+        void writeEntry(String name, Object value) throws IOException {
+            write(new ZipEntry(name), value);
+        }
+
+        /**
+         * Rejestruje tabelę w manifeście (także wtedy, gdy nie ma w niej rekordów).
+         */
+        void startTable(String table) {
+            manifest.tables.computeIfAbsent(table, name -> new TableEntry());
+        }
+
+        /**
+         * Zapisuje dokument JSON przygotowany wcześniej (np. w innym wątku) jako osobny wpis.
+         */
+        void writeSerializedEntry(String name, byte[] json) throws IOException {
+            writeBytes(new ZipEntry(name), json);
+        }
+
+        /**
+         * Zapisuje kolejny fragment tabeli.
+         */
+        void writeChunk(String table, List<?> rows) throws IOException {
+            ChunkEntry chunk = nextChunk(table, rows.size());
+            ZipEntry entry = new ZipEntry(chunk.entry);
+            chunk.sha256 = write(entry, rows);
+            chunk.size = entry.getSize();
+        }
+
+        /**
+         * Zapisuje kolejny fragment tabeli przygotowany wcześniej jako tablica JSON (np. w innym wątku).
+         * Fragmenty jednej tabeli mogą być zapisywane w dowolnej kolejności.
+         */
+        void writeSerializedChunk(String table, byte[] json, int rows) throws IOException {
+            ChunkEntry chunk = nextChunk(table, rows);
+            chunk.sha256 = writeBytes(new ZipEntry(chunk.entry), json);
+            chunk.size = json.length;
+        }
+
+        private ChunkEntry nextChunk(String table, int rows) {
+            TableEntry tableEntry = manifest.tables.computeIfAbsent(table, name -> new TableEntry());
+            ChunkEntry chunk = new ChunkEntry();
+            chunk.entry = String.format("%s/%06d.json", table, tableEntry.chunks.size());
+            chunk.rows = rows;
+            tableEntry.rows += rows;
+            tableEntry.chunks.add(chunk);
+            return chunk;
+        }
+
+        /**
+         * Zapisuje manifest i kończy plik ZIP.
+         */
+        void finish(String timestamp) throws IOException {
+            manifest.version = FORMAT_VERSION;
+            manifest.timestamp = timestamp;
+            write(new ZipEntry(MANIFEST_ENTRY), manifest);
+            zip.finish();
+        }
+
+        /**
+         * Zapisuje obiekt jako wpis JSON. Po zamknięciu wpisu {@link ZipEntry#getSize()} zawiera
+         * rozmiar danych przed kompresją.
+         *
+         * @return skrót SHA-256 zapisanych danych
+         */
+        private String write(ZipEntry entry, Object value) throws IOException {
+            zip.putNextEntry(entry);
+            MessageDigest digest = sha256();
+            // Generator nie zamyka strumienia ZIP - zamykany jest tylko bieżący wpis
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(new DigestOutputStream(zip, digest))) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeObject(value);
+            }
+            zip.closeEntry();
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        /**
+         * Zapisuje gotową zawartość jako wpis.
+         *
+         * @return skrót SHA-256 zapisanych danych
+         */
+        private String writeBytes(ZipEntry entry, byte[] content) throws IOException {
+            zip.putNextEntry(entry);
+            zip.write(content);
+            zip.closeEntry();
+            return HexFormat.of().formatHex(sha256().digest(content));
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+
+    /**
+     * Manifest kopii zapasowej.
+     */
+    public static class Manifest {
+        public String version;
+        public String timestamp;
+        /**
+         * Rodzaj kopii (brak w kopiach sprzed wprowadzenia kopii przyrostowych - oznacza kopię pełną).
+         */
+        public BackupType type;
+        /**
+         * Chwila rozpoczęcia eksportu - od niej liczone są zmiany w kolejnej kopii przyrostowej.
+         */
+        public LocalDateTime snapshotTime;
+        /**
+         * Nazwa pliku kopii bazowej (tylko kopia przyrostowa).
+         */
+        public String base;
+        /**
+         * Najwcześniejszy czas zmiany uwzględniony w kopii przyrostowej.
+         */
+        public LocalDateTime since;
+        public Map<String, TableEntry> tables = new LinkedHashMap<>();
+    }
+
+    /**
+     * Tabela w manifeście: liczba rekordów i jej fragmenty w kolejności zapisu.
+     */
+    public static class TableEntry {
+        public long rows;
+        public List<ChunkEntry> chunks = new ArrayList<>();
+    }
+
+    /**
+     * Fragment tabeli: nazwa wpisu ZIP, liczba rekordów, rozmiar po rozpakowaniu i skrót SHA-256.
+     */
+    public static class ChunkEntry {
+        public String entry;
+        public int rows;
+        public long size;
+        public String sha256;
+    }
+}
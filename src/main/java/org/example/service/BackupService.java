@@ -1,9 +1,19 @@
 package org.example.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.event.EntityChangedEvent;
 import org.example.model.*;
+import org.example.model.enums.BackupFormat;
+import org.example.model.enums.BackupRestoreMode;
+import org.example.model.enums.BackupType;
 import org.example.model.enums.InvoiceStatus;
 import org.example.model.enums.PaymentMethod;
 import org.example.model.enums.RoleType;
@@ -11,86 +21,284 @@ import org.example.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.File;
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
 
 /**
  * Serwis odpowiedzialny za tworzenie kopii zapasowych danych systemu i ich przywracanie.
  * Eksportuje dane w formie uproszczonych DTO do pliku JSON.
+ * Eksport jest strumieniowy (stronami), więc nie wymaga wczytania całej bazy do pamięci.
+ * <p>
+ * Poza kopią pełną serwis tworzy kopie przyrostowe: zawierają one tylko rekordy zmienione
+ * (według {@code modifiedAt}) i usunięte (według {@link Tombstone}) od utworzenia kopii bazowej.
+ * Kopia przyrostowa utworzona na kopii pełnej jest kopią różnicową.
+ * <p>
+ * Kopia pełna w formacie ZIP może być eksportowana równolegle ({@code app.backup.export.threads}):
+ * każdy wątek czyta dane we własnej transakcji, a wszystkie transakcje widzą ten sam stan bazy.
  */
 @Service
 public class BackupService {
 
     private static final Logger logger = LoggerFactory.getLogger(BackupService.class);
 
+    /**
+     * Tabele przywracane paczkami JDBC, w kolejności usuwania (zależności kluczy obcych).
+     */
+    private static final List<String> RESTORED_TABLES = List.of("invoice_item", "invoice", "customer", "login_audit");
+
+    /**
+     * Tabele usunięć zapisywane w kopii przyrostowej (nazwa tabeli kopii -> typ encji),
+     * w kolejności stosowania przy przywracaniu (zależności kluczy obcych). Usunięte pozycje faktur
+     * nie mają własnej tabeli - ich faktury są zapisywane ponownie z kompletem pozycji.
+     */
+    private static final Map<String, Class<?>> DELETION_TABLES = new LinkedHashMap<>();
+
+    static {
+        DELETION_TABLES.put("deletedInvoices", Invoice.class);
+        DELETION_TABLES.put("deletedCustomers", Customer.class);
+    }
+
+    /**
+     * Tabele kopii w kolejności zapisu (przywracanie wymaga klientów przed fakturami).
+     */
+    private static final List<String> EXPORTED_TABLES = List.of("customers", "invoices", "users", "roles", "loginAudits");
+
+    /**
+     * Tabele bazy czytane przez eksport - blokowane przed zapisem na czas otwierania migawek.
+     */
+    private static final String LOCKED_TABLES = "company READ, customer READ, invoice READ, invoice_item READ, " +
+            "users READ, roles READ, user_roles READ, login_audit READ";
+
+    /**
+     * Zapytanie bez odczytu tabel InnoDB - zajmuje połączenie transakcji, ale nie ustala migawki.
+     */
+    private static final String CONNECTION_CHECK_SQL = "SELECT 1";
+
+    /**
+     * Pierwszy odczyt w transakcji REPEATABLE READ ustala migawkę InnoDB (jak
+     * {@code START TRANSACTION WITH CONSISTENT SNAPSHOT}).
+     */
+    private static final String SNAPSHOT_ANCHOR_SQL = "SELECT id FROM roles LIMIT 1";
+
+    /**
+     * Maksymalny czas oczekiwania na kolejny etap otwierania migawek (przygotowanie wątków, blokada tabel).
+     */
+    private static final long SNAPSHOT_TIMEOUT_SECONDS = 30;
+
     private final UserRepository userRepository;
     private final CustomerRepository customerRepository;
     private final InvoiceRepository invoiceRepository;
+    private final InvoiceItemRepository invoiceItemRepository;
     private final CompanyRepository companyRepository;
     private final RoleRepository roleRepository;
     private final LoginAuditRepository loginAuditRepository;
+    private final TombstoneRepository tombstoneRepository;
     private final PasswordEncoder passwordEncoder;
+    private final InvoiceStatisticsService invoiceStatisticsService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int pageSize;
+    private final int batchSize;
+    private final BackupFormat format;
+    private final long incrementalOverlapSeconds;
+    private final int exportThreads;
+    private final ExecutorService exportExecutor;
+    /**
+     * Eksport równoległy zajmuje całą pulę wątków eksportu - kolejne kopie są w tym czasie odrzucane.
+     */
+    private final ReentrantLock parallelExportLock = new ReentrantLock();
 
-    private Map<Long, Long> customerIdMapping; // Przechowuje mapowanie ID klientów (stare->nowe)
-    private Map<Long, Long> roleIdMapping = new HashMap<>(); // Przechowuje mapowanie ID ról (stare->nowe)
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
     public BackupService(UserRepository userRepository,
                          CustomerRepository customerRepository,
                          InvoiceRepository invoiceRepository,
+                         InvoiceItemRepository invoiceItemRepository,
                          CompanyRepository companyRepository,
                          RoleRepository roleRepository,
                          LoginAuditRepository loginAuditRepository,
-                         PasswordEncoder passwordEncoder) {
+                         TombstoneRepository tombstoneRepository,
+                         PasswordEncoder passwordEncoder,
+                         InvoiceStatisticsService invoiceStatisticsService,
+                         NamedParameterJdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         DataSource dataSource,
+                         ApplicationEventPublisher eventPublisher,
+                         @Value("${app.backup.page-size:500}") int pageSize,
+                         @Value("${app.backup.restore.batch-size:1000}") int batchSize,
+                         @Value("${app.backup.format:ZIP}") BackupFormat format,
+                         @Value("${app.backup.incremental.overlap-seconds:300}") long incrementalOverlapSeconds,
+                         @Value("${app.backup.export.threads:1}") int exportThreads) {
         this.userRepository = userRepository;
         this.customerRepository = customerRepository;
         this.invoiceRepository = invoiceRepository;
+        this.invoiceItemRepository = invoiceItemRepository;
         this.companyRepository = companyRepository;
         this.roleRepository = roleRepository;
         this.loginAuditRepository = loginAuditRepository;
+        this.tombstoneRepository = tombstoneRepository;
         this.passwordEncoder = passwordEncoder;
+        this.invoiceStatisticsService = invoiceStatisticsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+        this.format = format;
+        this.incrementalOverlapSeconds = incrementalOverlapSeconds;
+        this.exportThreads = Math.max(1, exportThreads);
+        this.exportExecutor = this.exportThreads > 1
+                ? Executors.newFixedThreadPool(this.exportThreads, new ExportThreadFactory())
+                : null;
     }
 
     /**
      * Tworzy kopię zapasową wszystkich danych systemu.
      * Używa obiektów DTO bez cyklicznych referencji.
+     * <p>
+     * Dane są zapisywane strumieniowo: każda tabela jest czytana stronami (według identyfikatora),
+     * a po zapisaniu strony kontekst utrwalania jest czyszczony, więc zużycie pamięci zależy
+     * od rozmiaru strony, a nie od liczby rekordów. Cały eksport odbywa się w jednej transakcji
+     * tylko do odczytu, więc kopia odpowiada jednemu stanowi bazy danych. Plik jest zapisywany
+     * pod nazwą tymczasową i udostępniany dopiero po zapisaniu w całości.
+     * <p>
+     * Format pliku określa właściwość {@code app.backup.format}: domyślnie skompresowany
+     * {@link BackupFormat#ZIP} (fragmenty tabel z sumami kontrolnymi), a {@link BackupFormat#JSON}
+     * zapisuje dotychczasowy, sformatowany dokument JSON.
+     * <p>
+     * Gdy {@code app.backup.export.threads} jest większe od 1, kopia ZIP jest eksportowana równolegle
+     * (zob. {@link #writeBackupParallel}) - czas eksportu skaluje się z liczbą rdzeni i połączeń z bazą.
+     * W tym trybie jednocześnie może powstawać tylko jedna kopia.
      *
      * @return ścieżka do utworzonego pliku kopii zapasowej
      * @throws IOException w przypadku błędu podczas zapisu pliku
+     * @throws IllegalStateException gdy trwa równoległy eksport innej kopii
      */
-    @Transactional
     public String createBackup() throws IOException {
         logger.info("Rozpoczęcie tworzenia kopii zapasowej danych systemu...");
 
-        // Konfiguracja ObjectMapper do serializacji JSON
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        boolean parallel = exportThreads > 1 && format == BackupFormat.ZIP;
+        if (parallel && !parallelExportLock.tryLock()) {
+            throw new IllegalStateException("Trwa tworzenie innej kopii zapasowej - spróbuj ponownie później");
+        }
+        try {
+            BackupArchive.Manifest header = new BackupArchive.Manifest();
+            header.type = BackupType.FULL;
+            header.snapshotTime = LocalDateTime.now();
+            return writeBackupFile(format, "", header, parallel);
+        } finally {
+            if (parallel) {
+                parallelExportLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Tworzy kopię przyrostową: tylko rekordy zmienione i usunięte od utworzenia kopii bazowej.
+     * <p>
+     * Klienci, faktury (wraz ze wszystkimi pozycjami) i logi logowań są wybierane według czasu
+     * modyfikacji, a usunięte rekordy według wpisów {@link Tombstone}. Okno zmian zaczyna się
+     * {@code app.backup.incremental.overlap-seconds} sekund przed rozpoczęciem kopii bazowej, aby
+     * objąć zmiany zatwierdzone w trakcie jej tworzenia (ponowne zapisanie rekordu jest bezpieczne).
+     * Użytkownicy i role są zapisywane w całości. Kopia przyrostowa jest zawsze w formacie ZIP,
+     * a jej bazą może być kopia pełna albo inna kopia przyrostowa, utworzona po ostatnim przywróceniu danych.
+     *
+     * @param baseFileName nazwa pliku kopii bazowej (ZIP)
+     * @return ścieżka do utworzonego pliku kopii zapasowej
+     * @throws IOException w przypadku błędu podczas odczytu kopii bazowej lub zapisu pliku
+     * @throws IllegalArgumentException gdy kopia bazowa nie istnieje lub nie może być bazą
+     */
+    public String createIncrementalBackup(String baseFileName) throws IOException {
+        logger.info("Rozpoczęcie tworzenia kopii przyrostowej na bazie: {}", baseFileName);
+
+        Path basePath = Paths.get("backups", baseFileName);
+        if (BackupFormat.fromFileName(baseFileName) != BackupFormat.ZIP || !Files.exists(basePath)) {
+            throw new IllegalArgumentException("Kopia bazowa musi być istniejącym plikiem ZIP: " + baseFileName);
+        }
+        BackupArchive.Manifest base;
+        try (ZipFile zip = new ZipFile(basePath.toFile())) {
+            base = BackupArchive.readManifest(createMapper(), zip);
+        }
+        if (base.snapshotTime == null) {
+            throw new IllegalArgumentException("Kopia " + baseFileName
+                    + " nie zawiera czasu utworzenia - utwórz nową kopię pełną");
+        }
+        // Przywrócenie danych usuwa rekordy bez wpisów Tombstone - kopia sprzed niego nie może być bazą
+        LocalDateTime lastRestore = tombstoneRepository.findLastDeletedAt(Tombstone.RESTORE);
+        if (lastRestore != null && base.snapshotTime.isBefore(lastRestore)) {
+            throw new IllegalArgumentException("Kopia " + baseFileName + " została utworzona przed przywróceniem"
+                    + " danych z kopii zapasowej (" + lastRestore + ") - utwórz nową kopię pełną");
+        }
 
-        // Przygotowanie danych do kopii
-        BackupData backupData = new BackupData();
+        BackupArchive.Manifest header = new BackupArchive.Manifest();
+        header.type = BackupType.INCREMENTAL;
+        header.snapshotTime = LocalDateTime.now();
+        header.base = Paths.get(baseFileName).getFileName().toString();
+        header.since = base.snapshotTime.minusSeconds(incrementalOverlapSeconds);
+        return writeBackupFile(BackupFormat.ZIP, "_inc", header, false);
+    }
 
-        // Pobieranie i konwersja danych z repozytoriów
-        backupData.company = companyRepository.getCompanyInfo();
-        backupData.customers = convertCustomers(customerRepository.findAll());
-        backupData.invoices = convertInvoices(invoiceRepository.findAll());
-        backupData.users = convertUsers(userRepository.findAll());
-        backupData.roles = roleRepository.findAll();
-        backupData.loginAudits = loginAuditRepository.findAll();
-        backupData.timestamp = new Date().toString();
-        backupData.version = "1.0";
+    /**
+     * Zapisuje plik kopii pod nazwą tymczasową i udostępnia go dopiero po zapisaniu w całości.
+     *
+     * @param header opis kopii zapisywany w manifeście (w formacie JSON pomijany)
+     * @param parallel czy kopię ZIP eksportować równolegle (tylko kopia pełna)
+     * @return ścieżka do utworzonego pliku kopii zapasowej
+     */
+    private String writeBackupFile(BackupFormat format, String suffix, BackupArchive.Manifest header,
+                                   boolean parallel) throws IOException {
+        ObjectMapper mapper = createMapper();
 
         // Utworzenie katalogu backups, jeśli nie istnieje
         Path backupDir = Paths.get("backups");
@@ -100,85 +308,545 @@ public class BackupService {
 
         // Generowanie nazwy pliku z datą i czasem
         String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String fileName = "backup_" + timestamp + ".json";
-        File backupFile = new File(backupDir.toFile(), fileName);
+        String fileName = "backup_" + timestamp + suffix + format.getExtension();
+        Path backupFile = backupDir.resolve(fileName);
+        Path tempFile = backupDir.resolve(fileName + ".tmp");
+
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                if (format == BackupFormat.ZIP) {
+                    try (BackupArchive.Writer writer = new BackupArchive.Writer(mapper, out, header)) {
+                        if (parallel) {
+                            writeBackupParallel(writer, mapper);
+                        } else {
+                            inSnapshot(() -> writeBackup(new ZipBackupSink(writer), header.since));
+                        }
+                    }
+                } else {
+                    try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                        generator.useDefaultPrettyPrinter();
+                        inSnapshot(() -> writeBackup(new JsonBackupSink(generator), null));
+                    }
+                }
+            }
+            Files.move(tempFile, backupFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
 
-        // Zapis danych do pliku
-        mapper.writeValue(backupFile, backupData);
+        logger.info("Kopia zapasowa została utworzona: {}", backupFile.toAbsolutePath());
+        return backupFile.toAbsolutePath().toString();
+    }
 
-        logger.info("Kopia zapasowa została utworzona: {}", backupFile.getAbsolutePath());
-        return backupFile.getAbsolutePath();
+    /**
+     * Konfiguracja ObjectMapper do (de)serializacji JSON kopii zapasowych.
+     */
+    private static ObjectMapper createMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
+    /**
+     * Zapisuje dane kopii zapasowej: w formacie {@link BackupData} albo jako fragmenty {@link BackupArchive}.
+     *
+     * @param since początek okna zmian kopii przyrostowej lub null dla kopii pełnej
+     */
+    private void writeBackup(BackupFileSink sink, LocalDateTime since) throws IOException {
+        writeCompany(sink);
+        long customers = writeCustomers(sink, since);
+        long invoices = writeTable(sink, "invoices",
+                since == null
+                        ? invoiceRepository::findByIdGreaterThanOrderByIdAsc
+                        : changedInvoicesReader(changedInvoiceIds(since)),
+                Invoice::getId,
+                this::convertInvoices);
+        long users = writeUsers(sink);
+        writeRoles(sink);
+        long loginAudits = writeLoginAudits(sink, since);
+
+        if (since != null) {
+            for (Map.Entry<String, Class<?>> table : DELETION_TABLES.entrySet()) {
+                String entityType = table.getValue().getSimpleName();
+                long deleted = writeTable(sink, table.getKey(),
+                        (afterId, pageable) -> tombstoneRepository
+                                .findByEntityTypeAndDeletedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+                                        entityType, since, afterId, pageable),
+                        Tombstone::getId,
+                        page -> page.stream().map(Tombstone::getEntityId).toList());
+                logger.info("Zapisano w kopii przyrostowej {} usunięć ({})", deleted, entityType);
+            }
+        }
+
+        sink.finish(new Date().toString());
+
+        logger.info("Zapisano w kopii zapasowej: {} klientów, {} faktur, {} użytkowników, {} logów logowań",
+                customers, invoices, users, loginAudits);
+    }
+
+    private void writeCompany(BackupSink sink) throws IOException {
+        sink.writeObject("company", companyRepository.getCompanyInfo());
+    }
+
+    private long writeCustomers(BackupSink sink, LocalDateTime since) throws IOException {
+        return writeTable(sink, "customers",
+                since == null
+                        ? customerRepository::findByIdGreaterThanOrderByIdAsc
+                        : (afterId, pageable) -> customerRepository
+                                .findByModifiedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(since, afterId, pageable),
+                Customer::getId,
+                page -> page.stream().map(this::convertCustomer).toList());
+    }
+
+    private long writeUsers(BackupSink sink) throws IOException {
+        return writeTable(sink, "users",
+                userRepository::findByIdGreaterThanOrderByIdAsc, User::getId,
+                page -> page.stream().map(this::convertUser).toList());
+    }
+
+    private void writeRoles(BackupSink sink) throws IOException {
+        sink.startTable("roles");
+        sink.writePage(roleRepository.findAll());
+        sink.endTable();
+    }
+
+    private long writeLoginAudits(BackupSink sink, LocalDateTime since) throws IOException {
+        return writeTable(sink, "loginAudits",
+                since == null
+                        ? loginAuditRepository::findByIdGreaterThanOrderByIdAsc
+                        : (afterId, pageable) -> loginAuditRepository
+                                .findByModifiedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(since, afterId, pageable),
+                LoginAudit::getId,
+                page -> page);
+    }
+
+    /**
+     * Eksportuje kopię pełną równolegle w {@code app.backup.export.threads} wątkach.
+     * <p>
+     * Wszystkie wątki widzą ten sam stan bazy. Najpierw każdy wątek zajmuje połączenie i rozpoczyna
+     * transakcję REPEATABLE READ (bez ustalania migawki). Dopiero gdy wszystkie są gotowe, tabele są
+     * blokowane przed zapisem ({@code LOCK TABLES ... READ} na osobnym połączeniu), wątki wykonują
+     * pierwszy odczyt, który ustala ich migawki, i blokada jest zwalniana. Zapisy czekają więc tylko
+     * na kilka krótkich zapytań, a nie na zdobycie połączeń przez wątki.
+     * <p>
+     * Wątki pobierają ze wspólnej kolejki zadania (tabele i zakresy identyfikatorów faktur), zamieniają
+     * strony rekordów na JSON i przekazują je do bieżącego wątku, który zapisuje je do pliku ZIP.
+     * Kolejka gotowych fragmentów jest ograniczona, więc zużycie pamięci nie zależy od wielkości bazy.
+     * Każdy wątek zajmuje jedno połączenie z bazą, a blokada tabel jeszcze jedno.
+     * <p>
+     * Gdy tabel nie można zablokować (np. brak uprawnienia {@code LOCK TABLES}), kopia jest
+     * eksportowana sekwencyjnie w jednej transakcji.
+     */
+    private void writeBackupParallel(BackupArchive.Writer writer, ObjectMapper mapper) throws IOException {
+        ParallelExport export = new ParallelExport(mapper, exportThreads);
+        List<Future<?>> workers = new ArrayList<>();
+        boolean completed = false;
+        try {
+            boolean locked;
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                for (int i = 0; i < exportThreads; i++) {
+                    workers.add(exportExecutor.submit(() -> {
+                        exportWorker(export);
+                        return null;
+                    }));
+                }
+                // Wątki zajmują połączenia i rozpoczynają transakcje, zanim zapisy zostaną zablokowane
+                awaitWorkers(export, export.ready, "rozpocząć transakcji eksportu", workers);
+
+                locked = lockTables(statement);
+                if (locked) {
+                    try {
+                        List<ExportUnit> units = exportUnits(statement);
+                        export.units.addAll(units);
+                        export.locked.countDown();
+                        awaitWorkers(export, export.anchored, "otworzyć migawek bazy danych", workers);
+                        logger.info("Eksport równoległy: {} zadań w {} wątkach", units.size(), exportThreads);
+                    } finally {
+                        statement.execute("UNLOCK TABLES");
+                    }
+                }
+            }
+            if (!locked) {
+                // Zwolnienie wątków (kończą transakcje bez eksportu) przed eksportem sekwencyjnym
+                export.failed.set(true);
+                export.locked.countDown();
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+                inSnapshot(() -> writeBackup(new ZipBackupSink(writer), null));
+                completed = true;
+                return;
+            }
+
+            for (String table : EXPORTED_TABLES) {
+                writer.startTable(table);
+            }
+            int finished = 0;
+            while (finished < exportThreads) {
+                ExportPart part = export.parts.poll(100, TimeUnit.MILLISECONDS);
+                if (part == null) {
+                    if (export.failed.get()) {
+                        break; // błąd wątku zostanie zgłoszony poniżej
+                    }
+                } else if (part == ExportPart.END) {
+                    finished++;
+                } else if (part.table == null) {
+                    writer.writeSerializedEntry(part.name, part.json);
+                } else {
+                    writer.writeSerializedChunk(part.table, part.json, part.rows);
+                }
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            writer.finish(new Date().toString());
+            completed = true;
+        } catch (SQLException e) {
+            throw new IOException("Błąd podczas blokowania tabel do eksportu: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Eksport kopii zapasowej został przerwany");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new IOException("Błąd podczas równoległego eksportu kopii zapasowej: " + cause.getMessage(), cause);
+        } finally {
+            if (!completed) {
+                export.failed.set(true);
+                export.locked.countDown();
+                workers.forEach(worker -> worker.cancel(true));
+            }
+        }
+    }
+
+    /**
+     * Czeka, aż wszystkie wątki eksportu przejdą dany etap. Gdy któryś wątek zakończył się błędem,
+     * zgłasza ten błąd (po zwolnieniu pozostałych wątków).
+     *
+     * @throws IOException gdy wątki nie przeszły etapu w ciągu {@value #SNAPSHOT_TIMEOUT_SECONDS} s
+     */
+    private void awaitWorkers(ParallelExport export, CountDownLatch stage, String stageName, List<Future<?>> workers)
+            throws IOException, InterruptedException, ExecutionException {
+        if (!stage.await(SNAPSHOT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new IOException("Wątki eksportu nie zdążyły " + stageName + " w ciągu "
+                    + SNAPSHOT_TIMEOUT_SECONDS + " s - sprawdź rozmiar puli połączeń");
+        }
+        if (export.failed.get()) {
+            export.locked.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            throw new IOException("Przerwano równoległy eksport kopii zapasowej");
+        }
+    }
+
+    /**
+     * Blokuje czytane tabele przed zapisem.
+     *
+     * @return false, gdy baza odmówiła blokady (eksport zostanie wykonany sekwencyjnie)
+     */
+    private boolean lockTables(Statement statement) {
+        try {
+            statement.execute("LOCK TABLES " + LOCKED_TABLES);
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Nie można zablokować tabel do eksportu równoległego ({}) - eksport sekwencyjny",
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Przygotowuje zadania eksportu: faktury w zakresach identyfikatorów (odczytanych przy zablokowanych
+     * tabelach), a pozostałe tabele w całości. Największe zadania są pobierane jako pierwsze.
+     */
+    private List<ExportUnit> exportUnits(Statement statement) throws SQLException {
+        List<ExportUnit> units = new ArrayList<>();
+        try (ResultSet range = statement.executeQuery("SELECT MIN(id), MAX(id) FROM invoice")) {
+            if (range.next()) {
+                long min = range.getLong(1);
+                long max = range.getLong(2);
+                if (!range.wasNull()) {
+                    // Kilka zakresów na wątek wyrównuje obciążenie przy nierównym rozkładzie identyfikatorów
+                    long width = Math.max(pageSize, (max - min) / (exportThreads * 4L) + 1);
+                    for (long from = min - 1; from < max; from += width) {
+                        long lower = from;
+                        long upper = Math.min(max, from + width);
+                        units.add(sink -> writeTable(sink, "invoices",
+                                (afterId, pageable) -> invoiceRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+                                        Math.max(afterId, lower), upper, pageable),
+                                Invoice::getId,
+                                this::convertInvoices));
+                    }
+                }
+            }
+        }
+        units.add(sink -> writeLoginAudits(sink, null));
+        units.add(sink -> writeCustomers(sink, null));
+        units.add(this::writeUsers);
+        units.add(this::writeRoles);
+        units.add(this::writeCompany);
+        return units;
+    }
+
+    /**
+     * Wątek eksportu: rozpoczyna transakcję, po zablokowaniu tabel otwiera migawkę bazy, a następnie
+     * wykonuje zadania ze wspólnej kolejki w tej samej transakcji. Na końcu zawsze przekazuje
+     * znacznik {@link ExportPart#END}.
+     */
+    private void exportWorker(ParallelExport export) throws IOException, InterruptedException {
+        AtomicBoolean ready = new AtomicBoolean();
+        AtomicBoolean anchored = new AtomicBoolean();
+        try {
+            inSnapshot(() -> {
+                jdbcTemplate.queryForList(CONNECTION_CHECK_SQL, Map.of());
+                ready.set(true);
+                export.ready.countDown();
+
+                if (!awaitLocked(export)) {
+                    return; // eksport sekwencyjny albo błąd innego wątku
+                }
+                jdbcTemplate.queryForList(SNAPSHOT_ANCHOR_SQL, Map.of());
+                anchored.set(true);
+                export.anchored.countDown();
+
+                ExportUnit unit;
+                while (!export.failed.get() && (unit = export.units.poll()) != null) {
+                    unit.export(new PartBackupSink(export));
+                }
+            });
+        } catch (RuntimeException | IOException e) {
+            export.failed.set(true);
+            throw e;
+        } finally {
+            // Błąd wątku nie przedłuża oczekiwania - zostanie zgłoszony przez wątek łączący fragmenty
+            if (!ready.get()) {
+                export.ready.countDown();
+            }
+            if (!anchored.get()) {
+                export.anchored.countDown();
+            }
+            export.put(ExportPart.END);
+        }
+    }
+
+    /**
+     * Czeka na zablokowanie tabel przez wątek łączący fragmenty.
+     *
+     * @return false, gdy eksport równoległy został zaniechany
+     * @throws IOException gdy tabele nie zostały zablokowane w wyznaczonym czasie
+     */
+    private boolean awaitLocked(ParallelExport export) throws IOException {
+        try {
+            if (!export.locked.await(SNAPSHOT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IOException("Nie zablokowano tabel do eksportu w ciągu " + SNAPSHOT_TIMEOUT_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Eksport kopii zapasowej został przerwany");
+        }
+        return !export.failed.get();
+    }
+
+    /**
+     * Wykonuje zapis kopii w transakcji tylko do odczytu z izolacją REPEATABLE READ
+     * (spójna migawka bazy przez cały eksport).
+     */
+    private void inSnapshot(BackupTask task) throws IOException {
+        try {
+            snapshotTemplate.executeWithoutResult(status -> {
+                try {
+                    task.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Zwraca posortowane identyfikatory faktur do zapisania w kopii przyrostowej: zmienionych,
+     * ze zmienionymi pozycjami oraz z usuniętymi pozycjami (faktura jest zapisywana z kompletem pozycji).
+     */
+    private long[] changedInvoiceIds(LocalDateTime since) {
+        return Stream.of(invoiceRepository.findIdsModifiedSince(since),
+                        invoiceItemRepository.findInvoiceIdsModifiedSince(since),
+                        tombstoneRepository.findParentIdsDeletedSince(InvoiceItem.class.getSimpleName(), since))
+                .flatMap(List::stream)
+                .mapToLong(Long::longValue)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * Odczyt stronami faktur o podanych identyfikatorach. Faktury usunięte w międzyczasie są pomijane,
+     * a strona jest uzupełniana kolejnymi identyfikatorami, więc niepełna strona oznacza koniec danych.
+     */
+    private PageReader<Invoice> changedInvoicesReader(long[] ids) {
+        return (afterId, pageable) -> {
+            int position = Arrays.binarySearch(ids, afterId);
+            int from = position >= 0 ? position + 1 : -(position + 1);
+            List<Invoice> page = new ArrayList<>(pageable.getPageSize());
+            while (page.size() < pageable.getPageSize() && from < ids.length) {
+                int to = Math.min(ids.length, from + pageable.getPageSize() - page.size());
+                page.addAll(invoiceRepository.findByIdInOrderByIdAsc(
+                        Arrays.stream(ids, from, to).boxed().toList()));
+                from = to;
+            }
+            return page;
+        };
+    }
+
+    /**
+     * Zapisuje tabelę, czytając ją stronami według identyfikatora.
+     * Po zapisaniu każdej strony kontekst utrwalania jest czyszczony.
+     *
+     * @return liczba zapisanych rekordów
+     */
+    private <E> long writeTable(BackupSink sink, String table, PageReader<E> reader,
+                                Function<E, Long> idOf, Function<List<E>, List<?>> converter) throws IOException {
+        sink.startTable(table);
+        Pageable pageable = PageRequest.of(0, pageSize);
+        long count = 0;
+        Long afterId = 0L;
+        List<E> page;
+        do {
+            page = reader.read(afterId, pageable);
+            if (page.isEmpty()) {
+                break;
+            }
+            sink.writePage(converter.apply(page));
+            count += page.size();
+            afterId = idOf.apply(page.get(page.size() - 1));
+            entityManager.clear();
+        } while (page.size() == pageSize);
+        sink.endTable();
+        return count;
     }
 
     /**
      * Przywraca dane z pliku kopii zapasowej.
+     * <p>
+     * Plik jest czytany strumieniowo ({@link JsonParser}), a klienci, faktury z pozycjami i logi logowań
+     * są wstawiane paczkami JDBC (Hibernate nie łączy w paczki wstawień encji z identyfikatorami
+     * {@code IDENTITY}). Każda paczka jest zatwierdzana w osobnej transakcji, więc pamięć i rozmiar
+     * transakcji zależą od rozmiaru paczki, a nie od wielkości kopii. Przed usunięciem bieżących danych
+     * sprawdzana jest poprawność składni całego pliku.
+     * <p>
+     * W trybie {@link BackupRestoreMode#PRESERVE_IDS} klienci, faktury i logi logowań zachowują
+     * identyfikatory z kopii (a po przywróceniu liczniki {@code AUTO_INCREMENT} są ustawiane za
+     * największym identyfikatorem), więc klucze obce faktur są zapisywane bez mapowania, a powiązania
+     * z archiwum PDF pozostają aktualne. W trybie {@link BackupRestoreMode#REMAP_IDS} baza nadaje nowe
+     * identyfikatory, a identyfikatory klientów są mapowane w obrębie jednego przywracania.
+     * <p>
+     * Obsługiwane są oba formaty kopii ({@link BackupFormat}); w formacie ZIP przed usunięciem danych
+     * sprawdzane są sumy kontrolne wszystkich fragmentów.
+     * <p>
+     * Przywrócenie kopii przyrostowej odtwarza cały łańcuch: kopię pełną, a następnie kolejne kopie
+     * przyrostowe (rekordy są nadpisywane według identyfikatora, a usunięte rekordy usuwane). Wymaga to
+     * zachowania identyfikatorów, więc łańcuch jest zawsze przywracany w trybie
+     * {@link BackupRestoreMode#PRESERVE_IDS}.
      *
      * @param backupFileName nazwa pliku kopii zapasowej
+     * @param mode sposób przywracania identyfikatorów
      * @return informacja o powodzeniu operacji
      * @throws IOException w przypadku błędu podczas odczytu pliku
      */
     @Transactional(propagation = Propagation.NEVER) // Wyłączamy zarządzanie transakcjami na poziomie metody
-    public String restoreFromBackup(String backupFileName) throws IOException {
-        logger.info("Rozpoczęcie przywracania danych z kopii zapasowej: {}", backupFileName);
+    public String restoreFromBackup(String backupFileName, BackupRestoreMode mode) throws IOException {
+        logger.info("Rozpoczęcie przywracania danych z kopii zapasowej: {} (tryb {})", backupFileName, mode);
 
         // Sprawdzenie, czy plik istnieje
         Path backupPath = Paths.get("backups", backupFileName);
         if (!Files.exists(backupPath)) {
             throw new IOException("Plik kopii zapasowej nie istnieje: " + backupPath);
         }
+        BackupFormat format = BackupFormat.fromFileName(backupFileName);
+        if (format == null) {
+            throw new IOException("Nieobsługiwany format pliku kopii zapasowej: " + backupFileName);
+        }
 
-        // Konfiguracja ObjectMapper do deserializacji JSON
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
+        ObjectMapper mapper = createMapper();
 
         try {
-            // Wczytanie danych z pliku
-            BackupData backupData = mapper.readValue(backupPath.toFile(), BackupData.class);
+            RestoreJob job;
 
-            // Przywracamy każdy typ danych oddzielnie, pomijając Company
-            boolean success = true;
+            if (format == BackupFormat.ZIP) {
+                List<Path> chain = resolveChain(mapper, backupPath);
+                if (chain.size() > 1 && mode != BackupRestoreMode.PRESERVE_IDS) {
+                    logger.info("Przywracanie łańcucha {} kopii - identyfikatory z kopii zostaną zachowane", chain.size());
+                    mode = BackupRestoreMode.PRESERVE_IDS;
+                }
+                job = new RestoreJob(mode);
 
-            // 1. Przywróć role
-            try {
-                restoreRolesInTransaction(backupData.roles);
-            } catch (Exception e) {
-                logger.error("Błąd podczas przywracania ról: {}", e.getMessage(), e);
-                success = false;
+                // Sprawdzenie sum kontrolnych wszystkich fragmentów przed usunięciem bieżących danych
+                for (Path path : chain) {
+                    try (ZipFile zip = new ZipFile(path.toFile())) {
+                        BackupArchive.verify(zip, BackupArchive.readManifest(mapper, zip));
+                    }
+                }
+
+                // 1. Usuń bieżące dane, które zostaną wczytane z kopii
+                deleteRestoredTables(job);
+
+                // 2. Przywróć klientów, faktury i logi logowań (fragment po fragmencie, kopia po kopii)
+                for (Path path : chain) {
+                    try (ZipFile zip = new ZipFile(path.toFile())) {
+                        logger.info("Przywracanie kopii: {}", path.getFileName());
+                        restoreArchive(mapper, zip, BackupArchive.readManifest(mapper, zip), job);
+                    }
+                }
+            } else {
+                job = new RestoreJob(mode);
+
+                // Sprawdzenie składni pliku przed usunięciem bieżących danych
+                validateBackupFile(mapper, backupPath);
+
+                // 1. Usuń bieżące dane, które zostaną wczytane z kopii
+                deleteRestoredTables(job);
+
+                // 2. Przywróć klientów, faktury i logi logowań (strumieniowo)
+                restoreTables(mapper, backupPath, job);
+            }
+            if (job.mode == BackupRestoreMode.PRESERVE_IDS) {
+                resetAutoIncrement();
             }
 
-            // 2. Przywróć klientów
+            // 3. Przywróć role
             try {
-                restoreCustomersInTransaction(backupData.customers);
+                restoreRolesInTransaction(job.roles);
             } catch (Exception e) {
-                logger.error("Błąd podczas przywracania klientów: {}", e.getMessage(), e);
-                success = false;
+                logger.error("Błąd podczas przywracania ról: {}", e.getMessage(), e);
+                job.success = false;
             }
 
-            // 3. Przywróć użytkowników
+            // 4. Przywróć użytkowników
             try {
-                restoreUsersInTransaction(backupData.users);
+                restoreUsersInTransaction(job.users);
             } catch (Exception e) {
                 logger.error("Błąd podczas przywracania użytkowników: {}", e.getMessage(), e);
-                success = false;
+                job.success = false;
             }
 
-            // 4. Przywróć faktury
+            // Faktury zapisywane są z pominięciem InvoiceService - przeliczamy statystyki miesięczne
             try {
-                restoreInvoicesInTransaction(backupData.invoices);
+                invoiceStatisticsService.rebuildMonthlyStatistics();
             } catch (Exception e) {
-                logger.error("Błąd podczas przywracania faktur: {}", e.getMessage(), e);
-                success = false;
+                logger.error("Błąd podczas przeliczania statystyk faktur: {}", e.getMessage(), e);
+                job.success = false;
             }
 
-            // 5. Przywróć logi logowań
-            try {
-                restoreLoginAuditsInTransaction(backupData.loginAudits);
-            } catch (Exception e) {
-                logger.error("Błąd podczas przywracania logów logowań: {}", e.getMessage(), e);
-                success = false;
-            }
+            // Wstawienia JDBC pomijają nasłuchiwacze encji - unieważniamy dane zbuforowane w pamięci
+            eventPublisher.publishEvent(new EntityChangedEvent(Customer.class));
+            eventPublisher.publishEvent(new EntityChangedEvent(Invoice.class));
 
-            if (success) {
+            logger.info("Przywrócono: {} klientów, {} faktur ({} pozycji), {} logów logowań; usunięto {} rekordów",
+                    job.customers, job.invoices, job.items, job.loginAudits, job.deleted);
+            if (job.success) {
                 return "Dane zostały pomyślnie przywrócone z kopii zapasowej: " + backupFileName;
             } else {
                 return "Dane zostały częściowo przywrócone z kopii zapasowej. Sprawdź logi, aby uzyskać więcej informacji.";
@@ -189,6 +857,411 @@ public class BackupService {
         }
     }
 
+    /**
+     * Wyznacza łańcuch kopii potrzebny do przywrócenia podanej kopii: od kopii pełnej do niej samej.
+     *
+     * @throws IOException gdy brakuje kopii bazowej albo łańcuch zawiera cykl
+     */
+    private List<Path> resolveChain(ObjectMapper mapper, Path backupPath) throws IOException {
+        LinkedList<Path> chain = new LinkedList<>();
+        Set<Path> visited = new HashSet<>();
+        Path current = backupPath;
+        while (true) {
+            if (!visited.add(current.toAbsolutePath().normalize())) {
+                throw new IOException("Cykl w łańcuchu kopii przyrostowych: " + current.getFileName());
+            }
+            BackupArchive.Manifest manifest;
+            try (ZipFile zip = new ZipFile(current.toFile())) {
+                manifest = BackupArchive.readManifest(mapper, zip);
+            }
+            chain.addFirst(current);
+            if (manifest.type != BackupType.INCREMENTAL) {
+                return chain;
+            }
+            Path base = current.resolveSibling(manifest.base);
+            if (!Files.exists(base)) {
+                throw new IOException("Brak kopii bazowej " + manifest.base
+                        + " dla kopii przyrostowej " + current.getFileName());
+            }
+            current = base;
+        }
+    }
+
+    /**
+     * Sprawdza, czy plik jest poprawnym dokumentem JSON z obiektem na najwyższym poziomie
+     * (bez wiązania danych, więc bez wczytywania kopii do pamięci).
+     */
+    private void validateBackupFile(ObjectMapper mapper, Path backupPath) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(backupPath.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Nieprawidłowy format pliku kopii zapasowej");
+            }
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * Usuwa w jednej transakcji dane tabel przywracanych z kopii (w kolejności zależności kluczy obcych).
+     * Powiązania z archiwum PDF są usuwane tylko wtedy, gdy identyfikatory faktur zostaną nadane na nowo.
+     * <p>
+     * Usunięcia wykonane przez przywrócenie nie są zapisywane jako pojedyncze wpisy {@link Tombstone},
+     * dlatego w ich miejsce zapisywany jest znacznik {@link Tombstone#RESTORE} z czasem przywrócenia -
+     * kopie utworzone wcześniej nie mogą być bazą kopii przyrostowej.
+     */
+    private void deleteRestoredTables(RestoreJob job) {
+        List<String> tables = new ArrayList<>(RESTORED_TABLES);
+        tables.add("tombstone");
+        if (job.mode == BackupRestoreMode.REMAP_IDS) {
+            tables.add("archived_invoice_pdf");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String table : tables) {
+                int deleted = jdbcTemplate.update("DELETE FROM " + table, Map.of());
+                logger.info("Usunięto {} wierszy z tabeli {}", deleted, table);
+            }
+            jdbcTemplate.update("INSERT INTO tombstone (entity_type, entity_id, deleted_at) " +
+                            "VALUES (:entityType, 0, :deletedAt)",
+                    Map.of("entityType", Tombstone.RESTORE, "deletedAt", job.restoredAt));
+        });
+    }
+
+    /**
+     * Ustawia liczniki {@code AUTO_INCREMENT} przywróconych tabel za największym identyfikatorem
+     * (InnoDB zaokrągla podaną wartość w górę do {@code MAX(id) + 1}). {@code ALTER TABLE}
+     * zatwierdza transakcję niejawnie, więc polecenia są wykonywane poza transakcją.
+     */
+    private void resetAutoIncrement() {
+        for (String table : RESTORED_TABLES) {
+            try {
+                jdbcTemplate.update("ALTER TABLE " + table + " AUTO_INCREMENT = 1", Map.of());
+            } catch (Exception e) {
+                logger.warn("Nie można ustawić licznika AUTO_INCREMENT tabeli {}: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Czyta plik kopii strumieniowo i przywraca klientów, faktury oraz logi logowań paczkami.
+     * Klienci muszą poprzedzać faktury (tak zapisuje je {@link #createBackup()}). Niewielkie listy
+     * ról i użytkowników są zapamiętywane w {@code job} i przywracane osobno.
+     */
+    private void restoreTables(ObjectMapper mapper, Path backupPath, RestoreJob job) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(backupPath.toFile())) {
+            parser.nextToken(); // START_OBJECT
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY) {
+                    restoreArray(field, parser, job);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Przywraca dane z kopii w formacie ZIP, czytając fragmenty tabel w kolejności z manifestu.
+     * Rekordy kopii przyrostowej nadpisują rekordy o tych samych identyfikatorach, a użytkownicy
+     * i role z późniejszej kopii zastępują wcześniejsze.
+     */
+    private void restoreArchive(ObjectMapper mapper, ZipFile zip, BackupArchive.Manifest manifest,
+                                RestoreJob job) throws IOException {
+        job.incremental = manifest.type == BackupType.INCREMENTAL;
+        if (manifest.tables.containsKey("users")) {
+            job.users.clear();
+        }
+        if (manifest.tables.containsKey("roles")) {
+            job.roles.clear();
+        }
+        for (Map.Entry<String, BackupArchive.TableEntry> table : manifest.tables.entrySet()) {
+            logger.info("Przywracanie tabeli {} z kopii: {} rekordów w {} fragmentach",
+                    table.getKey(), table.getValue().rows, table.getValue().chunks.size());
+            for (BackupArchive.ChunkEntry chunk : table.getValue().chunks) {
+                try (InputStream in = BackupArchive.openChunk(zip, chunk);
+                     JsonParser parser = mapper.getFactory().createParser(in)) {
+                    if (parser.nextToken() == JsonToken.START_ARRAY) {
+                        restoreArray(table.getKey(), parser, job);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Przywraca rekordy tablicy JSON (parser ustawiony na jej początku) według nazwy tabeli.
+     */
+    private void restoreArray(String table, JsonParser parser, RestoreJob job) throws IOException {
+        switch (table) {
+            case "customers" -> readInChunks(parser, CustomerDTO.class,
+                    chunk -> insertCustomers(chunk, job), job);
+            case "invoices" -> {
+                if (job.mode == BackupRestoreMode.REMAP_IDS && job.customerIds.isEmpty()) {
+                    logger.warn("Brak mapowania ID klientów - faktury mogą zostać przywrócone niepoprawnie!");
+                }
+                readInChunks(parser, InvoiceDTO.class, chunk -> insertInvoices(chunk, job), job);
+            }
+            case "loginAudits" -> readInChunks(parser, LoginAudit.class,
+                    chunk -> insertLoginAudits(chunk, job), job);
+            case "users" -> {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    job.users.add(parser.readValueAs(UserDTO.class));
+                }
+            }
+            case "roles" -> {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    job.roles.add(parser.readValueAs(Role.class));
+                }
+            }
+            case "deletedInvoices" -> readInChunks(parser, Long.class, ids -> {
+                jdbcTemplate.update("DELETE FROM invoice_item WHERE invoice_id IN (:ids)", Map.of("ids", ids));
+                jdbcTemplate.update("DELETE FROM archived_invoice_pdf WHERE invoice_id IN (:ids)", Map.of("ids", ids));
+                deleteByIds("DELETE FROM invoice WHERE id IN (:ids)", ids, job);
+            }, job);
+            case "deletedCustomers" -> readInChunks(parser, Long.class,
+                    ids -> deleteByIds("DELETE FROM customer WHERE id IN (:ids)", ids, job), job);
+            default -> parser.skipChildren();
+        }
+    }
+
+    /**
+     * Usuwa rekordy wskazane w tabeli usunięć kopii przyrostowej.
+     */
+    private void deleteByIds(String sql, List<Long> ids, RestoreJob job) {
+        job.deleted += jdbcTemplate.update(sql, Map.of("ids", ids));
+    }
+
+    /**
+     * Czyta elementy tablicy JSON i przekazuje je paczkami do zapisu. Każda paczka jest zapisywana
+     * w osobnej transakcji; błąd paczki wycofuje tylko tę paczkę.
+     */
+    private <T> void readInChunks(JsonParser parser, Class<T> type, Consumer<List<T>> writer,
+                                  RestoreJob job) throws IOException {
+        List<T> chunk = new ArrayList<>(batchSize);
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            chunk.add(parser.readValueAs(type));
+            if (chunk.size() == batchSize) {
+                writeChunk(chunk, type, writer, job);
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, type, writer, job);
+        }
+    }
+
+    private <T> void writeChunk(List<T> chunk, Class<T> type, Consumer<List<T>> writer, RestoreJob job) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writer.accept(chunk));
+        } catch (Exception e) {
+            logger.error("Błąd podczas przywracania paczki {} rekordów ({}): {}",
+                    chunk.size(), type.getSimpleName(), e.getMessage(), e);
+            job.success = false;
+        }
+    }
+
+    /**
+     * Wstawia paczkę klientów. W trybie mapowania zapamiętuje nadane im identyfikatory (stare ID -> nowe ID).
+     */
+    private void insertCustomers(List<CustomerDTO> chunk, RestoreJob job) {
+        SqlParameterSource[] rows = new SqlParameterSource[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            CustomerDTO dto = chunk.get(i);
+            rows[i] = new MapSqlParameterSource()
+                    .addValue("id", job.preservedId(dto.id, "klienta"))
+                    .addValue("name", dto.name)
+                    .addValue("address", dto.address)
+                    .addValue("nip", dto.nip)
+                    .addValue("regon", dto.regon)
+                    .addValue("email", dto.email)
+                    .addValue("phone", dto.phone)
+                    .addValue("modifiedAt", job.restoredAt);
+        }
+        if (job.mode == BackupRestoreMode.PRESERVE_IDS) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO customer (id, name, address, nip, regon, email, phone, modified_at) " +
+                            "VALUES (:id, :name, :address, :nip, :regon, :email, :phone, :modifiedAt)" +
+                            upsertClause(job, "name", "address", "nip", "regon", "email", "phone", "modified_at"), rows);
+        } else {
+            long[] ids = insertReturningIds(
+                    "INSERT INTO customer (name, address, nip, regon, email, phone, modified_at) " +
+                            "VALUES (:name, :address, :nip, :regon, :email, :phone, :modifiedAt)", rows);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (chunk.get(i).id != null) {
+                    job.customerIds.put(chunk.get(i).id, ids[i]);
+                }
+            }
+        }
+        job.customers += chunk.size();
+    }
+
+    /**
+     * Wstawia paczkę faktur, a następnie wszystkie ich pozycje jedną paczką.
+     * Kwota i flaga przeterminowania są wyliczane tak jak przy zapisie encji {@link Invoice}.
+     */
+    private void insertInvoices(List<InvoiceDTO> chunk, RestoreJob job) {
+        LocalDate today = LocalDate.now();
+        SqlParameterSource[] rows = new SqlParameterSource[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            InvoiceDTO dto = chunk.get(i);
+            InvoiceStatus status = parseStatus(dto.status);
+
+            Long customerId = dto.customerId;
+            if (customerId != null && job.mode == BackupRestoreMode.REMAP_IDS) {
+                long mapped = job.customerIds.get(customerId);
+                if (mapped == LongLongMap.MISSING) {
+                    logger.warn("Brak mapowania dla ID klienta: {}", customerId);
+                    customerId = null;
+                } else {
+                    customerId = mapped;
+                }
+            }
+
+            double total = 0.0;
+            if (dto.items != null) {
+                for (InvoiceItemDTO item : dto.items) {
+                    total += item.quantity * item.price;
+                }
+            }
+
+            rows[i] = new MapSqlParameterSource()
+                    .addValue("id", job.preservedId(dto.id, "faktury"))
+                    .addValue("invoiceNumber", dto.invoiceNumber)
+                    .addValue("issueDate", dto.issueDate)
+                    .addValue("dueDate", dto.dueDate)
+                    .addValue("paymentMethod", parsePaymentMethod(dto.paymentMethod).name())
+                    .addValue("status", status.name())
+                    .addValue("notes", dto.notes)
+                    .addValue("customerId", customerId)
+                    .addValue("total", total)
+                    .addValue("overdue", status == InvoiceStatus.NIEOPLACONA
+                            && dto.dueDate != null && dto.dueDate.isBefore(today))
+                    .addValue("modifiedAt", job.restoredAt);
+        }
+        long[] ids;
+        if (job.mode == BackupRestoreMode.PRESERVE_IDS) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO invoice (id, invoice_number, issue_date, due_date, payment_method, status, notes, " +
+                            "customer_id, total, overdue, modified_at) VALUES (:id, :invoiceNumber, :issueDate, " +
+                            ":dueDate, :paymentMethod, :status, :notes, :customerId, :total, :overdue, :modifiedAt)" +
+                            upsertClause(job, "invoice_number", "issue_date", "due_date", "payment_method", "status",
+                                    "notes", "customer_id", "total", "overdue", "modified_at"), rows);
+            ids = chunk.stream().mapToLong(dto -> dto.id).toArray();
+            if (job.incremental) {
+                // Kopia przyrostowa zawiera komplet pozycji zmienionej faktury
+                jdbcTemplate.update("DELETE FROM invoice_item WHERE invoice_id IN (:ids)",
+                        Map.of("ids", Arrays.stream(ids).boxed().toList()));
+            }
+        } else {
+            ids = insertReturningIds(
+                    "INSERT INTO invoice (invoice_number, issue_date, due_date, payment_method, status, notes, " +
+                            "customer_id, total, overdue, modified_at) VALUES (:invoiceNumber, :issueDate, :dueDate, " +
+                            ":paymentMethod, :status, :notes, :customerId, :total, :overdue, :modifiedAt)", rows);
+        }
+
+        List<SqlParameterSource> items = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (chunk.get(i).items == null) {
+                continue;
+            }
+            for (InvoiceItemDTO item : chunk.get(i).items) {
+                items.add(new MapSqlParameterSource()
+                        .addValue("product", item.product)
+                        .addValue("quantity", item.quantity)
+                        .addValue("price", item.price)
+                        .addValue("invoiceId", ids[i])
+                        .addValue("modifiedAt", job.restoredAt));
+            }
+        }
+        if (!items.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO invoice_item (product, quantity, price, invoice_id, modified_at) " +
+                            "VALUES (:product, :quantity, :price, :invoiceId, :modifiedAt)",
+                    items.toArray(SqlParameterSource[]::new));
+        }
+        job.invoices += chunk.size();
+        job.items += items.size();
+    }
+
+    /**
+     * Wstawia paczkę logów logowań.
+     */
+    private void insertLoginAudits(List<LoginAudit> chunk, RestoreJob job) {
+        SqlParameterSource[] rows = new SqlParameterSource[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            LoginAudit audit = chunk.get(i);
+            rows[i] = new MapSqlParameterSource()
+                    .addValue("id", job.preservedId(audit.getId(), "logu logowania"))
+                    .addValue("username", audit.getUsername())
+                    .addValue("loginTime", audit.getLoginTime())
+                    .addValue("ipAddress", audit.getIpAddress())
+                    .addValue("userAgent", audit.getUserAgent())
+                    .addValue("successful", audit.isSuccessful())
+                    .addValue("modifiedAt", job.restoredAt);
+        }
+        String sql = job.mode == BackupRestoreMode.PRESERVE_IDS
+                ? "INSERT INTO login_audit (id, username, login_time, ip_address, user_agent, successful, modified_at) " +
+                        "VALUES (:id, :username, :loginTime, :ipAddress, :userAgent, :successful, :modifiedAt)" +
+                        upsertClause(job, "username", "login_time", "ip_address", "user_agent", "successful",
+                                "modified_at")
+                : "INSERT INTO login_audit (username, login_time, ip_address, user_agent, successful, modified_at) " +
+                        "VALUES (:username, :loginTime, :ipAddress, :userAgent, :successful, :modifiedAt)";
+        jdbcTemplate.batchUpdate(sql, rows);
+        job.loginAudits += chunk.size();
+    }
+
+    /**
+     * Zwraca klauzulę nadpisującą istniejący wiersz przy przywracaniu kopii przyrostowej
+     * (dla kopii pełnej pusty ciąg).
+     */
+    private static String upsertClause(RestoreJob job, String... columns) {
+        if (!job.incremental) {
+            return "";
+        }
+        StringJoiner clause = new StringJoiner(", ", " ON DUPLICATE KEY UPDATE ", "");
+        for (String column : columns) {
+            clause.add(column + " = VALUES(" + column + ")");
+        }
+        return clause.toString();
+    }
+
+    /**
+     * Wykonuje wstawienie paczką i zwraca identyfikatory nadane przez bazę (w kolejności wierszy).
+     */
+    private long[] insertReturningIds(String sql, SqlParameterSource[] rows) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(sql, rows, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != rows.length) {
+            throw new IllegalStateException("Baza danych zwróciła " + keys.size()
+                    + " identyfikatorów dla " + rows.length + " wstawionych wierszy");
+        }
+        long[] ids = new long[keys.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ((Number) keys.get(i).values().iterator().next()).longValue();
+        }
+        return ids;
+    }
+
+    private PaymentMethod parsePaymentMethod(String value) {
+        try {
+            return PaymentMethod.valueOf(value);
+        } catch (Exception e) {
+            logger.warn("Nieprawidłowa metoda płatności: {}. Ustawiam domyślną.", value);
+            return PaymentMethod.PRZELEW;
+        }
+    }
+
+    private InvoiceStatus parseStatus(String value) {
+        try {
+            return InvoiceStatus.valueOf(value);
+        } catch (Exception e) {
+            logger.warn("Nieprawidłowy status faktury: {}. Ustawiam domyślny.", value);
+            return InvoiceStatus.NIEOPLACONA;
+        }
+    }
+
     /**
      * Pomocnicza metoda do przywracania ról w osobnej transakcji.
      */
@@ -224,47 +1297,6 @@ public class BackupService {
         }
     }
 
-    /**
-     * Pomocnicza metoda do przywracania klientów w osobnej transakcji.
-     */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void restoreCustomersInTransaction(List<CustomerDTO> customerDTOs) {
-        logger.info("Przywracanie klientów: {}", customerDTOs.size());
-
-        // Najpierw usuń istniejące dane
-        try {
-            customerRepository.deleteAll();
-            customerRepository.flush();
-        } catch (Exception e) {
-            logger.warn("Nie można usunąć istniejących klientów: {}", e.getMessage());
-            // Kontynuujemy, próbując tylko dodać klientów
-        }
-
-        // Teraz przywróć dane z kopii
-        Map<Long, Long> newCustomerIdMapping = new HashMap<>();
-        for (CustomerDTO dto : customerDTOs) {
-            try {
-                Customer customer = new Customer();
-                customer.setName(dto.name);
-                customer.setAddress(dto.address);
-                customer.setNip(dto.nip);
-                customer.setRegon(dto.regon);
-                customer.setEmail(dto.email);
-                customer.setPhone(dto.phone);
-
-                Customer savedCustomer = customerRepository.save(customer);
-                newCustomerIdMapping.put(dto.id, savedCustomer.getId());
-                logger.info("Zapisano klienta: {} (ID: {})", savedCustomer.getName(), savedCustomer.getId());
-            } catch (Exception e) {
-                logger.error("Błąd podczas zapisywania klienta {}: {}", dto.name, e.getMessage());
-                throw e;
-            }
-        }
-
-        // Zapisz mapowanie ID do wykorzystania później
-        this.customerIdMapping = newCustomerIdMapping;
-    }
-
     /**
      * Pomocnicza metoda do przywracania użytkowników w osobnej transakcji.
      */
@@ -338,213 +1370,359 @@ public class BackupService {
     }
 
     /**
-     * Pomocnicza metoda do przywracania faktur w osobnej transakcji.
+     * Konwertuje użytkownika do prostego DTO bez cyklicznych referencji.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void restoreInvoicesInTransaction(List<InvoiceDTO> invoiceDTOs) {
-        logger.info("Przywracanie faktur: {}", invoiceDTOs.size());
+    private UserDTO convertUser(User user) {
+        UserDTO dto = new UserDTO();
+        dto.id = user.getId();
+        dto.username = user.getUsername();
+        dto.email = user.getEmail();
+        dto.active = user.isActive();
+        dto.mustChangePassword = user.isMustChangePassword();
+        dto.roleIds = new ArrayList<>();
+        for (Role role : user.getRoles()) {
+            dto.roleIds.add(role.getId());
+        }
+        return dto;
+    }
 
-        // Najpierw usuń istniejące dane
-        try {
-            invoiceRepository.deleteAll();
-            invoiceRepository.flush();
-        } catch (Exception e) {
-            logger.warn("Nie można usunąć istniejących faktur: {}", e.getMessage());
+    /**
+     * Konwertuje klienta do prostego DTO bez cyklicznych referencji.
+     */
+    private CustomerDTO convertCustomer(Customer customer) {
+        CustomerDTO dto = new CustomerDTO();
+        dto.id = customer.getId();
+        dto.name = customer.getName();
+        dto.address = customer.getAddress();
+        dto.nip = customer.getNip();
+        dto.regon = customer.getRegon();
+        dto.email = customer.getEmail();
+        dto.phone = customer.getPhone();
+        return dto;
+    }
+
+    /**
+     * Konwertuje fakturę wraz z jej pozycjami do prostego DTO bez cyklicznych referencji.
+     */
+    private List<InvoiceDTO> convertInvoices(List<Invoice> page) {
+        // Pozycje całej strony faktur są pobierane jednym zapytaniem
+        Map<Long, List<InvoiceItem>> itemsByInvoice = new HashMap<>();
+        List<Long> ids = page.stream().map(Invoice::getId).toList();
+        for (InvoiceItem item : invoiceItemRepository.findByInvoiceIds(ids)) {
+            itemsByInvoice.computeIfAbsent(item.getInvoice().getId(), id -> new ArrayList<>()).add(item);
         }
+        List<InvoiceDTO> dtos = new ArrayList<>(page.size());
+        for (Invoice invoice : page) {
+            dtos.add(convertInvoice(invoice, itemsByInvoice.getOrDefault(invoice.getId(), List.of())));
+        }
+        return dtos;
+    }
 
-        // Sprawdź, czy mamy mapowanie ID klientów
-        if (customerIdMapping == null || customerIdMapping.isEmpty()) {
-            logger.warn("Brak mapowania ID klientów - faktury mogą zostać przywrócone niepoprawnie!");
-            customerIdMapping = new HashMap<>();
+    /**
+     * Konwertuje fakturę wraz z pozycjami do prostego DTO.
+     */
+    private InvoiceDTO convertInvoice(Invoice invoice, List<InvoiceItem> items) {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.id = invoice.getId();
+        dto.invoiceNumber = invoice.getInvoiceNumber();
+        dto.issueDate = invoice.getIssueDate();
+        dto.dueDate = invoice.getDueDate();
+        dto.paymentMethod = invoice.getPaymentMethod().name();
+        dto.status = invoice.getStatus().name();
+        dto.notes = invoice.getNotes();
+
+        if (invoice.getCustomer() != null) {
+            dto.customerId = invoice.getCustomer().getId();
+            dto.customerName = invoice.getCustomer().getName();
         }
 
-        // Teraz przywróć dane z kopii
-        for (InvoiceDTO dto : invoiceDTOs) {
-            try {
-                Invoice invoice = new Invoice();
-                invoice.setInvoiceNumber(dto.invoiceNumber);
-                invoice.setIssueDate(dto.issueDate);
-                invoice.setDueDate(dto.dueDate);
+        dto.items = new ArrayList<>();
+        for (InvoiceItem item : items) {
+            InvoiceItemDTO itemDto = new InvoiceItemDTO();
+            itemDto.id = item.getId();
+            itemDto.product = item.getProduct();
+            itemDto.quantity = item.getQuantity();
+            itemDto.price = item.getPrice();
+            dto.items.add(itemDto);
+        }
+        return dto;
+    }
 
-                // Bezpieczne ustawienie metody płatności
-                try {
-                    invoice.setPaymentMethod(PaymentMethod.valueOf(dto.paymentMethod));
-                } catch (Exception e) {
-                    logger.warn("Nieprawidłowa metoda płatności: {}. Ustawiam domyślną.", dto.paymentMethod);
-                    invoice.setPaymentMethod(PaymentMethod.PRZELEW);
-                }
+    /**
+     * Odczyt strony rekordów o identyfikatorach większych od podanego.
+     */
+    @FunctionalInterface
+    private interface PageReader<E> {
+        List<E> read(Long afterId, Pageable pageable);
+    }
 
-                // Bezpieczne ustawienie statusu
-                try {
-                    invoice.setStatus(InvoiceStatus.valueOf(dto.status));
-                } catch (Exception e) {
-                    logger.warn("Nieprawidłowy status faktury: {}. Ustawiam domyślny.", dto.status);
-                    invoice.setStatus(InvoiceStatus.NIEOPLACONA);
-                }
+    /**
+     * Miejsce zapisu danych kopii zapasowej (obiektów i stron tabel).
+     */
+    private interface BackupSink {
+        void writeObject(String name, Object value) throws IOException;
 
-                invoice.setNotes(dto.notes);
-
-                // WAŻNA ZMIANA - zapisujemy fakturę BEZ klienta najpierw
-                Invoice savedInvoice = invoiceRepository.save(invoice);
-
-                // Przypisanie klienta - teraz w odrębnym kroku
-                if (dto.customerId != null) {
-                    Long newCustomerId = customerIdMapping.get(dto.customerId);
-                    if (newCustomerId != null) {
-                        try {
-                            // Pobierz klienta w obecnej transakcji i przypisz go do faktury
-                            Optional<Customer> customer = customerRepository.findById(newCustomerId);
-                            if (customer.isPresent()) {
-                                savedInvoice.setCustomer(customer.get());
-                                // Zapisz fakturę ponownie, tym razem z klientem
-                                savedInvoice = invoiceRepository.save(savedInvoice);
-                                logger.info("Przypisano klienta ID: {} do faktury ID: {}",
-                                        newCustomerId, savedInvoice.getId());
-                            } else {
-                                logger.warn("Nie znaleziono klienta o ID: {} (stare ID: {})",
-                                        newCustomerId, dto.customerId);
-                            }
-                        } catch (Exception e) {
-                            logger.error("Błąd podczas przypisywania klienta do faktury: {}", e.getMessage());
-                            // Kontynuuj mimo błędu, aby przynajmniej faktura była zapisana
-                        }
-                    } else {
-                        logger.warn("Brak mapowania dla ID klienta: {}", dto.customerId);
-                    }
-                }
+        void startTable(String table) throws IOException;
 
-                // Dodanie pozycji faktury
-                for (InvoiceItemDTO itemDto : dto.items) {
-                    try {
-                        InvoiceItem item = new InvoiceItem();
-                        item.setProduct(itemDto.product);
-                        item.setQuantity(itemDto.quantity);
-                        item.setPrice(itemDto.price);
-                        item.setInvoice(savedInvoice);
-
-                        savedInvoice.getItems().add(item);
-                    } catch (Exception e) {
-                        logger.error("Błąd podczas dodawania pozycji do faktury: {}", e.getMessage());
-                        // Kontynuuj z pozostałymi pozycjami
-                    }
-                }
+        void writePage(List<?> rows) throws IOException;
 
-                // Zapisanie faktury z pozycjami
-                try {
-                    invoiceRepository.save(savedInvoice);
-                    logger.info("Zapisano fakturę: {} (ID: {})", savedInvoice.getInvoiceNumber(), savedInvoice.getId());
-                } catch (Exception e) {
-                    logger.error("Błąd podczas zapisywania pozycji faktury: {}", e.getMessage());
-                    // Faktura główna jest już zapisana, więc nie zatrzymujemy procesu
-                }
-            } catch (Exception e) {
-                logger.error("Błąd podczas zapisywania faktury {}: {}", dto.invoiceNumber, e.getMessage());
-                // Kontynuuj z kolejnymi fakturami
+        void endTable() throws IOException;
+    }
+
+    /**
+     * Plik kopii zapasowej w wybranym formacie, kończony po zapisaniu wszystkich danych.
+     */
+    private interface BackupFileSink extends BackupSink {
+        void finish(String timestamp) throws IOException;
+    }
+
+    /**
+     * Zapis kopii jako jednego dokumentu JSON ({@link BackupData}).
+     */
+    private static final class JsonBackupSink implements BackupFileSink {
+
+        private final JsonGenerator generator;
+
+        private JsonBackupSink(JsonGenerator generator) throws IOException {
+            this.generator = generator;
+            generator.writeStartObject();
+        }
+
+        @Override
+        public void writeObject(String name, Object value) throws IOException {
+            generator.writeObjectField(name, value);
+        }
+
+        @Override
+        public void startTable(String table) throws IOException {
+            generator.writeArrayFieldStart(table);
+        }
+
+        @Override
+        public void writePage(List<?> rows) throws IOException {
+            for (Object row : rows) {
+                generator.writeObject(row);
             }
         }
+
+        @Override
+        public void endTable() throws IOException {
+            generator.writeEndArray();
+        }
+
+        @Override
+        public void finish(String timestamp) throws IOException {
+            generator.writeStringField("timestamp", timestamp);
+            generator.writeStringField("version", "1.0");
+            generator.writeEndObject();
+        }
     }
 
     /**
-     * Pomocnicza metoda do przywracania logów logowań w osobnej transakcji.
+     * Zapis kopii w formacie ZIP - każda strona tabeli staje się osobnym fragmentem.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void restoreLoginAuditsInTransaction(List<LoginAudit> loginAudits) {
-        logger.info("Przywracanie logów logowań: {}", loginAudits.size());
+    private static final class ZipBackupSink implements BackupFileSink {
 
-        // Najpierw usuń istniejące dane
-        try {
-            loginAuditRepository.deleteAll();
-            loginAuditRepository.flush();
-        } catch (Exception e) {
-            logger.warn("Nie można usunąć istniejących logów logowań: {}", e.getMessage());
-            // Kontynuujemy, próbując tylko dodać logi
+        private final BackupArchive.Writer writer;
+        private String table;
+
+        private ZipBackupSink(BackupArchive.Writer writer) {
+            this.writer = writer;
         }
 
-        // Teraz przywróć dane z kopii
-        if (loginAudits != null && !loginAudits.isEmpty()) {
-            try {
-                loginAuditRepository.saveAll(loginAudits);
-                logger.info("Zapisano {} logów logowań", loginAudits.size());
-            } catch (Exception e) {
-                logger.error("Błąd podczas zapisywania logów logowań: {}", e.getMessage());
-                throw e;
-            }
+        @Override
+        public void writeObject(String name, Object value) throws IOException {
+            writer.writeEntry(name + ".json", value);
+        }
+
+        @Override
+        public void startTable(String table) {
+            this.table = table;
+            writer.startTable(table);
+        }
+
+        @Override
+        public void writePage(List<?> rows) throws IOException {
+            writer.writeChunk(table, rows);
         }
+
+        @Override
+        public void endTable() {
+            table = null;
+        }
+
+        @Override
+        public void finish(String timestamp) throws IOException {
+            writer.finish(timestamp);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (exportExecutor != null) {
+            exportExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Zapis kopii zapasowej wykonywany w transakcji.
+     */
+    @FunctionalInterface
+    private interface BackupTask {
+        void run() throws IOException;
+    }
+
+    /**
+     * Zadanie eksportu równoległego - zapis tabeli lub jej części.
+     */
+    @FunctionalInterface
+    private interface ExportUnit {
+        void export(BackupSink sink) throws IOException;
     }
 
     /**
-     * Konwertuje listę użytkowników do prostych DTO bez cyklicznych referencji.
+     * Stan jednego eksportu równoległego: kolejka zadań, ograniczona kolejka gotowych fragmentów
+     * i synchronizacja otwierania migawek (wątki gotowe -> tabele zablokowane -> migawki otwarte).
      */
-    private List<UserDTO> convertUsers(List<User> users) {
-        List<UserDTO> result = new ArrayList<>();
-        for (User user : users) {
-            UserDTO dto = new UserDTO();
-            dto.id = user.getId();
-            dto.username = user.getUsername();
-            dto.email = user.getEmail();
-            dto.active = user.isActive();
-            dto.mustChangePassword = user.isMustChangePassword();
-            dto.roleIds = new ArrayList<>();
-            for (Role role : user.getRoles()) {
-                dto.roleIds.add(role.getId());
+    private static final class ParallelExport {
+        private final ObjectMapper mapper;
+        private final Queue<ExportUnit> units = new ConcurrentLinkedQueue<>();
+        private final BlockingQueue<ExportPart> parts;
+        private final CountDownLatch ready;
+        private final CountDownLatch locked = new CountDownLatch(1);
+        private final CountDownLatch anchored;
+        private final AtomicBoolean failed = new AtomicBoolean();
+
+        private ParallelExport(ObjectMapper mapper, int threads) {
+            this.mapper = mapper;
+            this.parts = new ArrayBlockingQueue<>(threads * 2);
+            this.ready = new CountDownLatch(threads);
+            this.anchored = new CountDownLatch(threads);
+        }
+
+        /**
+         * Przekazuje fragment do zapisu, czekając na miejsce w kolejce (po błędzie eksportu - rezygnuje).
+         */
+        private void put(ExportPart part) throws InterruptedException {
+            while (!parts.offer(part, 100, TimeUnit.MILLISECONDS)) {
+                if (failed.get()) {
+                    return;
+                }
             }
-            result.add(dto);
         }
-        return result;
     }
 
     /**
-     * Konwertuje listę klientów do prostych DTO bez cyklicznych referencji.
+     * Fragment kopii przygotowany przez wątek eksportu: strona tabeli albo osobny wpis (bez tabeli).
      */
-    private List<CustomerDTO> convertCustomers(List<Customer> customers) {
-        List<CustomerDTO> result = new ArrayList<>();
-        for (Customer customer : customers) {
-            CustomerDTO dto = new CustomerDTO();
-            dto.id = customer.getId();
-            dto.name = customer.getName();
-            dto.address = customer.getAddress();
-            dto.nip = customer.getNip();
-            dto.regon = customer.getRegon();
-            dto.email = customer.getEmail();
-            dto.phone = customer.getPhone();
-            result.add(dto);
+    private static final class ExportPart {
+        private static final ExportPart END = new ExportPart(null, null, null, 0);
+
+        private final String table;
+        private final String name;
+        private final byte[] json;
+        private final int rows;
+
+        private ExportPart(String table, String name, byte[] json, int rows) {
+            this.table = table;
+            this.name = name;
+            this.json = json;
+            this.rows = rows;
         }
-        return result;
     }
 
     /**
-     * Konwertuje listę faktur do prostych DTO bez cyklicznych referencji.
+     * Zapis kopii przez wątek eksportu - strony są zamieniane na JSON i przekazywane do zapisu w pliku ZIP.
+     * Plik (wraz z manifestem) kończy wątek łączący fragmenty.
      */
-    private List<InvoiceDTO> convertInvoices(List<Invoice> invoices) {
-        List<InvoiceDTO> result = new ArrayList<>();
-        for (Invoice invoice : invoices) {
-            InvoiceDTO dto = new InvoiceDTO();
-            dto.id = invoice.getId();
-            dto.invoiceNumber = invoice.getInvoiceNumber();
-            dto.issueDate = invoice.getIssueDate();
-            dto.dueDate = invoice.getDueDate();
-            dto.paymentMethod = invoice.getPaymentMethod().name();
-            dto.status = invoice.getStatus().name();
-            dto.notes = invoice.getNotes();
+    private static final class PartBackupSink implements BackupSink {
 
-            if (invoice.getCustomer() != null) {
-                dto.customerId = invoice.getCustomer().getId();
-                dto.customerName = invoice.getCustomer().getName();
-            }
+        private final ParallelExport export;
+        private String table;
+
+        private PartBackupSink(ParallelExport export) {
+            this.export = export;
+        }
+
+        @Override
+        public void writeObject(String name, Object value) throws IOException {
+            put(new ExportPart(null, name + ".json", export.mapper.writeValueAsBytes(value), 0));
+        }
+
+        @Override
+        public void startTable(String table) {
+            this.table = table;
+        }
+
+        @Override
+        public void writePage(List<?> rows) throws IOException {
+            put(new ExportPart(table, null, export.mapper.writeValueAsBytes(rows), rows.size()));
+        }
+
+        @Override
+        public void endTable() {
+            table = null;
+        }
 
-            dto.items = new ArrayList<>();
-            for (InvoiceItem item : invoice.getItems()) {
-                InvoiceItemDTO itemDto = new InvoiceItemDTO();
-                itemDto.id = item.getId();
-                itemDto.product = item.getProduct();
-                itemDto.quantity = item.getQuantity();
-                itemDto.price = item.getPrice();
-                dto.items.add(itemDto);
+        private void put(ExportPart part) throws IOException {
+            try {
+                export.put(part);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Eksport kopii zapasowej został przerwany");
             }
+        }
+    }
+
+    private static final class ExportThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "backup-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 
-            result.add(dto);
+    /**
+     * Stan jednego przywracania danych: tryb, mapowanie identyfikatorów klientów, liczniki i wynik.
+     */
+    private static final class RestoreJob {
+        private final BackupRestoreMode mode;
+        private final LongLongMap customerIds = new LongLongMap();
+        /**
+         * Czas przywrócenia zapisywany jako czas modyfikacji wstawionych rekordów.
+         */
+        private final LocalDateTime restoredAt = LocalDateTime.now();
+        /**
+         * Czy przywracana jest kopia przyrostowa (rekordy nadpisują istniejące).
+         */
+        private boolean incremental;
+        private boolean success = true;
+        private long deleted;
+        private long customers;
+        private long invoices;
+        private long items;
+        private long loginAudits;
+        private final List<Role> roles = new ArrayList<>();
+        private final List<UserDTO> users = new ArrayList<>();
+
+        private RestoreJob(BackupRestoreMode mode) {
+            this.mode = mode;
+        }
+
+        /**
+         * Zwraca identyfikator z kopii zapisywany w trybie {@link BackupRestoreMode#PRESERVE_IDS}.
+         */
+        private Long preservedId(Long id, String recordName) {
+            if (mode == BackupRestoreMode.PRESERVE_IDS && id == null) {
+                throw new IllegalArgumentException("Brak identyfikatora " + recordName
+                        + " w kopii zapasowej - użyj trybu z nadawaniem nowych identyfikatorów");
+            }
+            return id;
         }
-        return result;
     }
 
     /**
@@ -0,0 +1,300 @@
+package org.example.service;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.pdf.PdfCopy;
+import com.itextpdf.text.pdf.PdfReader;
+import jakarta.annotation.PreDestroy;
+import org.example.exception.ResourceNotFoundException;
+import org.example.model.Invoice;
+import org.example.model.InvoiceSearchCriteria;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Serwis eksportu zbiorczego dokumentów PDF faktur - jako archiwum ZIP lub jeden połączony PDF.
+ * <p>
+ * Dokumenty są generowane równolegle we wspólnej puli wątków o stałym rozmiarze (przez
+ * {@link PdfCacheService}, więc wielokrotny eksport tych samych faktur korzysta z pamięci podręcznej)
+ * i zapisywane do odpowiedzi w kolejności faktur, zaraz po wygenerowaniu. Każdy eksport ma
+ * ograniczone okno zadań w toku, dzięki czemu zużycie pamięci nie zależy od liczby faktur.
+ * Błąd zapisu do odpowiedzi (np. przerwane pobieranie) anuluje zadania, które jeszcze nie ruszyły.
+ */
+@Service
+public class BulkPdfExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkPdfExportService.class);
+
+    /**
+     * Nazwa pliku w archiwum ZIP z listą faktur, których nie udało się wyeksportować.
+     */
+    static final String ERRORS_ENTRY = "BLEDY.txt";
+
+    private final InvoiceService invoiceService;
+    private final PdfCacheService pdfCacheService;
+    private final int maxInvoices;
+    private final int window;
+    private final ExecutorService executor;
+
+    @Autowired
+    public BulkPdfExportService(InvoiceService invoiceService,
+                                PdfCacheService pdfCacheService,
+                                @Value("${app.pdf.export.threads:0}") int threads,
+                                @Value("${app.pdf.export.max-invoices:2000}") int maxInvoices) {
+        this.invoiceService = invoiceService;
+        this.pdfCacheService = pdfCacheService;
+        this.maxInvoices = maxInvoices;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.window = poolSize * 2;
+        this.executor = Executors.newFixedThreadPool(poolSize, new ExportThreadFactory());
+    }
+
+    /**
+     * Wyszukuje faktury do eksportu według tych samych kryteriów co lista faktur.
+     *
+     * @param criteria kryteria wyszukiwania
+     * @return identyfikatory faktur w kolejności dat wystawienia
+     * @throws IllegalArgumentException gdy kryteria obejmują więcej faktur niż dopuszczalny limit eksportu
+     */
+    public List<Long> findInvoiceIds(InvoiceSearchCriteria criteria) {
+        List<Long> ids = invoiceService.findInvoiceIds(criteria, maxInvoices + 1);
+        if (ids.size() > maxInvoices) {
+            throw new IllegalArgumentException(
+                    "Eksport obejmuje więcej niż " + maxInvoices + " faktur - zawęź kryteria wyszukiwania");
+        }
+        return ids;
+    }
+
+    /**
+     * Zapisuje dokumenty PDF podanych faktur do strumienia jako archiwum ZIP.
+     * Faktury, których nie udało się wygenerować, są wymienione w pliku {@value #ERRORS_ENTRY}.
+     * Strumień nie jest zamykany.
+     *
+     * @param invoiceIds identyfikatory faktur
+     * @param out strumień odpowiedzi
+     * @throws IOException w przypadku błędu zapisu (eksport zostaje przerwany)
+     */
+    public void writeZip(List<Long> invoiceIds, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        // Dokumenty PDF są już skompresowane
+        zip.setLevel(Deflater.BEST_SPEED);
+        List<String> errors = new ArrayList<>();
+
+        renderInOrder(invoiceIds, (id, result) -> {
+            if (result.pdf == null) {
+                errors.add("Faktura ID " + id + ": " + result.error);
+                return;
+            }
+            zip.putNextEntry(new ZipEntry(entryName(result.invoiceNumber, id)));
+            result.pdf.writeTo(zip);
+            zip.closeEntry();
+        });
+
+        if (!errors.isEmpty()) {
+            zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+            zip.write(String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * Zapisuje dokumenty PDF podanych faktur do strumienia jako jeden dokument do wydruku.
+     * Faktury, których nie udało się wygenerować, są pomijane. Strumień nie jest zamykany.
+     *
+     * @param invoiceIds identyfikatory faktur
+     * @param out strumień odpowiedzi
+     * @throws IOException w przypadku błędu zapisu (eksport zostaje przerwany)
+     */
+    public void writeMergedPdf(List<Long> invoiceIds, OutputStream out) throws IOException {
+        Document document = new Document();
+        try {
+            PdfCopy copy = new PdfCopy(document, out);
+            copy.setCloseStream(false);
+            document.open();
+
+            renderInOrder(invoiceIds, (id, result) -> {
+                if (result.pdf == null) {
+                    logger.warn("Pominięto fakturę ID {} w eksporcie PDF: {}", id, result.error);
+                    return;
+                }
+                PdfReader reader = new PdfReader(result.pdf.getInputStream());
+                try {
+                    copy.addDocument(reader);
+                    // Zwolnienie dokumentu źródłowego zapisuje jego strony do odpowiedzi
+                    copy.freeReader(reader);
+                } catch (DocumentException e) {
+                    throw new IOException("Błąd podczas łączenia dokumentów PDF: " + e.getMessage(), e);
+                } finally {
+                    reader.close();
+                }
+            });
+
+            document.close();
+        } catch (DocumentException e) {
+            throw new IOException("Błąd podczas tworzenia dokumentu PDF: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Generuje dokumenty w puli wątków i przekazuje je do zapisu w kolejności identyfikatorów.
+     * W toku jest co najwyżej {@code window} zadań. Po błędzie zapisu lub przerwaniu wątku
+     * pozostałe zadania są anulowane, a otwarte dokumenty zamykane.
+     */
+    private void renderInOrder(List<Long> invoiceIds, ExportWriter writer) throws IOException {
+        Deque<Future<RenderResult>> pending = new ArrayDeque<>();
+        Queue<PdfCacheService.CachedPdf> opened = new ConcurrentLinkedQueue<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Iterator<Long> remaining = invoiceIds.iterator();
+        Iterator<Long> written = invoiceIds.iterator();
+
+        try {
+            while (remaining.hasNext() && pending.size() < window) {
+                pending.add(submit(remaining.next(), opened, cancelled));
+            }
+            while (!pending.isEmpty()) {
+                RenderResult result = pending.poll().get();
+                if (remaining.hasNext()) {
+                    pending.add(submit(remaining.next(), opened, cancelled));
+                }
+                try {
+                    writer.write(written.next(), result);
+                } finally {
+                    if (result.pdf != null) {
+                        opened.remove(result.pdf);
+                        closeQuietly(result.pdf);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Eksport faktur został przerwany");
+        } catch (ExecutionException e) {
+            throw new IOException("Błąd podczas generowania dokumentów PDF: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            cancelled.set(true);
+            if (!pending.isEmpty()) {
+                logger.info("Anulowano eksport faktur - pominięto {} dokumentów w toku", pending.size());
+                pending.forEach(future -> future.cancel(true));
+            }
+            PdfCacheService.CachedPdf pdf;
+            while ((pdf = opened.poll()) != null) {
+                closeQuietly(pdf);
+            }
+        }
+    }
+
+    private Future<RenderResult> submit(Long id, Queue<PdfCacheService.CachedPdf> opened, AtomicBoolean cancelled) {
+        return executor.submit(() -> {
+            if (cancelled.get()) {
+                return RenderResult.failed("eksport anulowany");
+            }
+            try {
+                Invoice invoice = invoiceService.findById(id);
+                PdfCacheService.CachedPdf pdf = pdfCacheService.openInvoicePdf(invoice);
+                // Dokument otwarty po anulowaniu eksportu jest od razu zamykany
+                opened.add(pdf);
+                if (cancelled.get()) {
+                    closeQuietly(pdf);
+                }
+                return new RenderResult(invoice.getInvoiceNumber(), pdf, null);
+            } catch (ResourceNotFoundException e) {
+                return RenderResult.failed("faktura została usunięta");
+            } catch (DocumentException | RuntimeException e) {
+                logger.error("Błąd podczas generowania PDF faktury ID {}: {}", id, e.getMessage(), e);
+                return RenderResult.failed(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Tworzy nazwę pliku w archiwum na podstawie numeru faktury (ukośniki zastępowane podkreśleniami).
+     */
+    static String entryName(String invoiceNumber, Long id) {
+        String name = invoiceNumber != null ? invoiceNumber.replaceAll("[^\\p{L}\\p{N}._-]", "_") : "ID_" + id;
+        return "faktura_" + name + ".pdf";
+    }
+
+    private void closeQuietly(PdfCacheService.CachedPdf pdf) {
+        try {
+            pdf.close();
+        } catch (IOException e) {
+            logger.warn("Nie można zamknąć dokumentu PDF: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Zapis jednego wygenerowanego dokumentu do odpowiedzi.
+     */
+    @FunctionalInterface
+    private interface ExportWriter {
+        void write(Long invoiceId, RenderResult result) throws IOException;
+    }
+
+    /**
+     * Wynik generowania dokumentu - dokument albo opis błędu.
+     */
+    private static final class RenderResult {
+
+        private final String invoiceNumber;
+        private final PdfCacheService.CachedPdf pdf;
+        private final String error;
+
+        private RenderResult(String invoiceNumber, PdfCacheService.CachedPdf pdf, String error) {
+            this.invoiceNumber = invoiceNumber;
+            this.pdf = pdf;
+            this.error = error;
+        }
+
+        private static RenderResult failed(String error) {
+            return new RenderResult(null, null, error);
+        }
+    }
+
+    /**
+     * Nazywa wątki puli eksportu (czytelne logi i zrzuty wątków).
+     */
+    private static final class ExportThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "pdf-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
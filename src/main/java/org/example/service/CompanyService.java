@@ -5,11 +5,22 @@ import org.example.repository.CompanyRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Objects;
 
 /**
  * Serwis zarządzający danymi firmy wystawiającej faktury.
+ * <p>
+ * Dane firmy są przechowywane w pamięci i odczytywane bez blokowania (wolatylna referencja
+ * do niezmiennego wpisu). Zapis przez {@link #saveCompanyInfo(Company)} od razu podmienia wpis
+ * po zatwierdzeniu transakcji. Zmiany wykonane na innym węźle aplikacji są wykrywane przez
+ * okresowe porównanie kolumny wersji (zapytanie po kluczu głównym).
  */
 @Service
 public class CompanyService {
@@ -17,42 +28,77 @@ public class CompanyService {
     private static final Logger logger = LoggerFactory.getLogger(CompanyService.class);
 
     private final CompanyRepository companyRepository;
+    private final long versionCheckIntervalNanos;
+
+    private volatile CachedCompany cached;
 
     @Autowired
-    public CompanyService(CompanyRepository companyRepository) {
+    public CompanyService(CompanyRepository companyRepository,
+                          @Value("${app.company.version-check-interval:PT30S}") Duration versionCheckInterval) {
         this.companyRepository = companyRepository;
+        this.versionCheckIntervalNanos = versionCheckInterval.toNanos();
     }
 
     /**
      * Pobiera informacje o firmie. Jeśli dane firmy nie istnieją, zwraca nowy pusty obiekt.
+     * Zwracany obiekt jest współdzielony - służy wyłącznie do odczytu.
      *
      * @return informacje o firmie
      */
     public Company getCompanyInfo() {
-        return companyRepository.getCompanyInfo();
+        CachedCompany current = cached;
+        long now = System.nanoTime();
+
+        if (current == null) {
+            return load(now).company;
+        }
+        if (now - current.checkedAt >= versionCheckIntervalNanos) {
+            return revalidate(current, now).company;
+        }
+        return current.company;
+    }
+
+    /**
+     * Zwraca wersję danych firmy (do budowania kluczy pamięci podręcznej zależnych od danych firmy).
+     *
+     * @return wersja danych firmy lub 0, gdy dane firmy nie zostały jeszcze zapisane
+     */
+    public long getCompanyVersion() {
+        Long version = getCompanyInfo().getVersion();
+        return version != null ? version : 0L;
     }
 
     /**
      * Zapisuje lub aktualizuje dane firmy.
-     * W systemie powinien istnieć tylko jeden rekord firmy.
+     * W systemie powinien istnieć tylko jeden rekord firmy. Dane z formularza są kopiowane
+     * do rekordu wczytanego z bazy, a po zatwierdzeniu transakcji zapisany rekord
+     * zastępuje dane firmy przechowywane w pamięci.
      *
      * @param company dane firmy do zapisania
      * @return zapisane dane firmy
+     * @throws IllegalStateException gdy dane firmy zostały w międzyczasie zmienione przez innego użytkownika
      */
     @Transactional
     public Company saveCompanyInfo(Company company) {
         // Sprawdź, czy istnieje już rekord w bazie
-        Company existingCompany = getCompanyInfo();
+        Company managedCompany = companyRepository.findFirstByOrderByIdAsc().orElse(null);
 
-        if (existingCompany.getId() != null) {
+        if (managedCompany != null) {
             // Aktualizujemy istniejący rekord
-            company.setId(existingCompany.getId());
-            logger.info("Aktualizacja danych firmy o ID: {}", existingCompany.getId());
+            if (company.getVersion() != null && !company.getVersion().equals(managedCompany.getVersion())) {
+                throw new IllegalStateException(
+                        "Dane firmy zostały w międzyczasie zmienione przez innego użytkownika. Odśwież formularz.");
+            }
+            logger.info("Aktualizacja danych firmy o ID: {}", managedCompany.getId());
         } else {
             logger.info("Tworzenie nowego rekordu danych firmy");
+            managedCompany = new Company();
         }
 
-        return companyRepository.save(company);
+        managedCompany.copyDetailsFrom(company);
+        Company saved = companyRepository.saveAndFlush(managedCompany);
+        publishAfterCommit(saved);
+        return saved;
     }
 
     /**
@@ -73,8 +119,78 @@ public class CompanyService {
             company.setBankName("Bank Przykładowy S.A.");
             company.setBankAccount("PL 12 3456 7890 1234 5678 9012 3456");
 
-            companyRepository.save(company);
+            Company saved = companyRepository.save(company);
+            publishAfterCommit(saved);
             logger.info("Utworzono domyślne dane firmy");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Wczytuje dane firmy z bazy i zapamiętuje je.
+     */
+    private CachedCompany load(long now) {
+        CachedCompany loaded = new CachedCompany(companyRepository.getCompanyInfo(), now);
+        cached = loaded;
+        return loaded;
+    }
+
+    /**
+     * Sprawdza wersję danych firmy w bazie i wczytuje je ponownie tylko wtedy, gdy się zmieniła.
+     */
+    private CachedCompany revalidate(CachedCompany current, long now) {
+        Long id = current.company.getId();
+        if (id == null) {
+            // Brak rekordu firmy - sprawdzamy, czy nie został utworzony na innym węźle
+            return load(now);
+        }
+
+        Long version = companyRepository.findVersionById(id);
+        if (!Objects.equals(version, current.company.getVersion())) {
+            logger.info("Dane firmy zmieniły się (wersja {} -> {}), wczytuję ponownie",
+                    current.company.getVersion(), version);
+            return load(now);
+        }
+
+        CachedCompany refreshed = new CachedCompany(current.company, now);
+        cached = refreshed;
+        return refreshed;
+    }
+
+    /**
+     * Podmienia dane firmy w pamięci po zatwierdzeniu bieżącej transakcji
+     * (lub od razu, gdy transakcja nie jest aktywna).
+     */
+    private void publishAfterCommit(Company saved) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cached = new CachedCompany(saved, System.nanoTime());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cached = new CachedCompany(saved, System.nanoTime());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    cached = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Dane firmy przechowywane w pamięci wraz z chwilą ostatniego sprawdzenia wersji.
+     */
+    private static final class CachedCompany {
+
+        private final Company company;
+        private final long checkedAt;
+
+        private CachedCompany(Company company, long checkedAt) {
+            this.company = company;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
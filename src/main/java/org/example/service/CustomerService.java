@@ -2,6 +2,7 @@ package org.example.service;
 
 import org.example.model.Customer;
 import org.example.repository.CustomerRepository;
+import org.example.repository.projection.CustomerView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,6 +33,16 @@ public class CustomerService {
         return customerRepository.findAll();
     }
 
+    /**
+     * Pobiera wszystkich klientów jako projekcję tylko do odczytu (listy i pola wyboru).
+     *
+     * @return lista klientów posortowana po identyfikatorze
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerView> findAllViews() {
+        return customerRepository.findAllViews();
+    }
+
     /**
      * Pobiera klienta po identyfikatorze.
      *
@@ -31,6 +31,9 @@ public class DataMigrationService {
     @Autowired
     private InvoiceRepository invoiceRepository;
 
+    @Autowired
+    private InvoiceStatisticsService invoiceStatisticsService;
+
     /**
      * Uruchamia się automatycznie po starcie aplikacji, aby naprawić dane w bazie.
      * Można wyłączyć tę metodę, gdy nie jest już potrzebna.
@@ -47,6 +50,17 @@ public class DataMigrationService {
             // 2. Napraw dane w bezpiecznym trybie
             fixInvoiceStatusesSafely();
 
+            // 3. Uzupełnij zdenormalizowane kwoty faktur
+            backfillInvoiceTotals();
+
+            // 4. Uzupełnij wersję danych firmy zapisanych przed wprowadzeniem kolumny version
+            backfillCompanyVersion();
+
+            // 5. Wylicz statystyki miesięczne faktur, jeśli jeszcze nie istnieją
+            if (!invoiceStatisticsService.hasStatistics()) {
+                invoiceStatisticsService.rebuildMonthlyStatistics();
+            }
+
             logger.info("Naprawa danych statusów faktur zakończona pomyślnie");
         } catch (Exception e) {
             logger.error("Błąd podczas naprawy statusów faktur: {}", e.getMessage(), e);
@@ -173,4 +187,41 @@ public class DataMigrationService {
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Jednorazowo ustawia wersję 0 dla danych firmy zapisanych przed wprowadzeniem kolumny version
+     * (Hibernate nie potrafi zwiększyć wersji równej null).
+     */
+    @Transactional
+    public void backfillCompanyVersion() {
+        Query versionQuery = entityManager.createNativeQuery(
+                "UPDATE company SET version = 0 WHERE version IS NULL"
+        );
+        int updated = versionQuery.executeUpdate();
+        if (updated > 0) {
+            logger.info("Uzupełniono wersję danych firmy ({} rekordów)", updated);
+        }
+    }
+
+    /**
+     * Jednorazowo uzupełnia kolumnę total dla faktur zapisanych przed jej wprowadzeniem.
+     * Kwota jest wyliczana jednym zapytaniem po stronie bazy danych na podstawie pozycji faktury.
+     */
+    @Transactional
+    public void backfillInvoiceTotals() {
+        try {
+            Query backfillQuery = entityManager.createNativeQuery(
+                    "UPDATE invoice i SET i.total = " +
+                            "(SELECT COALESCE(SUM(it.quantity * it.price), 0) FROM invoice_item it WHERE it.invoice_id = i.id) " +
+                            "WHERE i.total IS NULL"
+            );
+            int updated = backfillQuery.executeUpdate();
+            if (updated > 0) {
+                logger.info("Uzupełniono kwotę dla {} faktur", updated);
+            }
+        } catch (Exception e) {
+            logger.error("Błąd podczas uzupełniania kwot faktur: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.event.InvoiceChangedEvent;
+import org.example.exception.ResourceNotFoundException;
+import org.example.model.ArchivedInvoicePdf;
+import org.example.model.Invoice;
+import org.example.model.InvoiceStatsSnapshot;
+import org.example.model.enums.InvoiceStatus;
+import org.example.repository.ArchivedInvoicePdfRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Archiwum dokumentów PDF opłaconych faktur.
+ * <p>
+ * Opłacona faktura już się nie zmienia, więc jej dokument jest generowany tylko raz - po zmianie
+ * statusu na {@link InvoiceStatus#OPLACONA} - i zapisywany w katalogu adresowanym treścią
+ * ({@code objects/ab/<sha256>.pdf}). Każdy nowy plik jest dopisywany do manifestu sum kontrolnych
+ * ({@code SHA256SUMS}, format {@code sha256sum -c}), a powiązanie faktury z plikiem jest zapisywane
+ * w bazie danych. Faktury opłacone przed wprowadzeniem archiwum są archiwizowane przy pierwszym
+ * pobraniu dokumentu.
+ * <p>
+ * Dokumenty różnych faktur są generowane równolegle i bez blokad - zapis pliku adresowanego treścią
+ * jest idempotentny. Szeregowane są tylko krótkie operacje: dopisanie pliku do manifestu oraz
+ * zapis powiązania danej faktury, przy którym wygrywa archiwizacja rozpoczęta najpóźniej, więc
+ * powiązanie odpowiada ostatniemu zatwierdzonemu stanowi faktury. Zmiana opłaconej faktury usuwa
+ * powiązanie w tej samej transakcji (nieaktualny dokument nie jest wydawany po jej zatwierdzeniu),
+ * a po zatwierdzeniu zapis opłaconej faktury archiwizuje ją ponownie. Pliki pozostają w archiwum bez zmian.
+ */
+@Service
+public class InvoiceArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceArchiveService.class);
+
+    static final String MANIFEST_FILE = "SHA256SUMS";
+
+    private static final String OBJECTS_DIRECTORY = "objects";
+    private static final String FILE_SUFFIX = ".pdf";
+
+    private final InvoiceService invoiceService;
+    private final PdfService pdfService;
+    private final ArchivedInvoicePdfRepository archiveRepository;
+    private final Path directory;
+    private final ExecutorService executor;
+
+    /**
+     * Archiwizacje w toku według identyfikatora faktury (wpis jest usuwany po zakończeniu ostatniej).
+     */
+    private final ConcurrentMap<Long, ArchiveSlot> slots = new ConcurrentHashMap<>();
+    private final Object manifestLock = new Object();
+
+    @Autowired
+    public InvoiceArchiveService(InvoiceService invoiceService,
+                                 PdfService pdfService,
+                                 ArchivedInvoicePdfRepository archiveRepository,
+                                 @Value("${app.pdf.archive.directory:pdf-archive}") String directory) {
+        this.invoiceService = invoiceService;
+        this.pdfService = pdfService;
+        this.archiveRepository = archiveRepository;
+        this.directory = Paths.get(directory);
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "invoice-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Przed zatwierdzeniem zmiany opłaconej faktury usuwa jej powiązanie z archiwum w transakcji zapisu.
+     * Do czasu ponownej archiwizacji dokument jest generowany z bieżącego stanu przy pobraniu, a
+     * archiwizacje rozpoczęte przed zmianą nie zapisują już powiązania.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onInvoiceChanging(InvoiceChangedEvent event) {
+        if (!isPaid(event.getBefore()) && !isPaid(event.getAfter())) {
+            return;
+        }
+        ArchiveSlot slot = slots.get(event.getInvoiceId());
+        if (slot != null) {
+            synchronized (slot) {
+                slot.generation.incrementAndGet();
+            }
+        }
+        if (archiveRepository.existsById(event.getInvoiceId())) {
+            archiveRepository.deleteById(event.getInvoiceId());
+        }
+    }
+
+    /**
+     * Po zatwierdzeniu zmiany faktury archiwizuje ją (gdy jest opłacona) lub usuwa powiązanie
+     * z archiwum. Praca jest wykonywana w osobnym wątku, poza transakcją zapisu faktury.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onInvoiceChanged(InvoiceChangedEvent event) {
+        if (isPaid(event.getAfter()) || isPaid(event.getBefore())) {
+            executor.execute(() -> refresh(event.getInvoiceId()));
+        }
+    }
+
+    private static boolean isPaid(InvoiceStatsSnapshot snapshot) {
+        return snapshot != null && snapshot.getStatus() == InvoiceStatus.OPLACONA;
+    }
+
+    /**
+     * Zwraca zarchiwizowany dokument opłaconej faktury, w razie potrzeby archiwizując go teraz.
+     *
+     * @param invoice faktura
+     * @return dokument z archiwum lub null, gdy faktura nie jest opłacona albo archiwum jest niedostępne
+     */
+    public ArchivedPdf findArchivedPdf(Invoice invoice) {
+        if (invoice.getStatus() != InvoiceStatus.OPLACONA) {
+            return null;
+        }
+        ArchivedPdf archived = open(archiveRepository.findById(invoice.getId()).orElse(null), invoice);
+        if (archived != null) {
+            return archived;
+        }
+        return open(refresh(invoice.getId()), invoice);
+    }
+
+    /**
+     * Archiwizuje bieżący stan faktury, jeśli jest opłacona, a w przeciwnym razie usuwa jej powiązanie.
+     *
+     * @return powiązanie z archiwum lub null
+     */
+    ArchivedInvoicePdf refresh(Long invoiceId) {
+        ArchiveSlot slot = slots.compute(invoiceId, (id, current) -> {
+            ArchiveSlot acquired = current != null ? current : new ArchiveSlot();
+            acquired.inFlight++;
+            return acquired;
+        });
+        long ticket = slot.generation.incrementAndGet();
+        try {
+            try {
+                Invoice invoice = invoiceService.findById(invoiceId);
+                if (invoice.getStatus() == InvoiceStatus.OPLACONA) {
+                    ArchivedInvoicePdf archived = archive(invoice);
+                    synchronized (slot) {
+                        if (slot.generation.get() != ticket) {
+                            // Nowsza archiwizacja tej faktury zapisze powiązanie dla późniejszego stanu
+                            return archived;
+                        }
+                        archived = archiveRepository.save(archived);
+                    }
+                    logger.info("Zarchiwizowano PDF faktury {} ({} B, SHA-256 {})",
+                            archived.getInvoiceNumber(), archived.getSize(), archived.getSha256());
+                    return archived;
+                }
+            } catch (ResourceNotFoundException e) {
+                logger.debug("Faktura ID {} została usunięta - usuwam powiązanie z archiwum PDF", invoiceId);
+            } catch (Exception e) {
+                logger.error("Błąd podczas archiwizacji PDF faktury ID {}: {}", invoiceId, e.getMessage(), e);
+                return null;
+            }
+            synchronized (slot) {
+                if (slot.generation.get() == ticket && archiveRepository.existsById(invoiceId)) {
+                    archiveRepository.deleteById(invoiceId);
+                }
+            }
+            return null;
+        } finally {
+            slots.computeIfPresent(invoiceId, (id, current) -> --current.inFlight == 0 ? null : current);
+        }
+    }
+
+    /**
+     * Generuje dokument do pliku tymczasowego, licząc jednocześnie jego skrót, i przenosi go
+     * pod adres wynikający z treści. Plik o tej samej treści już istniejący w archiwum nie jest nadpisywany.
+     *
+     * @return powiązanie faktury z plikiem (jeszcze niezapisane)
+     */
+    private ArchivedInvoicePdf archive(Invoice invoice) throws Exception {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "archive", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)), digest)) {
+                pdfService.writeInvoicePdf(invoice, out);
+            }
+            String sha = HexFormat.of().formatHex(digest.digest());
+            long size = Files.size(temp);
+
+            Path file = objectPath(sha);
+            synchronized (manifestLock) {
+                // Ten sam dokument mógł zostać zapisany równolegle - do manifestu trafia jeden wpis
+                if (!Files.exists(file)) {
+                    Files.createDirectories(file.getParent());
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+                    appendToManifest(sha, file);
+                }
+            }
+            return new ArchivedInvoicePdf(invoice.getId(), invoice.getInvoiceNumber(), sha, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Dopisuje plik do manifestu sum kontrolnych (ścieżki względem katalogu archiwum).
+     */
+    private void appendToManifest(String sha, Path file) throws IOException {
+        String line = sha + "  " + directory.relativize(file).toString().replace('\\', '/') + "\n";
+        Files.write(directory.resolve(MANIFEST_FILE), line.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Zwraca dokument wskazany przez powiązanie, jeśli dotyczy tej faktury, a plik istnieje
+     * i ma oczekiwany rozmiar.
+     */
+    private ArchivedPdf open(ArchivedInvoicePdf archived, Invoice invoice) {
+        if (archived == null || !archived.getInvoiceNumber().equals(invoice.getInvoiceNumber())) {
+            return null;
+        }
+        Path file = objectPath(archived.getSha256());
+        try {
+            if (Files.size(file) == archived.getSize()) {
+                return new ArchivedPdf(file, archived.getSha256(), archived.getSize());
+            }
+            logger.warn("Plik archiwum {} ma nieoczekiwany rozmiar - dokument zostanie zarchiwizowany ponownie", file);
+        } catch (IOException e) {
+            logger.warn("Brak pliku archiwum {} - dokument zostanie zarchiwizowany ponownie", file);
+        }
+        return null;
+    }
+
+    private Path objectPath(String sha) {
+        return directory.resolve(OBJECTS_DIRECTORY).resolve(sha.substring(0, 2)).resolve(sha + FILE_SUFFIX);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Brak algorytmu SHA-256", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Archiwizacje jednej faktury w toku. Numer ostatniej rozpoczętej archiwizacji rozstrzyga,
+     * która z nich zapisuje powiązanie; {@code inFlight} jest zmieniane tylko w operacjach mapy.
+     */
+    private static final class ArchiveSlot {
+        private final AtomicLong generation = new AtomicLong();
+        private int inFlight;
+    }
+
+    /**
+     * Dokument z archiwum. Plik nigdy się nie zmienia, więc skrót SHA-256 może służyć jako ETag.
+     */
+    public static final class ArchivedPdf {
+
+        private final Path file;
+        private final String sha256;
+        private final long size;
+
+        ArchivedPdf(Path file, String sha256, long size) {
+            this.file = file;
+            this.sha256 = sha256;
+            this.size = size;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Przesyła fragment pliku do strumienia przez {@link FileChannel#transferTo}
+         * (strumień nie jest zamykany).
+         *
+         * @param out strumień docelowy
+         * @param position położenie pierwszego bajtu
+         * @param count liczba bajtów
+         */
+        public void transferTo(OutputStream out, long position, long count) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long end = position + count;
+                while (position < end) {
+                    long transferred = channel.transferTo(position, end - position, target);
+                    if (transferred <= 0) {
+                        throw new IOException("Nieoczekiwany koniec pliku archiwum " + file);
+                    }
+                    position += transferred;
+                }
+            }
+        }
+    }
+}
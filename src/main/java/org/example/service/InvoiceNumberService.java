@@ -0,0 +1,114 @@
+package org.example.service;
+
+import org.example.model.InvoiceNumberSequence;
+import org.example.repository.InvoiceNumberSequenceRepository;
+import org.example.repository.InvoiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serwis nadający numery faktur w formacie FV/YYYY/MM/XX.
+ * Numery pochodzą z licznika prowadzonego osobno dla każdego miesiąca w tabeli invoice_number_sequence,
+ * więc koszt nadania numeru nie zależy od liczby faktur w bazie, a równoległe zapisy
+ * (również z kilku węzłów aplikacji) nie otrzymają tego samego numeru.
+ */
+@Service
+public class InvoiceNumberService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceNumberService.class);
+
+    /**
+     * Domyślna seria numeracji faktur.
+     */
+    public static final String DEFAULT_SERIES = "FV";
+
+    private final InvoiceNumberSequenceRepository sequenceRepository;
+    private final InvoiceRepository invoiceRepository;
+
+    @Autowired
+    public InvoiceNumberService(InvoiceNumberSequenceRepository sequenceRepository,
+                                InvoiceRepository invoiceRepository) {
+        this.sequenceRepository = sequenceRepository;
+        this.invoiceRepository = invoiceRepository;
+    }
+
+    /**
+     * Nadaje kolejny numer faktury dla miesiąca daty wystawienia.
+     * Musi być wywołana w transakcji zapisu faktury - wycofanie tej transakcji
+     * zwalnia numer, dzięki czemu numeracja pozostaje ciągła.
+     *
+     * @param issueDate data wystawienia faktury
+     * @return numer faktury
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String nextInvoiceNumber(LocalDate issueDate) {
+        long value = allocate(issueDate, 1);
+        return format(issueDate, value);
+    }
+
+    /**
+     * Rezerwuje jednym zapytaniem blok kolejnych numerów dla miesiąca daty wystawienia.
+     * Przeznaczona dla operacji masowych - numery należy wykorzystać w tej samej transakcji,
+     * inaczej w numeracji powstaną luki.
+     *
+     * @param issueDate data wystawienia faktur
+     * @param count liczba numerów do zarezerwowania
+     * @return lista kolejnych numerów faktur
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<String> reserveInvoiceNumbers(LocalDate issueDate, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Liczba rezerwowanych numerów musi być większa od 0");
+        }
+
+        long last = allocate(issueDate, count);
+        List<String> numbers = new ArrayList<>(count);
+        for (long value = last - count + 1; value <= last; value++) {
+            numbers.add(format(issueDate, value));
+        }
+        return numbers;
+    }
+
+    /**
+     * Zwiększa licznik miesiąca o podaną wartość i zwraca ostatni przydzielony numer.
+     * Jeśli licznik dla miesiąca jeszcze nie istnieje, zostaje utworzony z wartością
+     * równą liczbie faktur już wystawionych w tym miesiącu (zgodność z dotychczasową numeracją).
+     */
+    private long allocate(LocalDate issueDate, int count) {
+        if (issueDate == null) {
+            throw new IllegalArgumentException("Data wystawienia faktury jest wymagana");
+        }
+
+        int year = issueDate.getYear();
+        int month = issueDate.getMonthValue();
+        InvoiceNumberSequence.Key key = new InvoiceNumberSequence.Key(DEFAULT_SERIES, year, month);
+
+        if (!sequenceRepository.existsById(key)) {
+            LocalDate monthStart = issueDate.withDayOfMonth(1);
+            long existing = invoiceRepository.countByIssueDateGreaterThanEqualAndIssueDateLessThan(
+                    monthStart, monthStart.plusMonths(1));
+            if (sequenceRepository.createIfAbsent(DEFAULT_SERIES, year, month, existing) > 0) {
+                logger.info("Utworzono licznik numerów faktur dla {}/{}/{} z wartością początkową {}",
+                        DEFAULT_SERIES, year, month, existing);
+            }
+        }
+
+        sequenceRepository.increment(DEFAULT_SERIES, year, month, count);
+        return sequenceRepository.lastAllocatedValue();
+    }
+
+    /**
+     * Formatuje numer faktury w postaci FV/YYYY/MM/XX.
+     */
+    private String format(LocalDate issueDate, long value) {
+        return String.format("%s/%04d/%02d/%02d", DEFAULT_SERIES, issueDate.getYear(), issueDate.getMonthValue(), value);
+    }
+}
@@ -1,21 +1,38 @@
 package org.example.service;
 
+import org.example.event.InvoiceChangedEvent;
 import org.example.exception.ResourceNotFoundException;
 import org.example.model.Customer;
 import org.example.model.Invoice;
+import org.example.model.InvoiceCursor;
 import org.example.model.InvoiceItem;
+import org.example.model.InvoiceSearchCriteria;
+import org.example.model.InvoiceStatistics;
+import org.example.model.InvoiceStatsSnapshot;
+import org.example.model.KeysetPage;
 import org.example.model.enums.InvoiceStatus;
 import org.example.repository.CustomerRepository;
 import org.example.repository.InvoiceRepository;
+import org.example.repository.projection.InvoiceItemView;
+import org.example.repository.projection.InvoiceListView;
+import org.example.repository.projection.InvoiceSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -27,18 +44,44 @@ public class InvoiceService {
 
     private static final Logger logger = LoggerFactory.getLogger(InvoiceService.class);
 
+    /**
+     * Domyślna liczba faktur na stronie listy.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * Maksymalna liczba faktur na stronie listy.
+     */
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Rozmiary strony dostępne do wyboru na liście faktur.
+     */
+    public static final List<Integer> PAGE_SIZES = List.of(20, 50, 100, 200);
+
     private final InvoiceRepository invoiceRepository;
     private final CustomerRepository customerRepository;
+    private final InvoiceNumberService invoiceNumberService;
+    private final InvoiceStatisticsService invoiceStatisticsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public InvoiceService(InvoiceRepository invoiceRepository, CustomerRepository customerRepository) {
+    public InvoiceService(InvoiceRepository invoiceRepository,
+                          CustomerRepository customerRepository,
+                          InvoiceNumberService invoiceNumberService,
+                          InvoiceStatisticsService invoiceStatisticsService,
+                          ApplicationEventPublisher eventPublisher) {
         this.invoiceRepository = invoiceRepository;
         this.customerRepository = customerRepository;
+        this.invoiceNumberService = invoiceNumberService;
+        this.invoiceStatisticsService = invoiceStatisticsService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Pobiera wszystkie faktury.
      */
+    @Transactional(readOnly = true)
     public List<Invoice> findAll() {
         logger.debug("Pobieranie wszystkich faktur");
         return invoiceRepository.findAll();
@@ -47,6 +90,7 @@ public class InvoiceService {
     /**
      * Pobiera faktury według statusu.
      */
+    @Transactional(readOnly = true)
     public List<Invoice> findByStatus(InvoiceStatus status) {
         logger.debug("Pobieranie faktur o statusie: {}", status);
         return invoiceRepository.findByStatus(status);
@@ -59,6 +103,7 @@ public class InvoiceService {
      * @return faktura
      * @throws ResourceNotFoundException gdy faktura o podanym id nie istnieje
      */
+    @Transactional(readOnly = true)
     public Invoice findById(Long id) {
         logger.debug("Pobieranie faktury o id: {}", id);
         return invoiceRepository.findById(id)
@@ -68,11 +113,18 @@ public class InvoiceService {
     /**
      * Zapisuje lub aktualizuje fakturę.
      * Jeśli faktura ma przypisanego klienta po id, pobiera tego klienta z bazy.
-     * Jeśli faktura nie ma numeru, generuje go automatycznie.
-     * Ustawia referencje do faktury dla każdej pozycji faktury.
+     * Jeśli faktura nie ma numeru, nadaje go z licznika miesięcznego (po walidacji danych).
+     * Ustawia referencje do faktury dla każdej pozycji faktury i przelicza zapisaną kwotę faktury.
+     * Publikuje {@link InvoiceChangedEvent}, na podstawie którego w tej samej transakcji aktualizowane są statystyki.
      */
     @Transactional
     public Invoice save(Invoice invoice) {
+        // Stan zapisany w bazie przed zmianą - potrzebny do aktualizacji statystyk.
+        // Odczyt blokuje wiersz do końca transakcji, więc równoległa zmiana nie użyje tego samego stanu.
+        InvoiceStatsSnapshot before = invoice.getId() != null
+                ? invoiceRepository.findByIdForUpdate(invoice.getId()).map(InvoiceStatsSnapshot::of).orElse(null)
+                : null;
+
         // Logika dla klienta faktury
         if (invoice.getCustomer() != null && invoice.getCustomer().getId() != null) {
             Customer existingCustomer = customerRepository.findById(invoice.getCustomer().getId())
@@ -80,11 +132,6 @@ public class InvoiceService {
             invoice.setCustomer(existingCustomer);
         }
 
-        // Generowanie numeru faktury
-        if (invoice.getInvoiceNumber() == null || invoice.getInvoiceNumber().isEmpty()) {
-            invoice.setInvoiceNumber(generateInvoiceNumber(invoice));
-        }
-
         // Ustawienie referencji do faktury dla każdej pozycji
         if (invoice.getItems() != null) {
             for (InvoiceItem item : invoice.getItems()) {
@@ -95,8 +142,19 @@ public class InvoiceService {
         // Sprawdzenie poprawności danych
         validateInvoice(invoice);
 
+        // Aktualizacja zdenormalizowanej kwoty faktury
+        invoice.recalculateTotal();
+
+        // Nadanie numeru faktury - dopiero po walidacji, aby nie blokować licznika dla błędnych danych
+        if (invoice.getInvoiceNumber() == null || invoice.getInvoiceNumber().isEmpty()) {
+            invoice.setInvoiceNumber(invoiceNumberService.nextInvoiceNumber(invoice.getIssueDate()));
+        }
+
         logger.info("Zapisuję fakturę: {}", invoice.getInvoiceNumber());
-        return invoiceRepository.save(invoice);
+        Invoice savedInvoice = invoiceRepository.save(invoice);
+        eventPublisher.publishEvent(
+                new InvoiceChangedEvent(savedInvoice.getId(), before, InvoiceStatsSnapshot.of(savedInvoice)));
+        return savedInvoice;
     }
 
     /**
@@ -125,22 +183,25 @@ public class InvoiceService {
     }
 
     /**
-     * Usuwa fakturę o podanym identyfikatorze.
+     * Usuwa fakturę o podanym identyfikatorze i publikuje {@link InvoiceChangedEvent}.
      */
     @Transactional
     public void deleteById(Long id) {
-        // Sprawdzamy czy faktura istnieje przed usunięciem
-        if (!invoiceRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Faktura", id);
-        }
+        // Sprawdzamy czy faktura istnieje przed usunięciem (i zapamiętujemy jej stan dla statystyk);
+        // blokada wiersza sprawia, że równoległe usunięcie zobaczy już usuniętą fakturę
+        InvoiceStatsSnapshot before = invoiceRepository.findByIdForUpdate(id)
+                .map(InvoiceStatsSnapshot::of)
+                .orElseThrow(() -> new ResourceNotFoundException("Faktura", id));
 
         logger.info("Usuwam fakturę o id: {}", id);
         invoiceRepository.deleteById(id);
+        eventPublisher.publishEvent(new InvoiceChangedEvent(id, before, null));
     }
 
     /**
      * Wyszukuje faktury według podanych kryteriów.
      */
+    @Transactional(readOnly = true)
     public List<Invoice> searchInvoices(
             InvoiceStatus status,
             LocalDate startDate,
@@ -156,44 +217,158 @@ public class InvoiceService {
     }
 
     /**
-     * Generuje numer faktury w formacie FV/YYYY/MM/XX, gdzie XX to kolejny numer faktury w danym miesiącu.
+     * Pobiera stronę faktur spełniających kryteria, stronicowaną metodą keyset po (data wystawienia, id).
+     * Jeśli podano kursor "before", zwraca stronę poprzedzającą kursor, w przeciwnym razie stronę
+     * następującą po kursorze "after" (lub pierwszą stronę, gdy kursor nie został podany).
+     *
+     * @param criteria kryteria wyszukiwania
+     * @param after kursor ostatniej faktury poprzedniej strony (opcjonalny)
+     * @param before kursor pierwszej faktury następnej strony (opcjonalny)
+     * @param size żądany rozmiar strony (ograniczany do {@link #MAX_PAGE_SIZE})
+     * @return strona projekcji faktur wraz z kursorami sąsiednich stron
+     * @throws IllegalArgumentException gdy kursor ma nieprawidłowy format
      */
-    private String generateInvoiceNumber(Invoice invoice) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM");
-        String datePart = invoice.getIssueDate().format(formatter);
+    @Transactional(readOnly = true)
+    public KeysetPage<InvoiceListView> findInvoicePage(InvoiceSearchCriteria criteria, String after, String before, Integer size) {
+        int pageSize = resolvePageSize(size);
+        // Pobieramy jeden rekord więcej, aby sprawdzić, czy istnieje kolejna strona
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        logger.debug("Pobieranie strony faktur: {}, after={}, before={}, size={}", criteria, after, before, pageSize);
 
-        long count = invoiceRepository.findAll().stream()
-                .filter(inv -> inv.getIssueDate() != null &&
-                        inv.getIssueDate().getYear() == invoice.getIssueDate().getYear() &&
-                        inv.getIssueDate().getMonth() == invoice.getIssueDate().getMonth())
-                .count();
+        if (before != null && !before.isBlank()) {
+            InvoiceCursor cursor = InvoiceCursor.parse(before);
+            List<InvoiceListView> rows = new ArrayList<>(invoiceRepository.searchInvoicesBefore(
+                    criteria.getStatus(), criteria.getStartDate(), criteria.getEndDate(),
+                    criteria.getCustomerName(), criteria.getMinAmount(), criteria.getMaxAmount(),
+                    cursor.getIssueDate(), cursor.getId(), limit));
+
+            boolean hasPrevious = rows.size() > pageSize;
+            if (hasPrevious) {
+                rows = new ArrayList<>(rows.subList(0, pageSize));
+            }
+            Collections.reverse(rows);
 
-        return String.format("FV/%s/%02d", datePart, count + 1);
+            String nextCursor = rows.isEmpty() ? null : cursorOf(rows.get(rows.size() - 1));
+            String previousCursor = hasPrevious ? cursorOf(rows.get(0)) : null;
+            return new KeysetPage<>(rows, pageSize, nextCursor, previousCursor);
+        }
+
+        boolean firstPage = after == null || after.isBlank();
+        InvoiceCursor cursor = firstPage ? InvoiceCursor.START : InvoiceCursor.parse(after);
+        List<InvoiceListView> rows = invoiceRepository.searchInvoicesAfter(
+                criteria.getStatus(), criteria.getStartDate(), criteria.getEndDate(),
+                criteria.getCustomerName(), criteria.getMinAmount(), criteria.getMaxAmount(),
+                cursor.getIssueDate(), cursor.getId(), limit);
+
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        String nextCursor = hasNext ? cursorOf(rows.get(rows.size() - 1)) : null;
+        String previousCursor = (!firstPage && !rows.isEmpty()) ? cursorOf(rows.get(0)) : null;
+        return new KeysetPage<>(rows, pageSize, nextCursor, previousCursor);
+    }
+
+    /**
+     * Wylicza liczbę i łączną kwotę faktur spełniających kryteria (zapytanie agregujące w bazie).
+     */
+    @Transactional(readOnly = true)
+    public InvoiceSummary summarizeInvoices(InvoiceSearchCriteria criteria) {
+        return invoiceRepository.summarizeInvoices(
+                criteria.getStatus(), criteria.getStartDate(), criteria.getEndDate(),
+                criteria.getCustomerName(), criteria.getMinAmount(), criteria.getMaxAmount());
+    }
+
+    /**
+     * Pobiera identyfikatory faktur spełniających kryteria, w kolejności dat wystawienia.
+     *
+     * @param criteria kryteria wyszukiwania
+     * @param limit maksymalna liczba zwracanych identyfikatorów
+     * @return identyfikatory faktur
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findInvoiceIds(InvoiceSearchCriteria criteria, int limit) {
+        return invoiceRepository.searchInvoiceIds(
+                criteria.getStatus(), criteria.getStartDate(), criteria.getEndDate(),
+                criteria.getCustomerName(), criteria.getMinAmount(), criteria.getMaxAmount(),
+                PageRequest.of(0, limit));
+    }
+
+    /**
+     * Pobiera pozycje podanych faktur jednym zapytaniem i grupuje je po identyfikatorze faktury.
+     *
+     * @param invoices faktury, dla których należy pobrać pozycje (np. bieżąca strona listy)
+     * @return mapa: identyfikator faktury -> lista pozycji
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<InvoiceItemView>> findItemsByInvoice(List<InvoiceListView> invoices) {
+        Map<Long, List<InvoiceItemView>> itemsByInvoice = new LinkedHashMap<>();
+        if (invoices.isEmpty()) {
+            return itemsByInvoice;
+        }
+
+        List<Long> ids = invoices.stream().map(InvoiceListView::getId).toList();
+        for (InvoiceItemView item : invoiceRepository.findItemViewsByInvoiceIds(ids)) {
+            itemsByInvoice.computeIfAbsent(item.getInvoiceId(), id -> new ArrayList<>()).add(item);
+        }
+        return itemsByInvoice;
+    }
+
+    /**
+     * Tworzy tekstową postać kursora wskazującego na podaną fakturę z listy.
+     */
+    private String cursorOf(InvoiceListView invoice) {
+        return InvoiceCursor.of(invoice.getIssueDate(), invoice.getId()).toString();
+    }
+
+    /**
+     * Ogranicza żądany rozmiar strony do dozwolonego zakresu.
+     */
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
     }
 
     /**
      * Znajduje przeterminowane faktury (nieopłacone, których termin płatności minął).
+     * Zapytanie korzysta z indeksu (status, due_date); wyniki są posortowane od najstarszego terminu płatności.
+     *
+     * @param page numer strony (od 0)
+     * @param size rozmiar strony (ograniczany do {@link #MAX_PAGE_SIZE})
+     * @return strona przeterminowanych faktur
      */
-    public List<Invoice> findOverdueInvoices() {
+    @Transactional(readOnly = true)
+    public Page<Invoice> findOverdueInvoices(int page, int size) {
         LocalDate today = LocalDate.now();
         logger.debug("Pobieranie przeterminowanych faktur na dzień: {}", today);
 
-        return invoiceRepository.findAll().stream()
-                .filter(invoice -> invoice.getStatus() == InvoiceStatus.NIEOPLACONA &&
-                        invoice.getDueDate().isBefore(today))
-                .toList();
+        Pageable pageable = PageRequest.of(Math.max(page, 0), resolvePageSize(size),
+                Sort.by("dueDate").ascending().and(Sort.by("id").ascending()));
+        return invoiceRepository.findByStatusAndDueDateBefore(InvoiceStatus.NIEOPLACONA, today, pageable);
     }
 
     /**
      * Znajduje faktury z danego miesiąca i roku.
+     * Zapytanie obejmuje przedział dat [pierwszy dzień miesiąca, pierwszy dzień kolejnego miesiąca)
+     * i korzysta z indeksu na dacie wystawienia.
      */
+    @Transactional(readOnly = true)
     public List<Invoice> findInvoicesForMonth(int year, int month) {
         logger.debug("Pobieranie faktur dla roku: {} i miesiąca: {}", year, month);
 
-        return invoiceRepository.findAll().stream()
-                .filter(invoice -> invoice.getIssueDate() != null &&
-                        invoice.getIssueDate().getYear() == year &&
-                        invoice.getIssueDate().getMonthValue() == month)
-                .toList();
+        LocalDate monthStart = LocalDate.of(year, month, 1);
+        return invoiceRepository.findByIssueDateGreaterThanEqualAndIssueDateLessThanOrderByIssueDateAscIdAsc(
+                monthStart, monthStart.plusMonths(1));
+    }
+
+    /**
+     * Pobiera podsumowanie faktur z danego miesiąca i roku (ze statystyk miesięcznych).
+     */
+    public InvoiceStatistics getMonthlyStatistics(int year, int month) {
+        return invoiceStatisticsService.getMonthlyStatistics(year, month);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package org.example.service;
+
+import org.example.event.EntityChangedEvent;
+import org.example.event.InvoiceChangedEvent;
+import org.example.model.InvoiceMonthlyStats;
+import org.example.model.InvoiceStatistics;
+import org.example.model.InvoiceStatsSnapshot;
+import org.example.model.enums.InvoiceStatus;
+import org.example.repository.InvoiceMonthlyStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serwis utrzymujący statystyki faktur (liczba i kwota dla roku, miesiąca i statusu).
+ * Statystyki są aktualizowane przyrostowo na podstawie zdarzeń {@link InvoiceChangedEvent},
+ * w transakcji zapisu faktury, więc odczyt podsumowań (dashboard, raporty miesięczne)
+ * kosztuje odczyt kilkudziesięciu wierszy niezależnie od liczby faktur w bazie.
+ */
+@Service
+public class InvoiceStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceStatisticsService.class);
+
+    private final InvoiceMonthlyStatsRepository statsRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public InvoiceStatisticsService(InvoiceMonthlyStatsRepository statsRepository,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.statsRepository = statsRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Uwzględnia w statystykach zmianę faktury tuż przed zatwierdzeniem transakcji zapisu.
+     * Blokada wiersza statystyk jest dzięki temu utrzymywana tylko do końca zatwierdzania,
+     * a wycofana transakcja nie zmienia statystyk.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onInvoiceChanged(InvoiceChangedEvent event) {
+        logger.debug("Aktualizacja statystyk faktur: {}", event);
+        recordChange(event.getBefore(), event.getAfter());
+    }
+
+    /**
+     * Uwzględnia w statystykach zmianę faktury.
+     * Musi być wywołana w transakcji zapisu faktury, aby statystyki zmieniały się razem z fakturą.
+     *
+     * @param before stan faktury przed zmianą (null dla nowej faktury)
+     * @param after stan faktury po zmianie (null dla usuniętej faktury)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChange(InvoiceStatsSnapshot before, InvoiceStatsSnapshot after) {
+        if (before != null && before.equals(after)) {
+            return;
+        }
+        if (before != null) {
+            apply(before, -1);
+        }
+        if (after != null) {
+            apply(after, 1);
+        }
+    }
+
+    /**
+     * Pobiera podsumowanie faktur wystawionych w podanym miesiącu.
+     *
+     * @param year rok
+     * @param month miesiąc (1-12)
+     * @return podsumowanie miesiąca (zera, gdy w miesiącu nie wystawiono faktur)
+     */
+    @Transactional(readOnly = true)
+    public InvoiceStatistics getMonthlyStatistics(int year, int month) {
+        InvoiceStatistics statistics = new InvoiceStatistics();
+        for (InvoiceMonthlyStats stats : statsRepository.findByIdYearAndIdMonth(year, month)) {
+            statistics.add(stats.getId().getStatus(), stats.getInvoiceCount(), stats.getTotalAmount());
+        }
+        return statistics;
+    }
+
+    /**
+     * Pobiera podsumowania wszystkich miesięcy roku.
+     *
+     * @param year rok
+     * @return mapa: numer miesiąca (1-12) -> podsumowanie, w kolejności miesięcy
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, InvoiceStatistics> getYearStatistics(int year) {
+        Map<Integer, InvoiceStatistics> months = new LinkedHashMap<>();
+        for (int month = 1; month <= 12; month++) {
+            months.put(month, new InvoiceStatistics());
+        }
+        for (InvoiceMonthlyStats stats : statsRepository.findByIdYear(year)) {
+            months.get(stats.getId().getMonth())
+                    .add(stats.getId().getStatus(), stats.getInvoiceCount(), stats.getTotalAmount());
+        }
+        return months;
+    }
+
+    /**
+     * Pobiera podsumowanie wszystkich faktur w systemie.
+     */
+    @Transactional(readOnly = true)
+    public InvoiceStatistics getOverallStatistics() {
+        InvoiceStatistics statistics = new InvoiceStatistics();
+        for (Object[] row : statsRepository.sumByStatus()) {
+            statistics.add(InvoiceStatus.valueOf((String) row[0]),
+                    ((Number) row[1]).longValue(), ((Number) row[2]).doubleValue());
+        }
+        return statistics;
+    }
+
+    /**
+     * Pobiera lata, dla których istnieją statystyki faktur.
+     *
+     * @return lata posortowane malejąco
+     */
+    @Transactional(readOnly = true)
+    public List<Integer> findYears() {
+        return statsRepository.findYears();
+    }
+
+    /**
+     * Sprawdza czy statystyki zostały już wyliczone.
+     */
+    @Transactional(readOnly = true)
+    public boolean hasStatistics() {
+        return statsRepository.count() > 0;
+    }
+
+    /**
+     * Przelicza statystyki od nowa na podstawie tabeli faktur (np. po przywróceniu kopii zapasowej).
+     */
+    @Transactional
+    public void rebuildMonthlyStatistics() {
+        statsRepository.deleteAllStats();
+        int rows = statsRepository.insertFromInvoices();
+        logger.info("Przeliczono statystyki miesięczne faktur ({} wierszy)", rows);
+        eventPublisher.publishEvent(new EntityChangedEvent(InvoiceMonthlyStats.class));
+    }
+
+    /**
+     * Dolicza fakturę do statystyk jej miesiąca i statusu ze znakiem +1 lub -1.
+     */
+    private void apply(InvoiceStatsSnapshot snapshot, int sign) {
+        if (snapshot.getIssueDate() == null) {
+            return;
+        }
+        statsRepository.applyDelta(snapshot.getIssueDate().getYear(), snapshot.getIssueDate().getMonthValue(),
+                snapshot.getStatus().name(), sign, sign * snapshot.getTotal());
+    }
+}
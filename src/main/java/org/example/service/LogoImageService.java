@@ -0,0 +1,245 @@
+package org.example.service;
+
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.Image;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Serwis dostarczający logo firmy do dokumentów PDF.
+ * <p>
+ * Plik logo jest wczytywany tylko raz dla danej ścieżki i czasu modyfikacji pliku. Obrazy większe
+ * od maksymalnych wymiarów są przy tym pomniejszane i ponownie kompresowane (JPEG, a PNG dla obrazów
+ * z przezroczystością); mniejsze są osadzane bez zmian, więc nie tracą jakości przez kompresję stratną.
+ */
+@Service
+public class LogoImageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogoImageService.class);
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final int maxWidth;
+    private final int maxHeight;
+
+    private volatile CachedLogo cached;
+
+    @Autowired
+    public LogoImageService(@Value("${app.pdf.logo.max-width-px:600}") int maxWidth,
+                            @Value("${app.pdf.logo.max-height-px:240}") int maxHeight) {
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    /**
+     * Zwraca logo do osadzenia w dokumencie PDF.
+     * Zwracany obraz jest kopią współdzielonego obrazu (dane obrazu nie są kopiowane),
+     * więc wywołujący może zmieniać jego rozmiar i położenie.
+     *
+     * @param logoPath ścieżka do pliku logo (może być pusta)
+     * @return logo lub null, gdy logo nie jest ustawione albo pliku nie da się odczytać
+     */
+    public Image getLogo(String logoPath) {
+        LogoKey key = keyOf(logoPath);
+        if (key == null) {
+            return null;
+        }
+
+        CachedLogo current = cached;
+        if (current == null || !current.key.equals(key)) {
+            current = new CachedLogo(key, load(key.path));
+            cached = current;
+        }
+        return current.image != null ? Image.getInstance(current.image) : null;
+    }
+
+    /**
+     * Zwraca identyfikator bieżącej wersji pliku logo (ścieżka, czas modyfikacji i rozmiar),
+     * używany w kluczach pamięci podręcznej dokumentów PDF.
+     *
+     * @param logoPath ścieżka do pliku logo (może być pusta)
+     * @return identyfikator wersji logo lub pusty ciąg, gdy logo nie jest dostępne
+     */
+    public String getFingerprint(String logoPath) {
+        LogoKey key = keyOf(logoPath);
+        return key == null ? "" : key.path + "@" + key.modifiedMillis + "/" + key.size;
+    }
+
+    /**
+     * Ustala klucz logo na podstawie atrybutów pliku (bez odczytu jego zawartości).
+     */
+    private LogoKey keyOf(String logoPath) {
+        if (logoPath == null || logoPath.isBlank()) {
+            return null;
+        }
+        try {
+            Path path = Paths.get(logoPath.trim()).toAbsolutePath().normalize();
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return new LogoKey(path, attributes.lastModifiedTime().toMillis(), attributes.size());
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Wczytuje plik logo, w razie potrzeby pomniejsza i ponownie kompresuje obraz.
+     *
+     * @return obraz iText lub null, gdy pliku nie da się odczytać
+     */
+    private Image load(Path path) {
+        try {
+            byte[] data = prepare(Files.readAllBytes(path));
+            if (data == null) {
+                logger.warn("Nieobsługiwany format pliku logo: {}", path);
+                return null;
+            }
+
+            Image logo = Image.getInstance(data);
+            logger.info("Wczytano logo {} ({}x{} px, {} KB)",
+                    path, (int) logo.getWidth(), (int) logo.getHeight(), data.length / 1024);
+            return logo;
+        } catch (IOException | BadElementException e) {
+            logger.warn("Nie można wczytać logo {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Zwraca dane obrazu do osadzenia w dokumencie. Wymiary są odczytywane z nagłówka pliku -
+     * obraz mieszczący się w maksymalnych wymiarach jest zwracany bez dekodowania i zmian.
+     *
+     * @param original zawartość pliku logo
+     * @return dane obrazu lub null, gdy format pliku nie jest obsługiwany
+     */
+    byte[] prepare(byte[] original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if (reader.getWidth(0) <= maxWidth && reader.getHeight(0) <= maxHeight) {
+                    return original;
+                }
+                return encode(downscale(reader.read(0)));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Pomniejsza obraz z zachowaniem proporcji do maksymalnych wymiarów.
+     */
+    private BufferedImage downscale(BufferedImage source) {
+        double scale = Math.min((double) maxWidth / source.getWidth(), (double) maxHeight / source.getHeight());
+        boolean alpha = source.getColorModel().hasAlpha();
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Koduje obraz jako PNG (przezroczystość) lub JPEG.
+     */
+    private byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (image.getColorModel().hasAlpha()) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Klucz wersji pliku logo.
+     */
+    private static final class LogoKey {
+
+        private final Path path;
+        private final long modifiedMillis;
+        private final long size;
+
+        private LogoKey(Path path, long modifiedMillis, long size) {
+            this.path = path;
+            this.modifiedMillis = modifiedMillis;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof LogoKey other)) return false;
+            return modifiedMillis == other.modifiedMillis && size == other.size && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, modifiedMillis, size);
+        }
+    }
+
+    /**
+     * Zdekodowane logo dla danej wersji pliku (null, gdy pliku nie udało się odczytać).
+     */
+    private static final class CachedLogo {
+
+        private final LogoKey key;
+        private final Image image;
+
+        private CachedLogo(LogoKey key, Image image) {
+            this.key = key;
+            this.image = image;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.service;
+
+/**
+ * Mapa {@code long -> long} z adresowaniem otwartym, bez opakowywania kluczy i wartości w obiekty.
+ * Służy do mapowania identyfikatorów podczas jednego przywracania kopii zapasowej
+ * (nie jest bezpieczna wątkowo).
+ */
+final class LongLongMap {
+
+    /**
+     * Wartość zwracana dla brakującego klucza.
+     */
+    static final long MISSING = Long.MIN_VALUE;
+
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    LongLongMap() {
+        this(16);
+    }
+
+    LongLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+    }
+
+    /**
+     * Zapisuje wartość dla klucza (zastępując poprzednią).
+     */
+    void put(long key, long value) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                size++;
+            }
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * Zwraca wartość dla klucza lub {@link #MISSING}, gdy klucza nie ma w mapie.
+     */
+    long get(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : MISSING;
+        }
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? MISSING : values[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Zwraca pozycję klucza albo pierwszą wolną pozycję na jego ścieżce.
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
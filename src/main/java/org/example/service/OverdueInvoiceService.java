@@ -0,0 +1,66 @@
+package org.example.service;
+
+import org.example.event.EntityChangedEvent;
+import org.example.model.Invoice;
+import org.example.model.enums.InvoiceStatus;
+import org.example.repository.InvoiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Serwis utrzymujący zapisaną w bazie flagę przeterminowania faktur.
+ * Flaga jest odświeżana co noc (po zmianie daty faktury mogą stać się przeterminowane bez żadnego zapisu)
+ * oraz po starcie aplikacji. Odświeżenie to dwa zapytania UPDATE oparte na indeksach - bez wczytywania faktur.
+ */
+@Service
+public class OverdueInvoiceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OverdueInvoiceService.class);
+
+    private final InvoiceRepository invoiceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public OverdueInvoiceService(InvoiceRepository invoiceRepository,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.invoiceRepository = invoiceRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Odświeża flagi przeterminowania po starcie aplikacji (m.in. uzupełnia flagę dla istniejących faktur).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void refreshOnStartup() {
+        refreshOverdueFlags();
+    }
+
+    /**
+     * Nocne odświeżenie flag przeterminowania. Operacja jest idempotentna,
+     * więc może być wykonywana równolegle na kilku węzłach aplikacji.
+     */
+    @Scheduled(cron = "${app.invoices.overdue-refresh-cron:0 5 0 * * *}")
+    @Transactional
+    public void refreshOverdueFlags() {
+        LocalDate today = LocalDate.now();
+        int marked = invoiceRepository.markOverdue(InvoiceStatus.NIEOPLACONA, today);
+        int cleared = invoiceRepository.clearOverdue(InvoiceStatus.NIEOPLACONA, today);
+        logger.info("Odświeżono flagi przeterminowania faktur na dzień {}: oznaczono {}, zdjęto {}",
+                today, marked, cleared);
+
+        // Zapytania UPDATE pomijają listenery encji - zmianę danych zgłaszamy jawnie
+        if (marked > 0 || cleared > 0) {
+            eventPublisher.publishEvent(new EntityChangedEvent(Invoice.class));
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package org.example.service;
+
+import com.itextpdf.text.DocumentException;
+import org.example.model.Customer;
+import org.example.model.Invoice;
+import org.example.model.InvoiceItem;
+import org.example.model.PdfCacheStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Pamięć podręczna wygenerowanych dokumentów PDF faktur.
+ * <p>
+ * Dokumenty są adresowane treścią: kluczem jest skrót SHA-256 wszystkich danych widocznych
+ * na fakturze (faktura, pozycje, klient) oraz wersji danych firmy i pliku logo. Każda zmiana tych danych
+ * daje nowy klucz, więc nieaktualny dokument nigdy nie zostanie zwrócony, a stare wpisy
+ * są po prostu wypierane. Pamięć ma dwa poziomy: ograniczoną rozmiarem listę LRU w pamięci
+ * oraz katalog na dysku (przetrwa restart aplikacji), również ograniczony rozmiarem.
+ * <p>
+ * Brakujący dokument jest generowany strumieniowo do pliku w katalogu pamięci podręcznej,
+ * a dopiero potem wysyłany klientowi - błąd generowania jest więc zgłaszany, zanim
+ * odpowiedź HTTP zostanie rozpoczęta. W pamięci operacyjnej przechowywane są tylko małe
+ * dokumenty; duże są wysyłane wprost z pliku, bez kopiowania całości na stertę.
+ */
+@Service
+public class PdfCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfCacheService.class);
+
+    /**
+     * Wersja układu dokumentu - należy ją zwiększyć przy każdej zmianie wyglądu PDF
+     * w {@link PdfService}, aby unieważnić dokumenty wygenerowane wcześniej.
+     */
+    static final int LAYOUT_REVISION = 2;
+
+    private static final String FILE_SUFFIX = ".pdf";
+
+    private final PdfService pdfService;
+    private final CompanyService companyService;
+    private final LogoImageService logoImageService;
+    private final long memoryMaxBytes;
+    private final long memoryMaxEntryBytes;
+    private final Path directory;
+    private final long diskMaxBytes;
+
+    // Lista LRU (kolejność dostępu) chroniona monitorem samej mapy
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile boolean diskEnabled;
+
+    @Autowired
+    public PdfCacheService(PdfService pdfService,
+                           CompanyService companyService,
+                           LogoImageService logoImageService,
+                           @Value("${app.pdf.cache.memory-max-bytes:33554432}") long memoryMaxBytes,
+                           @Value("${app.pdf.cache.memory-max-entry-bytes:1048576}") long memoryMaxEntryBytes,
+                           @Value("${app.pdf.cache.directory:pdf-cache}") String directory,
+                           @Value("${app.pdf.cache.disk-max-bytes:536870912}") long diskMaxBytes) {
+        this.pdfService = pdfService;
+        this.companyService = companyService;
+        this.logoImageService = logoImageService;
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.memoryMaxEntryBytes = Math.min(memoryMaxEntryBytes, memoryMaxBytes);
+        this.directory = Paths.get(directory);
+        this.diskMaxBytes = diskMaxBytes;
+        initDirectory();
+    }
+
+    /**
+     * Zwraca dokument PDF faktury z pamięci podręcznej lub generuje go i zapamiętuje.
+     * Faktura musi mieć wczytanego klienta i pozycje. Zwrócony dokument należy wysłać
+     * metodą {@link CachedPdf#writeTo(OutputStream)} (lub zamknąć, jeśli nie zostanie wysłany).
+     *
+     * @param invoice faktura, dla której zwracany jest PDF
+     * @return dokument gotowy do wysłania
+     * @throws DocumentException w przypadku błędu podczas generowania dokumentu
+     */
+    public CachedPdf openInvoicePdf(Invoice invoice) throws DocumentException {
+        return openInvoicePdf(keyOf(invoice), invoice);
+    }
+
+    /**
+     * Zapewnia, że dokument PDF faktury jest w pamięci podręcznej (generuje go w razie potrzeby),
+     * i zwraca jego klucz - do późniejszego odczytu metodą {@link #openCachedPdf(String)}
+     * bez przechowywania osobnej kopii dokumentu.
+     *
+     * @param invoice faktura, dla której przygotowywany jest PDF
+     * @return klucz dokumentu w pamięci podręcznej
+     * @throws DocumentException w przypadku błędu podczas generowania dokumentu
+     */
+    public String cacheInvoicePdf(Invoice invoice) throws DocumentException, IOException {
+        String key = keyOf(invoice);
+        openInvoicePdf(key, invoice).close();
+        return key;
+    }
+
+    /**
+     * Otwiera dokument zapisany wcześniej w pamięci podręcznej pod podanym kluczem.
+     *
+     * @param key klucz dokumentu zwrócony przez {@link #cacheInvoicePdf(Invoice)}
+     * @return dokument lub null, gdy został już wyparty z pamięci podręcznej
+     */
+    public CachedPdf openCachedPdf(String key) {
+        byte[] pdf = getFromMemory(key);
+        if (pdf != null) {
+            memoryHits.incrementAndGet();
+            return new CachedPdf(pdf);
+        }
+
+        CachedPdf cached = openFromDisk(key);
+        if (cached != null) {
+            diskHits.incrementAndGet();
+        }
+        return cached;
+    }
+
+    private String keyOf(Invoice invoice) {
+        String logoFingerprint = logoImageService.getFingerprint(companyService.getCompanyInfo().getLogoPath());
+        return cacheKey(invoice, companyService.getCompanyVersion(), logoFingerprint, pdfService.getOutputProfile());
+    }
+
+    private CachedPdf openInvoicePdf(String key, Invoice invoice) throws DocumentException {
+        CachedPdf cached = openCachedPdf(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        if (diskEnabled && renderToDisk(key, invoice)) {
+            cached = openFromDisk(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Katalog niedostępny - dokument generowany w pamięci
+        byte[] pdf = pdfService.generateInvoicePdf(invoice);
+        putInMemory(key, pdf);
+        return new CachedPdf(pdf);
+    }
+
+    /**
+     * Zwraca bieżące liczniki trafień i rozmiar pamięci podręcznej.
+     */
+    public PdfCacheStatistics getStatistics() {
+        int entries;
+        long bytes;
+        synchronized (memory) {
+            entries = memory.size();
+            bytes = memoryBytes;
+        }
+        return new PdfCacheStatistics(memoryHits.get(), diskHits.get(), misses.get(),
+                entries, bytes, diskBytes.get());
+    }
+
+    /**
+     * Wylicza klucz dokumentu jako skrót SHA-256 danych widocznych na fakturze oraz wersji
+     * danych firmy i pliku logo (plik może się zmienić bez zmiany danych firmy).
+     * Klucz obejmuje też ustawienia zapisu PDF, aby zmiana trybu nie zwracała starych plików.
+     */
+    static String cacheKey(Invoice invoice, long companyVersion, String logoFingerprint, String outputProfile) {
+        MessageDigest digest = sha256();
+        update(digest, LAYOUT_REVISION);
+        update(digest, companyVersion);
+        update(digest, logoFingerprint);
+        update(digest, outputProfile);
+
+        update(digest, invoice.getInvoiceNumber());
+        update(digest, invoice.getIssueDate());
+        update(digest, invoice.getDueDate());
+        update(digest, invoice.getPaymentMethod());
+        update(digest, invoice.getStatus());
+        update(digest, invoice.getNotes());
+
+        Customer customer = invoice.getCustomer();
+        update(digest, customer != null);
+        if (customer != null) {
+            update(digest, customer.getName());
+            update(digest, customer.getAddress());
+            update(digest, customer.getNip());
+        }
+
+        List<InvoiceItem> items = invoice.getItems();
+        update(digest, items.size());
+        for (InvoiceItem item : items) {
+            update(digest, item.getProduct());
+            update(digest, item.getQuantity());
+            update(digest, Double.doubleToLongBits(item.getPrice()));
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Brak algorytmu SHA-256", e);
+        }
+    }
+
+    /**
+     * Dopisuje wartość do skrótu. Każda wartość jest zakończona separatorem,
+     * a null ma osobny znacznik, więc różne układy pól nie dają tego samego ciągu bajtów.
+     */
+    private static void update(MessageDigest digest, Object value) {
+        if (value == null) {
+            digest.update((byte) 1);
+        } else {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    private byte[] getFromMemory(String key) {
+        synchronized (memory) {
+            return memory.get(key);
+        }
+    }
+
+    /**
+     * Zapamiętuje dokument w pamięci, wypierając najdawniej używane wpisy ponad limit rozmiaru.
+     */
+    private void putInMemory(String key, byte[] pdf) {
+        if (pdf.length > memoryMaxBytes) {
+            return;
+        }
+        synchronized (memory) {
+            byte[] previous = memory.put(key, pdf);
+            if (previous != null) {
+                memoryBytes -= previous.length;
+            }
+            memoryBytes += pdf.length;
+
+            Iterator<Map.Entry<String, byte[]>> eldest = memory.entrySet().iterator();
+            while (memoryBytes > memoryMaxBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().getValue().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Przygotowuje katalog pamięci podręcznej i ustala jego bieżący rozmiar.
+     * Gdy katalogu nie da się utworzyć, pamięć działa wyłącznie w pamięci operacyjnej.
+     */
+    private void initDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                diskBytes.set(files.filter(this::isCacheFile).mapToLong(this::sizeOf).sum());
+            }
+            diskEnabled = true;
+        } catch (IOException e) {
+            logger.warn("Nie można użyć katalogu pamięci podręcznej PDF {}: {}", directory, e.getMessage());
+            diskEnabled = false;
+        }
+    }
+
+    /**
+     * Otwiera dokument zapisany na dysku. Małe dokumenty są wczytywane do pamięci operacyjnej,
+     * duże - otwierane jako strumień (otwarty plik pozostaje czytelny nawet po jego usunięciu).
+     *
+     * @return dokument lub null, gdy nie ma go na dysku
+     */
+    private CachedPdf openFromDisk(String key) {
+        if (!diskEnabled) {
+            return null;
+        }
+        Path file = directory.resolve(key + FILE_SUFFIX);
+        try {
+            long size = Files.size(file);
+            CachedPdf cached;
+            if (size <= memoryMaxEntryBytes) {
+                byte[] pdf = Files.readAllBytes(file);
+                putInMemory(key, pdf);
+                cached = new CachedPdf(pdf);
+            } else {
+                cached = new CachedPdf(size, Files.newInputStream(file));
+            }
+            // Czas modyfikacji pełni rolę czasu ostatniego użycia przy wypieraniu wpisów z dysku
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return cached;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Błąd podczas odczytu PDF z pamięci podręcznej {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Generuje dokument strumieniowo do pliku tymczasowego i przenosi go do katalogu pamięci podręcznej
+     * (inne wątki nigdy nie odczytają niepełnego pliku).
+     *
+     * @return true, jeśli dokument został zapisany; false przy błędzie zapisu na dysk
+     * @throws DocumentException w przypadku błędu podczas generowania dokumentu
+     */
+    private boolean renderToDisk(String key, Invoice invoice) throws DocumentException {
+        Path file = directory.resolve(key + FILE_SUFFIX);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                pdfService.writeInvoicePdf(invoice, out);
+            }
+            long size = Files.size(temp);
+            long replaced = Files.exists(file) ? sizeOf(file) : 0L;
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+            if (diskBytes.addAndGet(size - replaced) > diskMaxBytes) {
+                pruneDisk();
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Błąd podczas zapisu PDF do pamięci podręcznej {}: {}", file, e.getMessage());
+            return false;
+        } finally {
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    /**
+     * Usuwa z dysku najdawniej używane dokumenty, aż rozmiar katalogu spadnie poniżej limitu.
+     */
+    private synchronized void pruneDisk() {
+        if (diskBytes.get() <= diskMaxBytes) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> oldestFirst = files.filter(this::isCacheFile)
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .toList();
+            int removed = 0;
+            for (Path file : oldestFirst) {
+                if (diskBytes.get() <= diskMaxBytes) {
+                    break;
+                }
+                long size = sizeOf(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                    removed++;
+                }
+            }
+            logger.info("Usunięto {} dokumentów PDF z pamięci podręcznej na dysku", removed);
+        } catch (IOException e) {
+            logger.warn("Błąd podczas czyszczenia pamięci podręcznej PDF: {}", e.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Nie można usunąć pliku tymczasowego {}: {}", path, e.getMessage());
+        }
+    }
+
+    private boolean isCacheFile(Path path) {
+        return path.getFileName().toString().endsWith(FILE_SUFFIX);
+    }
+
+    private long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0L);
+        }
+    }
+
+    /**
+     * Dokument PDF gotowy do wysłania - z pamięci operacyjnej albo otwarty plik z dysku.
+     */
+    public static final class CachedPdf implements Closeable {
+
+        private final long size;
+        private final byte[] content;
+        private final InputStream stream;
+
+        CachedPdf(byte[] content) {
+            this.size = content.length;
+            this.content = content;
+            this.stream = null;
+        }
+
+        CachedPdf(long size, InputStream stream) {
+            this.size = size;
+            this.content = null;
+            this.stream = stream;
+        }
+
+        /**
+         * Zwraca rozmiar dokumentu w bajtach (nagłówek Content-Length).
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Zwraca strumień do odczytu treści dokumentu (dokument można odczytać tylko raz).
+         */
+        public InputStream getInputStream() {
+            return content != null ? new ByteArrayInputStream(content) : stream;
+        }
+
+        /**
+         * Zapisuje dokument do strumienia i zwalnia otwarty plik.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            try (this) {
+                if (content != null) {
+                    out.write(content);
+                } else {
+                    stream.transferTo(out);
+                }
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+}
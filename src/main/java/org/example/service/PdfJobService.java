@@ -0,0 +1,236 @@
+package org.example.service;
+
+import com.itextpdf.text.DocumentException;
+import jakarta.annotation.PreDestroy;
+import org.example.exception.ResourceNotFoundException;
+import org.example.model.Invoice;
+import org.example.model.PdfJobStatus;
+import org.example.model.enums.PdfJobState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serwis generowania dokumentów PDF faktur w tle.
+ * <p>
+ * Zlecenie zwraca od razu identyfikator zadania, a dokument jest generowany w osobnej puli wątków,
+ * więc wątki obsługi żądań HTTP nie czekają na iText. Pula ma kolejkę o ograniczonej pojemności -
+ * gdy jest pełna, zlecenie jest odrzucane ({@link RejectedExecutionException}) i klient powinien
+ * ponowić je później. Wynikiem zadania jest klucz dokumentu w pamięci podręcznej PDF - dokument
+ * nie jest kopiowany do osobnego pliku. Zakończone zadania są usuwane po upływie czasu życia;
+ * zadanie jest widoczne tylko dla użytkownika, który je zlecił.
+ */
+@Service
+public class PdfJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfJobService.class);
+
+    private final InvoiceService invoiceService;
+    private final PdfCacheService pdfCacheService;
+    private final Duration ttl;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, PdfJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PdfJobService(InvoiceService invoiceService,
+                         PdfCacheService pdfCacheService,
+                         @Value("${app.pdf.jobs.threads:2}") int threads,
+                         @Value("${app.pdf.jobs.queue-capacity:100}") int queueCapacity,
+                         @Value("${app.pdf.jobs.ttl:PT15M}") Duration ttl) {
+        this.invoiceService = invoiceService;
+        this.pdfCacheService = pdfCacheService;
+        this.ttl = ttl;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new JobThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Zleca wygenerowanie dokumentu PDF faktury w tle.
+     *
+     * @param invoiceId identyfikator faktury
+     * @param owner nazwa użytkownika zlecającego
+     * @return stan utworzonego zadania
+     * @throws RejectedExecutionException gdy kolejka zadań jest pełna
+     */
+    public PdfJobStatus submit(Long invoiceId, String owner) {
+        PdfJob job = new PdfJob(UUID.randomUUID().toString(), invoiceId, owner);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            logger.warn("Odrzucono zadanie PDF dla faktury ID {} - kolejka jest pełna ({} zadań)",
+                    invoiceId, executor.getQueue().size());
+            throw e;
+        }
+        logger.debug("Zlecono zadanie PDF {} dla faktury ID {} (użytkownik: {})", job.id, invoiceId, owner);
+        return job.toStatus();
+    }
+
+    /**
+     * Zwraca stan zadania.
+     *
+     * @param jobId identyfikator zadania
+     * @param owner nazwa użytkownika pytającego o zadanie
+     * @return stan zadania
+     * @throws ResourceNotFoundException gdy zadanie nie istnieje, wygasło lub należy do innego użytkownika
+     */
+    public PdfJobStatus getStatus(String jobId, String owner) {
+        return findJob(jobId, owner).toStatus();
+    }
+
+    /**
+     * Otwiera gotowy dokument zadania do wysłania z pamięci podręcznej PDF. Dokument wyparty
+     * z pamięci podręcznej od zakończenia zadania jest generowany ponownie.
+     *
+     * @param jobId identyfikator zadania
+     * @param owner nazwa użytkownika pobierającego dokument
+     * @return dokument gotowy do wysłania
+     * @throws ResourceNotFoundException gdy zadanie nie istnieje, wygasło lub należy do innego użytkownika
+     * @throws IllegalStateException gdy dokument nie jest jeszcze gotowy
+     * @throws DocumentException w przypadku błędu podczas ponownego generowania dokumentu
+     */
+    public PdfCacheService.CachedPdf openResult(String jobId, String owner) throws DocumentException {
+        PdfJob job = findJob(jobId, owner);
+        if (job.state != PdfJobState.DONE) {
+            throw new IllegalStateException("Dokument PDF nie jest jeszcze gotowy (stan: "
+                    + job.state.getDisplayName() + ")");
+        }
+        PdfCacheService.CachedPdf pdf = pdfCacheService.openCachedPdf(job.cacheKey);
+        if (pdf == null) {
+            pdf = pdfCacheService.openInvoicePdf(invoiceService.findById(job.invoiceId));
+        }
+        return pdf;
+    }
+
+    /**
+     * Zwraca numer faktury, której dotyczy gotowe zadanie (do nazwy pobieranego pliku).
+     */
+    public String getInvoiceNumber(String jobId, String owner) {
+        return findJob(jobId, owner).invoiceNumber;
+    }
+
+    /**
+     * Usuwa zakończone zadania starsze niż czas życia wyników.
+     */
+    @Scheduled(fixedDelayString = "${app.pdf.jobs.cleanup-interval:PT1M}")
+    public void removeExpiredJobs() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(ttl);
+        int removed = 0;
+
+        Iterator<PdfJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            PdfJob job = iterator.next();
+            if (job.state.isFinished() && !job.completedAt.isAfter(expiredBefore)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.debug("Usunięto {} wygasłych zadań PDF", removed);
+        }
+    }
+
+    private PdfJob findJob(String jobId, String owner) {
+        PdfJob job = jobs.get(jobId);
+        if (job == null || !job.owner.equals(owner)) {
+            throw new ResourceNotFoundException("Nie znaleziono zadania PDF o ID: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Generuje dokument zadania w pamięci podręcznej PDF i zapamiętuje jego klucz.
+     */
+    private void run(PdfJob job) {
+        job.state = PdfJobState.RUNNING;
+        try {
+            Invoice invoice = invoiceService.findById(job.invoiceId);
+            job.complete(pdfCacheService.cacheInvoicePdf(invoice), invoice.getInvoiceNumber());
+        } catch (ResourceNotFoundException e) {
+            job.fail(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Błąd podczas generowania PDF w zadaniu {}: {}", job.id, e.getMessage(), e);
+            job.fail("Błąd podczas generowania PDF: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Zadanie generowania dokumentu. Stan jest zapisywany jako ostatni, więc po odczytaniu
+     * stanu zakończonego pozostałe pola są już widoczne dla innych wątków.
+     */
+    private static final class PdfJob {
+
+        private final String id;
+        private final Long invoiceId;
+        private final String owner;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+
+        private volatile PdfJobState state = PdfJobState.QUEUED;
+        private volatile String cacheKey;
+        private volatile String invoiceNumber;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        private PdfJob(String id, Long invoiceId, String owner) {
+            this.id = id;
+            this.invoiceId = invoiceId;
+            this.owner = owner;
+        }
+
+        private void complete(String cacheKey, String invoiceNumber) {
+            this.cacheKey = cacheKey;
+            this.invoiceNumber = invoiceNumber;
+            this.completedAt = LocalDateTime.now();
+            this.state = PdfJobState.DONE;
+        }
+
+        private void fail(String error) {
+            this.error = error;
+            this.completedAt = LocalDateTime.now();
+            this.state = PdfJobState.FAILED;
+        }
+
+        private PdfJobStatus toStatus() {
+            PdfJobState current = state;
+            return new PdfJobStatus(id, invoiceId, current, error, createdAt, current.isFinished() ? completedAt : null);
+        }
+    }
+
+    /**
+     * Nazywa wątki puli zadań PDF (czytelne logi i zrzuty wątków).
+     */
+    private static final class JobThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "pdf-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
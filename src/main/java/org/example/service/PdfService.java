@@ -5,46 +5,132 @@ import com.itextpdf.text.pdf.*;
 import org.example.model.Company;
 import org.example.model.Invoice;
 import org.example.model.InvoiceItem;
+import org.example.model.enums.PdfOutputMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.awt.color.ColorSpace;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 /**
  * Serwis do generowania dokumentów PDF dla faktur.
  * Używa biblioteki iText do tworzenia dokumentów.
+ * <p>
+ * Stałe części dokumentu (nagłówek, stopka, nagłówki kolumn) oraz blok danych sprzedawcy
+ * są przygotowywane raz - blok sprzedawcy raz dla każdej wersji danych firmy - i współdzielone
+ * przez kolejne dokumenty, które uzupełniają jedynie dane konkretnej faktury. Przygotowane elementy
+ * nie są po zbudowaniu modyfikowane, więc mogą być używane równolegle (tak jak {@link Chunk#NEWLINE}).
+ * Obiekty XObject iText są związane z jednym PdfWriterem, dlatego szablon przechowuje elementy
+ * dokumentu, a nie wyrenderowaną treść strony.
  */
 @Service
 public class PdfService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PdfService.class);
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy", Locale.of("pl"));
+
+    // Maksymalny rozmiar logo na stronie (w punktach)
+    private static final float LOGO_MAX_WIDTH = 150f;
+    private static final float LOGO_MAX_HEIGHT = 60f;
+
+    private static final float[] COLUMN_WIDTHS = {10f, 40f, 15f, 15f, 20f};
+
+    /**
+     * Liczba wierszy tabeli pozycji, po której tabela jest przekazywana do dokumentu.
+     * Wiersze już ułożone na stronie są zwalniane, więc pamięć potrzebna do wygenerowania
+     * faktury nie rośnie z liczbą pozycji.
+     */
+    private static final int ITEM_ROWS_PER_FLUSH = 50;
+
     private final CompanyService companyService;
+    private final LogoImageService logoImageService;
+    private final PdfOutputMode outputMode;
+    private final String outputProfile;
+
+    // Czcionki z obsługą polskich znaków
+    private final Font headerFont;
+    private final Font titleFont;
+    private final Font normalFont;
+    private final Font smallFont;
+
+    // Elementy wspólne dla wszystkich dokumentów - nie wolno ich modyfikować
+    private final Paragraph header;
+    private final Paragraph footer;
+    private final Paragraph sellerTitle;
+    private final Paragraph buyerTitle;
+    private final Paragraph notesTitle;
 
+    // Wzorcowe komórki nagłówka tabeli - PdfPTable.addCell dodaje do tabeli ich kopię
+    private final List<PdfPCell> headerCells;
+
+    /**
+     * Szablon dla bieżącej wersji danych firmy (przebudowywany po zmianie danych firmy).
+     */
+    private volatile InvoiceTemplate template;
+
+    /**
+     * Tworzy serwis z podanym trybem zapisu i czcionkami.
+     * Bez ścieżek czcionek używana jest wbudowana Helvetica (kodowanie CP1250), która nie jest
+     * osadzana w dokumencie. Czcionki TrueType są osadzane jako podzbiór użytych znaków.
+     */
     @Autowired
-    public PdfService(CompanyService companyService) {
+    public PdfService(CompanyService companyService,
+                      LogoImageService logoImageService,
+                      @Value("${app.pdf.output.mode:STANDARD}") PdfOutputMode outputMode,
+                      @Value("${app.pdf.font.regular-path:}") String regularFontPath,
+                      @Value("${app.pdf.font.bold-path:}") String boldFontPath) {
         this.companyService = companyService;
-    }
+        this.logoImageService = logoImageService;
+        this.outputMode = outputMode;
+        this.outputProfile = outputMode + "|" + regularFontPath + "|" + boldFontPath;
 
-    // Definiujemy czcionki z obsługą polskich znaków
-    private static final Font HEADER_FONT;
-    private static final Font TITLE_FONT;
-    private static final Font NORMAL_FONT;
-    private static final Font SMALL_FONT;
+        BaseFont regular = createBaseFont(regularFontPath);
+        BaseFont bold = boldFontPath == null || boldFontPath.isBlank() ? null : createBaseFont(boldFontPath);
+        // Dla czcionki bez wariantu pogrubionego iText symuluje pogrubienie
+        this.headerFont = bold != null ? new Font(bold, 18) : new Font(regular, 18, Font.BOLD);
+        this.titleFont = bold != null ? new Font(bold, 12) : new Font(regular, 12, Font.BOLD);
+        this.normalFont = new Font(regular, 10, Font.NORMAL);
+        this.smallFont = new Font(regular, 8, Font.NORMAL);
 
-    // Inicjalizacja statyczna czcionek
-    static {
-        try {
-            // Używamy kodowania CP1250 dla języka polskiego
-            BaseFont baseFont = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.CP1250, BaseFont.EMBEDDED);
-            HEADER_FONT = new Font(baseFont, 18, Font.BOLD);
-            TITLE_FONT = new Font(baseFont, 12, Font.BOLD);
-            NORMAL_FONT = new Font(baseFont, 10, Font.NORMAL);
-            SMALL_FONT = new Font(baseFont, 8, Font.NORMAL);
-        } catch (DocumentException | IOException e) {
-            throw new RuntimeException("Błąd podczas inicjalizacji czcionek PDF", e);
+        if (outputMode == PdfOutputMode.ARCHIVE && !regular.isEmbedded()) {
+            logger.warn("Tryb ARCHIVE wymaga czcionki TrueType (app.pdf.font.regular-path) - " +
+                    "wbudowana Helvetica nie jest osadzana, więc dokumenty nie spełnią wymagań PDF/A");
         }
+
+        this.header = aligned(new Paragraph("FAKTURA", headerFont), Element.ALIGN_CENTER);
+        this.footer = aligned(
+                new Paragraph("Dokument wygenerowany elektronicznie przez system InvoicerApp.", smallFont),
+                Element.ALIGN_CENTER);
+        this.sellerTitle = new Paragraph("Sprzedawca:", titleFont);
+        this.buyerTitle = new Paragraph("Nabywca:", titleFont);
+        this.notesTitle = new Paragraph("Uwagi:", titleFont);
+        this.headerCells = List.of(
+                createHeaderCell("Lp."),
+                createHeaderCell("Nazwa"),
+                createHeaderCell("Ilość"),
+                createHeaderCell("Cena jedn."),
+                createHeaderCell("Wartość"));
+    }
+
+    /**
+     * Zwraca opis ustawień zapisu (tryb i czcionki), od których zależy postać dokumentu -
+     * na potrzeby kluczy pamięci podręcznej dokumentów.
+     */
+    public String getOutputProfile() {
+        return outputProfile;
     }
 
     /**
@@ -55,125 +141,131 @@ public class PdfService {
      * @throws DocumentException w przypadku błędu podczas generowania dokumentu
      */
     public byte[] generateInvoicePdf(Invoice invoice) throws DocumentException {
-        Document document = new Document(PageSize.A4);
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeInvoicePdf(invoice, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Generuje dokument PDF dla podanej faktury bezpośrednio do strumienia wyjściowego.
+     * Strumień nie jest zamykany - zamyka go wywołujący.
+     *
+     * @param invoice faktura, dla której generowany jest PDF
+     * @param out strumień, do którego zapisywany jest dokument
+     * @throws DocumentException w przypadku błędu podczas generowania dokumentu
+     */
+    public void writeInvoicePdf(Invoice invoice, OutputStream out) throws DocumentException {
+        Document document = new Document(PageSize.A4);
 
         try {
-            PdfWriter.getInstance(document, baos);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            configureOutput(document, writer, invoice);
             document.open();
+            if (outputMode == PdfOutputMode.ARCHIVE) {
+                addSrgbOutputIntent(writer);
+            }
 
-            // Pobieramy dane firmy z bazy
+            // Szablon z danymi firmy dla bieżącej wersji danych
             Company company = companyService.getCompanyInfo();
+            InvoiceTemplate template = currentTemplate(company);
+
+            // Logo firmy (zdekodowane raz i współdzielone przez wszystkie dokumenty)
+            Image logo = logoImageService.getLogo(company.getLogoPath());
+            if (logo != null) {
+                logo.scaleToFit(LOGO_MAX_WIDTH, LOGO_MAX_HEIGHT);
+                logo.setAlignment(Element.ALIGN_LEFT);
+                document.add(logo);
+            }
 
-            // Dodaj logo lub nagłówek
-            Paragraph header = new Paragraph("FAKTURA", HEADER_FONT);
-            header.setAlignment(Element.ALIGN_CENTER);
             document.add(header);
             document.add(Chunk.NEWLINE);
 
             // Informacje o fakturze
-            document.add(new Paragraph("Numer faktury: " + invoice.getInvoiceNumber(), TITLE_FONT));
-
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy", new Locale("pl"));
-            document.add(new Paragraph("Data wystawienia: " + invoice.getIssueDate().format(dateFormatter), NORMAL_FONT));
-            document.add(new Paragraph("Termin płatności: " + invoice.getDueDate().format(dateFormatter), NORMAL_FONT));
-            document.add(new Paragraph("Metoda płatności: " + invoice.getPaymentMethod(), NORMAL_FONT));
+            document.add(new Paragraph("Numer faktury: " + invoice.getInvoiceNumber(), titleFont));
+            document.add(new Paragraph("Data wystawienia: " + invoice.getIssueDate().format(DATE_FORMATTER), normalFont));
+            document.add(new Paragraph("Termin płatności: " + invoice.getDueDate().format(DATE_FORMATTER), normalFont));
+            document.add(new Paragraph("Metoda płatności: " + invoice.getPaymentMethod(), normalFont));
             document.add(Chunk.NEWLINE);
 
-            // Dane sprzedawcy - teraz z bazy danych
-            document.add(new Paragraph("Sprzedawca:", TITLE_FONT));
-            document.add(new Paragraph(company.getName(), NORMAL_FONT));
-            if (company.getAddress() != null && !company.getAddress().isEmpty()) {
-                document.add(new Paragraph(company.getAddress(), NORMAL_FONT));
-            }
-            if (company.getNip() != null && !company.getNip().isEmpty()) {
-                document.add(new Paragraph("NIP: " + company.getNip(), NORMAL_FONT));
-            }
-            if (company.getEmail() != null && !company.getEmail().isEmpty()) {
-                document.add(new Paragraph("Email: " + company.getEmail(), NORMAL_FONT));
-            }
-            if (company.getPhone() != null && !company.getPhone().isEmpty()) {
-                document.add(new Paragraph("Telefon: " + company.getPhone(), NORMAL_FONT));
-            }
-            if (company.getBankAccount() != null && !company.getBankAccount().isEmpty()) {
-                document.add(new Paragraph("Konto: " + company.getBankAccount(), NORMAL_FONT));
-                if (company.getBankName() != null && !company.getBankName().isEmpty()) {
-                    document.add(new Paragraph("Bank: " + company.getBankName(), NORMAL_FONT));
-                }
+            // Dane sprzedawcy
+            for (Element element : template.sellerBlock) {
+                document.add(element);
             }
             document.add(Chunk.NEWLINE);
 
             // Dane nabywcy
-            document.add(new Paragraph("Nabywca:", TITLE_FONT));
+            document.add(buyerTitle);
             if (invoice.getCustomer() != null) {
-                document.add(new Paragraph(invoice.getCustomer().getName(), NORMAL_FONT));
+                document.add(new Paragraph(invoice.getCustomer().getName(), normalFont));
                 if (invoice.getCustomer().getAddress() != null) {
-                    document.add(new Paragraph(invoice.getCustomer().getAddress(), NORMAL_FONT));
+                    document.add(new Paragraph(invoice.getCustomer().getAddress(), normalFont));
                 }
                 if (invoice.getCustomer().getNip() != null) {
-                    document.add(new Paragraph("NIP: " + invoice.getCustomer().getNip(), NORMAL_FONT));
+                    document.add(new Paragraph("NIP: " + invoice.getCustomer().getNip(), normalFont));
                 }
             }
             document.add(Chunk.NEWLINE);
 
             // Tabela pozycji faktury
-            PdfPTable table = new PdfPTable(5); // 5 kolumn
+            PdfPTable table = new PdfPTable(COLUMN_WIDTHS);
             table.setWidthPercentage(100);
-            float[] columnWidths = {10f, 40f, 15f, 15f, 20f};
-            table.setWidths(columnWidths);
+            table.setComplete(false);
+            // Komórka domyślna jest wzorcem dla wszystkich komórek pozycji
+            table.getDefaultCell().setHorizontalAlignment(Element.ALIGN_CENTER);
+            table.getDefaultCell().setPadding(5);
 
             // Nagłówki tabeli
-            table.addCell(createHeaderCell("Lp."));
-            table.addCell(createHeaderCell("Nazwa"));
-            table.addCell(createHeaderCell("Ilość"));
-            table.addCell(createHeaderCell("Cena jedn."));
-            table.addCell(createHeaderCell("Wartość"));
+            for (PdfPCell headerCell : headerCells) {
+                table.addCell(headerCell);
+            }
 
             // Pozycje faktury
             int i = 1;
             for (InvoiceItem item : invoice.getItems()) {
-                table.addCell(createCell(String.valueOf(i++)));
-                table.addCell(createCell(item.getProduct()));
-                table.addCell(createCell(String.valueOf(item.getQuantity())));
-                table.addCell(createCell(String.format("%.2f zł", item.getPrice())));
-                table.addCell(createCell(String.format("%.2f zł", item.getTotal())));
+                table.addCell(new Phrase(String.valueOf(i++), normalFont));
+                table.addCell(new Phrase(item.getProduct(), normalFont));
+                table.addCell(new Phrase(String.valueOf(item.getQuantity()), normalFont));
+                table.addCell(new Phrase(formatAmount(item.getPrice()), normalFont));
+                table.addCell(new Phrase(formatAmount(item.getTotal()), normalFont));
+
+                // Przekazanie gotowych wierszy do dokumentu zwalnia je z pamięci
+                if ((i - 1) % ITEM_ROWS_PER_FLUSH == 0) {
+                    document.add(table);
+                }
             }
 
+            table.setComplete(true);
             document.add(table);
             document.add(Chunk.NEWLINE);
 
             // Podsumowanie
-            Paragraph summaryParagraph = new Paragraph("Razem do zapłaty: " + String.format("%.2f zł", invoice.getTotal()), TITLE_FONT);
-            summaryParagraph.setAlignment(Element.ALIGN_RIGHT);
-            document.add(summaryParagraph);
+            document.add(aligned(new Paragraph("Razem do zapłaty: " + formatAmount(invoice.getTotal()), titleFont),
+                    Element.ALIGN_RIGHT));
 
             // Status
-            Paragraph statusParagraph = new Paragraph("Status: " + invoice.getStatus().getDisplayName(), NORMAL_FONT);
-            statusParagraph.setAlignment(Element.ALIGN_RIGHT);
-            document.add(statusParagraph);
+            document.add(aligned(new Paragraph("Status: " + invoice.getStatus().getDisplayName(), normalFont),
+                    Element.ALIGN_RIGHT));
 
             // Dodaj uwagi, jeśli istnieją
             if (invoice.getNotes() != null && !invoice.getNotes().isEmpty()) {
                 document.add(Chunk.NEWLINE);
-                document.add(new Paragraph("Uwagi:", TITLE_FONT));
-                document.add(new Paragraph(invoice.getNotes(), NORMAL_FONT));
+                document.add(notesTitle);
+                document.add(new Paragraph(invoice.getNotes(), normalFont));
             }
 
             // Dodaj dodatkowe informacje z danych firmy
-            if (company.getAdditionalInfo() != null && !company.getAdditionalInfo().isEmpty()) {
+            if (template.additionalInfo != null) {
                 document.add(Chunk.NEWLINE);
-                document.add(new Paragraph(company.getAdditionalInfo(), SMALL_FONT));
+                document.add(template.additionalInfo);
             }
 
             // Dodaj stopkę
             document.add(Chunk.NEWLINE);
             document.add(Chunk.NEWLINE);
-            Paragraph footer = new Paragraph("Dokument wygenerowany elektronicznie przez system InvoicerApp.", SMALL_FONT);
-            footer.setAlignment(Element.ALIGN_CENTER);
             document.add(footer);
 
             document.close();
-            return baos.toByteArray();
 
         } catch (Exception e) {
             document.close();
@@ -181,11 +273,91 @@ public class PdfService {
         }
     }
 
+    /**
+     * Zwraca szablon dla bieżącej wersji danych firmy, budując go przy pierwszym użyciu
+     * lub po zmianie danych firmy.
+     */
+    private InvoiceTemplate currentTemplate(Company company) {
+        long version = company.getVersion() != null ? company.getVersion() : 0L;
+
+        InvoiceTemplate current = template;
+        if (current == null || current.companyVersion != version) {
+            current = new InvoiceTemplate(company, version);
+            template = current;
+        }
+        return current;
+    }
+
+    /**
+     * Formatuje kwotę tak samo jak {@code String.format("%.2f zł", amount)} (zaokrąglenie
+     * połówkowe w górę, separator dziesiętny z domyślnych ustawień regionalnych), bez
+     * analizowania wzorca formatu przy każdym wywołaniu.
+     */
+    static String formatAmount(double amount) {
+        String plain = BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).toPlainString();
+        char separator = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)).getDecimalSeparator();
+        return (separator == '.' ? plain : plain.replace('.', separator)) + " zł";
+    }
+
+    /**
+     * Ustawia kompresję i metadane dokumentu zgodnie z trybem zapisu (przed otwarciem dokumentu).
+     */
+    private void configureOutput(Document document, PdfWriter writer, Invoice invoice) throws DocumentException {
+        switch (outputMode) {
+            case COMPACT -> {
+                writer.setFullCompression();
+                writer.setCompressionLevel(PdfStream.BEST_COMPRESSION);
+            }
+            case ARCHIVE -> {
+                writer.setPdfVersion(PdfWriter.VERSION_1_4);
+                writer.setCompressionLevel(PdfStream.BEST_COMPRESSION);
+                document.addTitle("Faktura " + invoice.getInvoiceNumber());
+                document.addCreator("InvoicerApp");
+                document.addCreationDate();
+                writer.createXmpMetadata();
+            }
+            default -> {
+                // Tryb STANDARD - domyślne ustawienia iText
+            }
+        }
+    }
+
+    /**
+     * Dodaje profil kolorów sRGB jako docelowy profil wyjściowy (wymagany przez PDF/A).
+     */
+    private void addSrgbOutputIntent(PdfWriter writer) throws IOException {
+        byte[] srgb = java.awt.color.ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData();
+        writer.setOutputIntents("Custom", "", "http://www.color.org", "sRGB IEC61966-2.1",
+                ICC_Profile.getInstance(srgb));
+    }
+
+    /**
+     * Tworzy czcionkę bazową - wbudowaną Helveticę lub czcionkę TrueType osadzaną jako podzbiór.
+     */
+    private static BaseFont createBaseFont(String fontPath) {
+        try {
+            if (fontPath == null || fontPath.isBlank()) {
+                // Używamy kodowania CP1250 dla języka polskiego
+                return BaseFont.createFont(BaseFont.HELVETICA, BaseFont.CP1250, BaseFont.EMBEDDED);
+            }
+            BaseFont font = BaseFont.createFont(fontPath.trim(), BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+            font.setSubset(true);
+            return font;
+        } catch (DocumentException | IOException e) {
+            throw new IllegalStateException("Błąd podczas inicjalizacji czcionek PDF: " + fontPath, e);
+        }
+    }
+
+    private static Paragraph aligned(Paragraph paragraph, int alignment) {
+        paragraph.setAlignment(alignment);
+        return paragraph;
+    }
+
     /**
      * Tworzy komórkę nagłówka tabeli z określonym tekstem.
      */
     private PdfPCell createHeaderCell(String text) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, TITLE_FONT));
+        PdfPCell cell = new PdfPCell(new Phrase(text, titleFont));
         cell.setHorizontalAlignment(Element.ALIGN_CENTER);
         cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
         cell.setPadding(5);
@@ -193,12 +365,46 @@ public class PdfService {
     }
 
     /**
-     * Tworzy standardową komórkę tabeli z określonym tekstem.
+     * Elementy dokumentu zależne od danych firmy, przygotowane dla jednej wersji tych danych.
      */
-    private PdfPCell createCell(String text) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, NORMAL_FONT));
-        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        cell.setPadding(5);
-        return cell;
+    private final class InvoiceTemplate {
+
+        private final long companyVersion;
+        private final List<Element> sellerBlock;
+        private final Paragraph additionalInfo;
+
+        private InvoiceTemplate(Company company, long companyVersion) {
+            this.companyVersion = companyVersion;
+
+            List<Element> seller = new ArrayList<>();
+            seller.add(sellerTitle);
+            seller.add(new Paragraph(company.getName(), normalFont));
+            if (hasText(company.getAddress())) {
+                seller.add(new Paragraph(company.getAddress(), normalFont));
+            }
+            if (hasText(company.getNip())) {
+                seller.add(new Paragraph("NIP: " + company.getNip(), normalFont));
+            }
+            if (hasText(company.getEmail())) {
+                seller.add(new Paragraph("Email: " + company.getEmail(), normalFont));
+            }
+            if (hasText(company.getPhone())) {
+                seller.add(new Paragraph("Telefon: " + company.getPhone(), normalFont));
+            }
+            if (hasText(company.getBankAccount())) {
+                seller.add(new Paragraph("Konto: " + company.getBankAccount(), normalFont));
+                if (hasText(company.getBankName())) {
+                    seller.add(new Paragraph("Bank: " + company.getBankName(), normalFont));
+                }
+            }
+            this.sellerBlock = List.copyOf(seller);
+            this.additionalInfo = hasText(company.getAdditionalInfo())
+                    ? new Paragraph(company.getAdditionalInfo(), smallFont)
+                    : null;
+        }
+
+        private static boolean hasText(String value) {
+            return value != null && !value.isEmpty();
+        }
     }
-}
\ No newline at end of file
+}
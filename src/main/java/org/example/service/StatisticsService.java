@@ -0,0 +1,178 @@
+package org.example.service;
+
+import org.example.event.EntityChangedEvent;
+import org.example.model.InvoiceStatistics;
+import org.example.model.StatisticsSnapshot;
+import org.example.model.enums.InvoiceStatus;
+import org.example.repository.CustomerRepository;
+import org.example.repository.InvoiceRepository;
+import org.example.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+/**
+ * Serwis dostarczający zbuforowane statystyki dla dashboardu i panelu administratora.
+ * <p>
+ * Statystyki są wyliczane raz dla danej wersji danych. Wersja jest zwiększana po zatwierdzeniu
+ * każdej zmiany faktury, klienta lub użytkownika (zdarzenie {@link EntityChangedEvent}) oraz
+ * po operacjach masowych ({@link #invalidate()}). Równoczesne żądania przy nieaktualnej migawce
+ * czekają na jedno wspólne przeliczenie zamiast liczyć statystyki równolegle.
+ */
+@Service
+public class StatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
+
+    private final InvoiceRepository invoiceRepository;
+    private final CustomerRepository customerRepository;
+    private final UserRepository userRepository;
+    private final InvoiceStatisticsService invoiceStatisticsService;
+
+    /**
+     * Wersja danych - zwiększana przy każdej zmianie danych wpływającej na statystyki.
+     */
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    private final AtomicReference<Computation<StatisticsSnapshot>> snapshot = new AtomicReference<>();
+    private final Map<Integer, AtomicReference<Computation<Map<Integer, InvoiceStatistics>>>> yearStatistics =
+            new ConcurrentHashMap<>();
+
+    @Autowired
+    public StatisticsService(InvoiceRepository invoiceRepository,
+                             CustomerRepository customerRepository,
+                             UserRepository userRepository,
+                             InvoiceStatisticsService invoiceStatisticsService) {
+        this.invoiceRepository = invoiceRepository;
+        this.customerRepository = customerRepository;
+        this.userRepository = userRepository;
+        this.invoiceStatisticsService = invoiceStatisticsService;
+    }
+
+    /**
+     * Zwraca migawkę statystyk aktualną dla bieżącej wersji danych.
+     */
+    public StatisticsSnapshot getSnapshot() {
+        return getOrCompute(snapshot, this::computeSnapshot);
+    }
+
+    /**
+     * Zwraca podsumowania miesięcy podanego roku (dla wykresu na dashboardzie).
+     *
+     * @param year rok
+     * @return mapa: numer miesiąca (1-12) -> podsumowanie
+     */
+    public Map<Integer, InvoiceStatistics> getYearStatistics(int year) {
+        AtomicReference<Computation<Map<Integer, InvoiceStatistics>>> slot =
+                yearStatistics.computeIfAbsent(year, y -> new AtomicReference<>());
+        return getOrCompute(slot, version -> invoiceStatisticsService.getYearStatistics(year));
+    }
+
+    /**
+     * Zwraca bieżącą wersję danych.
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * Unieważnia zbuforowane statystyki (np. po masowej aktualizacji danych zapytaniem UPDATE).
+     */
+    public void invalidate() {
+        long version = dataVersion.incrementAndGet();
+        logger.debug("Unieważniono statystyki, nowa wersja danych: {}", version);
+    }
+
+    /**
+     * Unieważnia statystyki po zatwierdzeniu zmiany encji - dzięki temu przeliczenie
+     * wykonane po unieważnieniu widzi już zatwierdzone dane.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Zwraca wynik obliczenia dla bieżącej wersji danych. Jeśli wynik jest nieaktualny,
+     * dokładnie jeden wątek wykonuje obliczenie, a pozostałe czekają na jego wynik.
+     * Nieudane obliczenie nie jest zapamiętywane - kolejne żądanie spróbuje ponownie.
+     */
+    private <T> T getOrCompute(AtomicReference<Computation<T>> slot, LongFunction<T> computation) {
+        while (true) {
+            long version = dataVersion.get();
+            Computation<T> current = slot.get();
+            if (current != null && current.version == version) {
+                try {
+                    return current.result.join();
+                } catch (CompletionException e) {
+                    slot.compareAndSet(current, null);
+                    throw e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+
+            Computation<T> mine = new Computation<>(version);
+            if (slot.compareAndSet(current, mine)) {
+                try {
+                    T value = computation.apply(version);
+                    mine.result.complete(value);
+                    return value;
+                } catch (RuntimeException e) {
+                    mine.result.completeExceptionally(e);
+                    slot.compareAndSet(mine, null);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wylicza statystyki zapytaniami COUNT oraz z przyrostowych statystyk faktur.
+     */
+    private StatisticsSnapshot computeSnapshot(long version) {
+        long started = System.nanoTime();
+
+        InvoiceStatistics invoices = invoiceStatisticsService.getOverallStatistics();
+        StatisticsSnapshot result = new StatisticsSnapshot(
+                version,
+                LocalDateTime.now(),
+                userRepository.count(),
+                userRepository.countByActiveTrue(),
+                invoiceRepository.count(),
+                invoiceRepository.countByStatus(InvoiceStatus.OPLACONA),
+                invoiceRepository.countByStatus(InvoiceStatus.NIEOPLACONA),
+                invoiceRepository.countByOverdueTrue(),
+                invoices.getPaidTotal(),
+                invoices.getUnpaidTotal(),
+                invoiceStatisticsService.findYears(),
+                customerRepository.count());
+
+        logger.debug("Przeliczono statystyki dla wersji danych {} w {} ms",
+                version, (System.nanoTime() - started) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Obliczenie (zakończone lub trwające) dla określonej wersji danych.
+     */
+    private static final class Computation<T> {
+
+        private final long version;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Computation(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.example.model.User;
 import org.example.model.enums.RoleType;
 import org.example.repository.RoleRepository;
 import org.example.repository.UserRepository;
+import org.example.repository.projection.UserView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +48,14 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * Pobiera listę wszystkich użytkowników jako projekcję tylko do odczytu (z informacją o rolach).
+     */
+    @Transactional(readOnly = true)
+    public List<UserView> findAllViews() {
+        return userRepository.findAllViews();
+    }
+
     /**
      * Pobiera użytkownika po identyfikatorze.
      *
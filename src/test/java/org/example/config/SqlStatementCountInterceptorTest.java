@@ -0,0 +1,99 @@
+package org.example.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy jednostkowe dla klas SqlStatementCounter i SqlStatementCountInterceptor.
+ */
+@ExtendWith(MockitoExtension.class)
+public class SqlStatementCountInterceptorTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    private SqlStatementCountInterceptor interceptor;
+    private SqlStatementCounter counter;
+
+    @BeforeEach
+    void setup() {
+        interceptor = new SqlStatementCountInterceptor();
+        ReflectionTestUtils.setField(interceptor, "warnThreshold", 1);
+        counter = new SqlStatementCounter();
+        SqlStatementCounter.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlStatementCounter.reset();
+    }
+
+    @Test
+    void inspect_ShouldCountStatementAndReturnSqlUnchanged() {
+        // When
+        String sql = counter.inspect("select * from invoice");
+        counter.inspect("select * from customer");
+
+        // Then
+        assertEquals("select * from invoice", sql);
+        assertEquals(2, SqlStatementCounter.getCount());
+    }
+
+    @Test
+    void inspect_ShouldCountStatementsPerThread() throws Exception {
+        // Given
+        counter.inspect("select * from invoice");
+
+        // When
+        int otherThreadCount = CompletableFuture.supplyAsync(() -> {
+            counter.inspect("select * from customer");
+            counter.inspect("select * from invoice_item");
+            return SqlStatementCounter.getCount();
+        }).get();
+
+        // Then
+        assertEquals(2, otherThreadCount);
+        assertEquals(1, SqlStatementCounter.getCount());
+    }
+
+    @Test
+    void preHandle_ShouldResetCounterBeforeRequest() {
+        // Given - zapytania wykonane poza obsługą żądania
+        counter.inspect("select * from invoice");
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, new Object());
+
+        // Then
+        assertTrue(proceed);
+        assertEquals(0, SqlStatementCounter.getCount());
+    }
+
+    @Test
+    void afterCompletion_WhenThresholdExceeded_ShouldResetCounter() {
+        // Given
+        interceptor.preHandle(request, response, new Object());
+        counter.inspect("select * from invoice");
+        counter.inspect("select * from customer");
+
+        // When
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        // Then - licznik nie przenosi się na kolejne żądanie obsługiwane przez ten wątek
+        assertEquals(0, SqlStatementCounter.getCount());
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.repository;
+
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ManyToOne;
+import org.example.model.Invoice;
+import org.example.model.enums.InvoiceStatus;
+import org.hibernate.annotations.BatchSize;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.EntityGraph;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy planów pobierania faktur w InvoiceRepository - listy i wyszukiwanie nie mogą
+ * doczytywać klienta ani pozycji osobnym zapytaniem dla każdej faktury.
+ */
+public class InvoiceRepositoryTest {
+
+    private static String graphOf(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method method = InvoiceRepository.class.getMethod(name, parameterTypes);
+        EntityGraph graph = method.getAnnotation(EntityGraph.class);
+        assertNotNull(graph, "Brak planu pobierania dla " + name);
+        return graph.value();
+    }
+
+    @Test
+    void listQueries_ShouldFetchCustomerInSameQuery() throws Exception {
+        // When & Then
+        assertEquals(Invoice.GRAPH_WITH_CUSTOMER, graphOf("findAll"));
+        assertEquals(Invoice.GRAPH_WITH_CUSTOMER, graphOf("findByStatus", InvoiceStatus.class));
+        assertEquals(Invoice.GRAPH_WITH_CUSTOMER, graphOf("searchInvoices", InvoiceStatus.class,
+                LocalDate.class, LocalDate.class, String.class, Double.class, Double.class));
+    }
+
+    @Test
+    void findById_ShouldFetchCustomerAndItems() throws Exception {
+        // When & Then
+        assertEquals(Invoice.GRAPH_WITH_CUSTOMER_AND_ITEMS, graphOf("findById", Long.class));
+    }
+
+    @Test
+    void invoice_ShouldLoadCustomerLazilyAndItemsInBatches() throws Exception {
+        // When
+        ManyToOne customer = Invoice.class.getDeclaredField("customer").getAnnotation(ManyToOne.class);
+        BatchSize items = Invoice.class.getDeclaredField("items").getAnnotation(BatchSize.class);
+
+        // Then
+        assertEquals(FetchType.LAZY, customer.fetch());
+        assertNotNull(items);
+        assertTrue(items.size() > 1);
+    }
+}
@@ -0,0 +1,581 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import org.example.model.Customer;
+import org.example.model.Invoice;
+import org.example.model.InvoiceItem;
+import org.example.model.Tombstone;
+import org.example.model.enums.BackupFormat;
+import org.example.model.enums.BackupRestoreMode;
+import org.example.model.enums.BackupType;
+import org.example.model.enums.InvoiceStatus;
+import org.example.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testy jednostkowe dla klasy BackupService.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BackupServiceTest {
+
+    private static final String CUSTOMER_INSERT = "INSERT INTO customer";
+    private static final String INVOICE_INSERT = "INSERT INTO invoice ";
+
+    private static final String BACKUP_JSON = """
+            {"company":{"name":"Firma"},
+             "customers":[{"id":7,"name":"A"},{"id":8,"name":"B"},{"id":9,"name":"C"}],
+             "invoices":[
+               {"id":1,"invoiceNumber":"FV/1","issueDate":"2024-05-01","dueDate":"2024-05-15",
+                "paymentMethod":"PRZELEW","customerId":9,"status":"OPLACONA",
+                "items":[{"product":"X","quantity":2,"price":10.5},{"product":"Y","quantity":1,"price":4.0}]},
+               {"id":2,"invoiceNumber":"FV/2","issueDate":"2024-05-01","dueDate":"2024-05-15",
+                "paymentMethod":"NIEZNANA","customerId":7,"status":"NIEOPLACONA","items":[]}],
+             "users":[],"roles":[],"loginAudits":[],"version":"1.0"}
+            """;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private InvoiceItemRepository invoiceItemRepository;
+
+    @Mock
+    private CompanyRepository companyRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private LoginAuditRepository loginAuditRepository;
+
+    @Mock
+    private TombstoneRepository tombstoneRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private InvoiceStatisticsService invoiceStatisticsService;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private BackupService backupService;
+    private Path backupFile;
+    private Path baseFile;
+
+    @BeforeEach
+    void setup() {
+        backupService = createService(1);
+        backupFile = Paths.get("backups", "test-" + UUID.randomUUID() + ".json");
+
+        // Baza nadaje kolejne identyfikatory wstawianym wierszom
+        AtomicLong sequence = new AtomicLong(100);
+        lenient().when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class)))
+                .thenAnswer(invocation -> {
+                    SqlParameterSource[] rows = invocation.getArgument(1);
+                    KeyHolder keyHolder = invocation.getArgument(2);
+                    for (int i = 0; i < rows.length; i++) {
+                        keyHolder.getKeyList().add(Map.of("GENERATED_KEY", sequence.incrementAndGet()));
+                    }
+                    return new int[rows.length];
+                });
+        lenient().when(roleRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private BackupService createService(int exportThreads) {
+        BackupService service = new BackupService(userRepository, customerRepository, invoiceRepository,
+                invoiceItemRepository, companyRepository, roleRepository, loginAuditRepository, tombstoneRepository,
+                passwordEncoder, invoiceStatisticsService, jdbcTemplate, transactionManager, dataSource, eventPublisher,
+                2, 2, BackupFormat.ZIP, 300, exportThreads);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        backupService.shutdown();
+        Files.deleteIfExists(backupFile);
+        if (baseFile != null) {
+            Files.deleteIfExists(baseFile);
+        }
+        if (!Files.isDirectory(backupFile.getParent())) {
+            return;
+        }
+        try (var files = Files.list(backupFile.getParent())) {
+            if (files.findAny().isEmpty()) {
+                Files.delete(backupFile.getParent());
+            }
+        }
+    }
+
+    private void writeBackup(String json) throws IOException {
+        Files.createDirectories(backupFile.getParent());
+        Files.writeString(backupFile, json);
+    }
+
+    private Customer createCustomer(long id, String name) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setName(name);
+        return customer;
+    }
+
+    /**
+     * Tworzy kopię ZIP z trzema klientami (dwie strony eksportu).
+     */
+    private void createZipBackup() throws IOException {
+        when(customerRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+                .thenReturn(List.of(createCustomer(7, "A"), createCustomer(8, "B")));
+        when(customerRepository.findByIdGreaterThanOrderByIdAsc(eq(8L), any()))
+                .thenReturn(List.of(createCustomer(9, "C")));
+        backupFile = Paths.get(backupService.createBackup());
+    }
+
+    /**
+     * Tworzy kopię pełną z trzema klientami, a na niej kopię przyrostową: klient 8 zmieniony, klient 9 usunięty.
+     */
+    private void createIncrementalBackup() throws IOException {
+        createZipBackup();
+        baseFile = backupFile;
+        when(customerRepository.findByModifiedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(any(), eq(0L), any()))
+                .thenReturn(List.of(createCustomer(8, "B2")));
+        Tombstone tombstone = new Tombstone();
+        tombstone.setId(1L);
+        tombstone.setEntityType("Customer");
+        tombstone.setEntityId(9L);
+        // Tabela usuniętych faktur jest czytana tą samą metodą (bez wpisów)
+        lenient().when(tombstoneRepository.findByEntityTypeAndDeletedAtGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+                eq("Customer"), any(), eq(0L), any())).thenReturn(List.of(tombstone));
+        backupFile = Paths.get(backupService.createIncrementalBackup(baseFile.getFileName().toString()));
+    }
+
+    private BackupArchive.Manifest readManifest(Path zipPath) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            return BackupArchive.readManifest(mapper, zip);
+        }
+    }
+
+    /**
+     * Zastępuje zawartość wpisu w pliku ZIP (bez zmiany manifestu).
+     */
+    private void replaceEntry(Path zipPath, String entryName, String content) throws IOException {
+        Path copy = zipPath.resolveSibling(zipPath.getFileName() + ".copy");
+        try (ZipFile zip = new ZipFile(zipPath.toFile());
+             ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(copy))) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                if (entry.getName().equals(entryName)) {
+                    out.write(content.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    zip.getInputStream(entry).transferTo(out);
+                }
+                out.closeEntry();
+            }
+        }
+        Files.move(copy, zipPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    void createBackup_ShouldReadTablesInPagesAndClearPersistenceContextAfterEachPage() throws Exception {
+        // Given - kopia w formacie JSON; trzech klientów (dwie strony po dwa rekordy) i jedna faktura z pozycją
+        backupService.shutdown();
+        backupService = new BackupService(userRepository, customerRepository, invoiceRepository,
+                invoiceItemRepository, companyRepository, roleRepository, loginAuditRepository, tombstoneRepository,
+                passwordEncoder, invoiceStatisticsService, jdbcTemplate, transactionManager, dataSource, eventPublisher,
+                2, 2, BackupFormat.JSON, 300, 1);
+        ReflectionTestUtils.setField(backupService, "entityManager", entityManager);
+        Customer customer = createCustomer(9, "C");
+        when(customerRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+                .thenReturn(List.of(createCustomer(7, "A"), createCustomer(8, "B")));
+        when(customerRepository.findByIdGreaterThanOrderByIdAsc(eq(8L), any()))
+                .thenReturn(List.of(customer));
+
+        Invoice invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNumber("FV/1");
+        invoice.setIssueDate(LocalDate.of(2024, 5, 1));
+        invoice.setStatus(InvoiceStatus.OPLACONA);
+        invoice.setCustomer(customer);
+        InvoiceItem item = new InvoiceItem();
+        item.setId(5L);
+        item.setProduct("X");
+        item.setQuantity(2);
+        item.setPrice(10.5);
+        item.setInvoice(invoice);
+        when(invoiceRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(List.of(invoice));
+        when(invoiceItemRepository.findByInvoiceIds(List.of(1L))).thenReturn(List.of(item));
+
+        // When
+        backupFile = Paths.get(backupService.createBackup());
+
+        // Then - strony są czytane według identyfikatora, a kontekst czyszczony po każdej z nich
+        verify(customerRepository).findByIdGreaterThanOrderByIdAsc(eq(0L), argThat(page -> page.getPageSize() == 2));
+        verify(customerRepository).findByIdGreaterThanOrderByIdAsc(eq(8L), any(Pageable.class));
+        verify(invoiceRepository, never()).findAll();
+        verify(entityManager, times(3)).clear();
+        assertFalse(Files.exists(Paths.get(backupFile + ".tmp")));
+
+        JsonNode root = new ObjectMapper().readTree(backupFile.toFile());
+        List<String> fields = new ArrayList<>();
+        root.fieldNames().forEachRemaining(fields::add);
+        assertEquals(List.of("company", "customers", "invoices", "users", "roles", "loginAudits",
+                "timestamp", "version"), fields);
+        assertEquals(List.of(7L, 8L, 9L), root.get("customers").findValues("id").stream()
+                .map(JsonNode::asLong).toList());
+        JsonNode exported = root.get("invoices").get(0);
+        assertEquals("FV/1", exported.get("invoiceNumber").asText());
+        assertEquals("2024-05-01", exported.get("issueDate").asText());
+        assertEquals(9L, exported.get("customerId").asLong());
+        assertEquals("X", exported.get("items").get(0).get("product").asText());
+        assertEquals("1.0", root.get("version").asText());
+    }
+
+    @Test
+    void restoreFromBackup_ShouldInsertInBatchesAndMapCustomerIds() throws Exception {
+        // Given - trzech klientów i dwie faktury przy paczkach po dwa rekordy
+        writeBackup(BACKUP_JSON);
+
+        // When
+        String message = backupService.restoreFromBackup(backupFile.getFileName().toString(),
+                BackupRestoreMode.REMAP_IDS);
+
+        // Then
+        assertTrue(message.startsWith("Dane zostały pomyślnie przywrócone"), message);
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith(CUSTOMER_INSERT), any(SqlParameterSource[].class),
+                any(KeyHolder.class));
+
+        ArgumentCaptor<SqlParameterSource[]> invoices = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(startsWith(INVOICE_INSERT), invoices.capture(), any(KeyHolder.class));
+        SqlParameterSource first = invoices.getValue()[0];
+        SqlParameterSource second = invoices.getValue()[1];
+        assertEquals(103L, first.getValue("customerId"));
+        assertEquals(25.0, first.getValue("total"));
+        assertEquals(false, first.getValue("overdue"));
+        assertEquals(101L, second.getValue("customerId"));
+        assertEquals("PRZELEW", second.getValue("paymentMethod"));
+        assertEquals(true, second.getValue("overdue"));
+
+        ArgumentCaptor<SqlParameterSource[]> items = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO invoice_item"), items.capture());
+        assertEquals(2, items.getValue().length);
+        assertEquals(104L, items.getValue()[0].getValue("invoiceId"));
+
+        verify(invoiceStatisticsService).rebuildMonthlyStatistics();
+        verify(eventPublisher, times(2)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void restoreFromBackup_WhenPreservingIds_ShouldWriteOriginalKeysAndKeepPdfArchive() throws Exception {
+        // Given
+        writeBackup(BACKUP_JSON);
+
+        // When
+        String message = backupService.restoreFromBackup(backupFile.getFileName().toString(),
+                BackupRestoreMode.PRESERVE_IDS);
+
+        // Then
+        assertTrue(message.startsWith("Dane zostały pomyślnie przywrócone"), message);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class));
+
+        ArgumentCaptor<SqlParameterSource[]> invoices = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO invoice (id,"), invoices.capture());
+        assertEquals(1L, invoices.getValue()[0].getValue("id"));
+        assertEquals(9L, invoices.getValue()[0].getValue("customerId"));
+
+        ArgumentCaptor<SqlParameterSource[]> items = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO invoice_item"), items.capture());
+        assertEquals(1L, items.getValue()[0].getValue("invoiceId"));
+
+        verify(jdbcTemplate, never()).update(eq("DELETE FROM archived_invoice_pdf"), anyMap());
+        verify(jdbcTemplate).update(eq("ALTER TABLE customer AUTO_INCREMENT = 1"), anyMap());
+    }
+
+    @Test
+    void createBackup_WhenZipFormat_ShouldWriteChecksummedChunksPerPage() throws Exception {
+        // When
+        createZipBackup();
+
+        // Then
+        assertTrue(backupFile.getFileName().toString().endsWith(".zip"));
+        BackupArchive.Manifest manifest = readManifest(backupFile);
+        assertEquals(BackupType.FULL, manifest.type);
+        assertNotNull(manifest.snapshotTime);
+        try (ZipFile zip = new ZipFile(backupFile.toFile())) {
+            BackupArchive.TableEntry customers = manifest.tables.get("customers");
+            assertEquals(3, customers.rows);
+            assertEquals(List.of("customers/000000.json", "customers/000001.json"),
+                    customers.chunks.stream().map(chunk -> chunk.entry).toList());
+            assertEquals(0, manifest.tables.get("invoices").rows);
+            assertDoesNotThrow(() -> BackupArchive.verify(zip, manifest));
+        }
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void createBackup_WhenParallel_ShouldExportInvoiceRangesFromSnapshotsOpenedUnderLock() throws Exception {
+        // Given - faktury 1..4 dzielone na dwa zakresy, dwa wątki eksportu
+        backupService.shutdown();
+        backupService = createService(2);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet range = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SELECT MIN(id), MAX(id) FROM invoice")).thenReturn(range);
+        when(range.next()).thenReturn(true);
+        when(range.getLong(1)).thenReturn(1L);
+        when(range.getLong(2)).thenReturn(4L);
+
+        List<Invoice> invoices = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            Invoice invoice = new Invoice();
+            invoice.setId(id);
+            invoices.add(invoice);
+        }
+        when(invoiceRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(anyLong(), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    long afterId = invocation.getArgument(0);
+                    long maxId = invocation.getArgument(1);
+                    return invoices.stream()
+                            .filter(invoice -> invoice.getId() > afterId && invoice.getId() <= maxId)
+                            .limit(2)
+                            .toList();
+                });
+
+        // When
+        createZipBackup();
+
+        // Then
+        BackupArchive.Manifest manifest = readManifest(backupFile);
+        assertEquals(List.of("customers", "invoices", "users", "roles", "loginAudits"),
+                List.copyOf(manifest.tables.keySet()));
+        assertEquals(3, manifest.tables.get("customers").rows);
+        assertEquals(4, manifest.tables.get("invoices").rows);
+        assertEquals(2, manifest.tables.get("invoices").chunks.size());
+        try (ZipFile zip = new ZipFile(backupFile.toFile())) {
+            assertDoesNotThrow(() -> BackupArchive.verify(zip, manifest));
+            assertNotNull(zip.getEntry("company.json"));
+        }
+
+        // Tabele są blokowane dopiero po rozpoczęciu transakcji przez oba wątki
+        InOrder inOrder = inOrder(jdbcTemplate, statement);
+        inOrder.verify(jdbcTemplate, times(2)).queryForList(eq("SELECT 1"), anyMap());
+        inOrder.verify(statement).execute(startsWith("LOCK TABLES"));
+        inOrder.verify(jdbcTemplate, times(2)).queryForList(startsWith("SELECT id FROM roles"), anyMap());
+        inOrder.verify(statement).execute("UNLOCK TABLES");
+        verify(transactionManager, times(2)).getTransaction(any());
+    }
+
+    @Test
+    void createBackup_WhenParallelExportInProgress_ShouldRefuseWithoutLockingTables() throws Exception {
+        // Given - blokadę eksportu trzyma inny wątek
+        backupService.shutdown();
+        backupService = createService(2);
+        ReentrantLock exportLock = (ReentrantLock) ReflectionTestUtils.getField(backupService, "parallelExportLock");
+        Thread otherBackup = new Thread(exportLock::lock);
+        otherBackup.start();
+        otherBackup.join();
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> backupService.createBackup());
+        verifyNoInteractions(dataSource, jdbcTemplate);
+    }
+
+    @Test
+    void createIncrementalBackup_ShouldWriteChangedRowsAndDeletionsSinceBase() throws Exception {
+        // Given - faktura 3 ma zmienione pozycje, fakturze 4 (usuniętej) usunięto pozycje, faktura 5 jest zmieniona
+        when(invoiceRepository.findIdsModifiedSince(any())).thenReturn(List.of(5L));
+        when(invoiceItemRepository.findInvoiceIdsModifiedSince(any())).thenReturn(List.of(3L, 5L));
+        when(tombstoneRepository.findParentIdsDeletedSince(eq("InvoiceItem"), any())).thenReturn(List.of(4L));
+        Invoice third = new Invoice();
+        third.setId(3L);
+        Invoice fifth = new Invoice();
+        fifth.setId(5L);
+        when(invoiceRepository.findByIdInOrderByIdAsc(List.of(3L, 4L))).thenReturn(List.of(third));
+        when(invoiceRepository.findByIdInOrderByIdAsc(List.of(5L))).thenReturn(List.of(fifth));
+
+        // When
+        createIncrementalBackup();
+
+        // Then
+        assertTrue(backupFile.getFileName().toString().endsWith("_inc.zip"));
+        BackupArchive.Manifest base = readManifest(baseFile);
+        BackupArchive.Manifest manifest = readManifest(backupFile);
+        assertEquals(BackupType.INCREMENTAL, manifest.type);
+        assertEquals(baseFile.getFileName().toString(), manifest.base);
+        assertEquals(base.snapshotTime.minusSeconds(300), manifest.since);
+        assertEquals(1, manifest.tables.get("customers").rows);
+        assertEquals(2, manifest.tables.get("invoices").rows);
+        assertEquals(0, manifest.tables.get("deletedInvoices").rows);
+        assertEquals(1, manifest.tables.get("deletedCustomers").rows);
+    }
+
+    @Test
+    void restoreFromBackup_WhenIncremental_ShouldReplayChainFromFullBackup() throws Exception {
+        // Given
+        createIncrementalBackup();
+
+        // When - tryb z nadawaniem nowych ID jest zastępowany zachowaniem ID
+        String message = backupService.restoreFromBackup(backupFile.getFileName().toString(),
+                BackupRestoreMode.REMAP_IDS);
+
+        // Then
+        assertTrue(message.startsWith("Dane zostały pomyślnie przywrócone"), message);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<SqlParameterSource[]> customers = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(3)).batchUpdate(sql.capture(), customers.capture());
+        assertFalse(sql.getAllValues().get(1).contains("ON DUPLICATE KEY UPDATE"));
+        assertTrue(sql.getAllValues().get(2).startsWith("INSERT INTO customer (id,"));
+        assertTrue(sql.getAllValues().get(2).contains("ON DUPLICATE KEY UPDATE name = VALUES(name)"));
+        assertEquals("B2", customers.getAllValues().get(2)[0].getValue("name"));
+
+        verify(jdbcTemplate).update("DELETE FROM customer WHERE id IN (:ids)", Map.of("ids", List.of(9L)));
+    }
+
+    @Test
+    void createIncrementalBackup_WhenBaseCreatedBeforeRestore_ShouldRefuse() throws Exception {
+        // Given - kopia pełna przywrócona po utworzeniu
+        createZipBackup();
+        baseFile = backupFile;
+        backupService.restoreFromBackup(baseFile.getFileName().toString(), BackupRestoreMode.PRESERVE_IDS);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, ?>> marker = ArgumentCaptor.forClass(Map.class);
+        verify(jdbcTemplate).update(startsWith("INSERT INTO tombstone"), marker.capture());
+        assertEquals(Tombstone.RESTORE, marker.getValue().get("entityType"));
+        LocalDateTime restoredAt = (LocalDateTime) marker.getValue().get("deletedAt");
+        when(tombstoneRepository.findLastDeletedAt(Tombstone.RESTORE)).thenReturn(restoredAt);
+
+        // Then - przywrócone rekordy mają czas modyfikacji równy czasowi przywrócenia
+        ArgumentCaptor<SqlParameterSource[]> customers = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith(CUSTOMER_INSERT), customers.capture());
+        assertEquals(restoredAt, customers.getAllValues().get(0)[0].getValue("modifiedAt"));
+
+        // When & Then - kopia sprzed przywrócenia nie może być bazą kopii przyrostowej
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> backupService.createIncrementalBackup(baseFile.getFileName().toString()));
+        assertTrue(exception.getMessage().contains("przed przywróceniem"), exception.getMessage());
+
+        // When & Then - kopia pełna utworzona po przywróceniu może być bazą
+        Path restoredBase = Paths.get(backupService.createBackup());
+        try {
+            backupFile = Paths.get(backupService.createIncrementalBackup(restoredBase.getFileName().toString()));
+            assertEquals(BackupType.INCREMENTAL, readManifest(backupFile).type);
+        } finally {
+            Files.deleteIfExists(restoredBase);
+        }
+    }
+
+    @Test
+    void restoreFromBackup_WhenZipFormat_ShouldRestoreEachChunk() throws Exception {
+        // Given
+        createZipBackup();
+
+        // When
+        String message = backupService.restoreFromBackup(backupFile.getFileName().toString(),
+                BackupRestoreMode.REMAP_IDS);
+
+        // Then
+        assertTrue(message.startsWith("Dane zostały pomyślnie przywrócone"), message);
+        ArgumentCaptor<SqlParameterSource[]> customers = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith(CUSTOMER_INSERT), customers.capture(),
+                any(KeyHolder.class));
+        assertEquals("C", customers.getAllValues().get(1)[0].getValue("name"));
+    }
+
+    @Test
+    void restoreFromBackup_WhenZipChunkCorrupted_ShouldNotDeleteData() throws Exception {
+        // Given
+        createZipBackup();
+        replaceEntry(backupFile, "customers/000001.json", "[]");
+
+        // When & Then
+        IOException exception = assertThrows(IOException.class,
+                () -> backupService.restoreFromBackup(backupFile.getFileName().toString(),
+                        BackupRestoreMode.REMAP_IDS));
+        assertTrue(exception.getMessage().contains("customers/000001.json"), exception.getMessage());
+        verify(jdbcTemplate, never()).update(anyString(), anyMap());
+    }
+
+    @Test
+    void restoreFromBackup_WhenFileCorrupted_ShouldNotDeleteData() throws Exception {
+        // Given
+        writeBackup("{\"customers\":[{\"id\":7,\"name\":\"A\"},");
+
+        // When & Then
+        assertThrows(IOException.class,
+                () -> backupService.restoreFromBackup(backupFile.getFileName().toString(),
+                        BackupRestoreMode.REMAP_IDS));
+        verify(jdbcTemplate, never()).update(anyString(), anyMap());
+        verifyNoInteractions(roleRepository, userRepository);
+    }
+}
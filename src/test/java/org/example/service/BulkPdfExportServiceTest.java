@@ -0,0 +1,109 @@
+package org.example.service;
+
+import org.example.exception.ResourceNotFoundException;
+import org.example.model.Invoice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testy jednostkowe dla klasy BulkPdfExportService.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BulkPdfExportServiceTest {
+
+    @Mock
+    private InvoiceService invoiceService;
+
+    @Mock
+    private PdfCacheService pdfCacheService;
+
+    private BulkPdfExportService bulkPdfExportService;
+
+    @BeforeEach
+    void setup() throws Exception {
+        bulkPdfExportService = new BulkPdfExportService(invoiceService, pdfCacheService, 2, 100);
+
+        lenient().when(invoiceService.findById(anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            Invoice invoice = new Invoice();
+            invoice.setId(id);
+            invoice.setInvoiceNumber("FV/2024/05/" + id);
+            return invoice;
+        });
+        lenient().when(pdfCacheService.openInvoicePdf(any())).thenAnswer(invocation -> {
+            Invoice invoice = invocation.getArgument(0);
+            return new PdfCacheService.CachedPdf(invoice.getInvoiceNumber().getBytes());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkPdfExportService.shutdown();
+    }
+
+    @Test
+    void writeZip_ShouldWriteDocumentsInOrderAndListFailures() throws Exception {
+        // Given - faktura 2 została usunięta przed eksportem
+        when(invoiceService.findById(2L)).thenThrow(new ResourceNotFoundException("Nie znaleziono faktury o ID: 2"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        bulkPdfExportService.writeZip(List.of(1L, 2L, 3L), out);
+
+        // Then
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.add(entry.getName());
+                if (entry.getName().equals("faktura_FV_2024_05_1.pdf")) {
+                    assertEquals("FV/2024/05/1", new String(zip.readAllBytes()));
+                }
+            }
+        }
+        assertEquals(List.of("faktura_FV_2024_05_1.pdf", "faktura_FV_2024_05_3.pdf",
+                BulkPdfExportService.ERRORS_ENTRY), entries);
+    }
+
+    @Test
+    void writeZip_WhenDownloadAborted_ShouldStopRendering() throws Exception {
+        // Given - klient przerywa pobieranie po pierwszym dokumencie
+        List<Long> ids = LongStream.rangeClosed(1, 50).boxed().toList();
+        OutputStream out = new OutputStream() {
+            private int written;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (++written > 200) {
+                    throw new IOException("Połączenie zostało zamknięte");
+                }
+            }
+        };
+
+        // When
+        assertThrows(IOException.class, () -> bulkPdfExportService.writeZip(ids, out));
+        bulkPdfExportService.shutdown();
+
+        // Then - wygenerowano tylko dokumenty z okna zadań w toku
+        verify(pdfCacheService, atMost(10)).openInvoicePdf(any());
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.service;
+
+import org.example.model.Company;
+import org.example.repository.CompanyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testy jednostkowe dla klasy CompanyService.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CompanyServiceTest {
+
+    @Mock
+    private CompanyRepository companyRepository;
+
+    private Company storedCompany;
+
+    @BeforeEach
+    void setup() {
+        storedCompany = new Company();
+        storedCompany.setId(1L);
+        storedCompany.setName("Firma");
+        storedCompany.setVersion(3L);
+    }
+
+    @Test
+    void getCompanyInfo_ShouldReadDatabaseOnlyOnce() {
+        // Given
+        CompanyService companyService = new CompanyService(companyRepository, Duration.ofHours(1));
+        when(companyRepository.getCompanyInfo()).thenReturn(storedCompany);
+
+        // When
+        Company first = companyService.getCompanyInfo();
+        Company second = companyService.getCompanyInfo();
+
+        // Then
+        assertSame(storedCompany, first);
+        assertSame(first, second);
+        verify(companyRepository, times(1)).getCompanyInfo();
+    }
+
+    @Test
+    void getCompanyInfo_WhenVersionChangedOnAnotherNode_ShouldReload() {
+        // Given - sprawdzanie wersji przy każdym odczycie
+        CompanyService companyService = new CompanyService(companyRepository, Duration.ZERO);
+        Company changedCompany = new Company();
+        changedCompany.setId(1L);
+        changedCompany.setName("Nowa nazwa");
+        changedCompany.setVersion(4L);
+        when(companyRepository.getCompanyInfo()).thenReturn(storedCompany, changedCompany);
+        when(companyRepository.findVersionById(1L)).thenReturn(4L);
+
+        // When
+        companyService.getCompanyInfo();
+        Company reloaded = companyService.getCompanyInfo();
+
+        // Then
+        assertEquals("Nowa nazwa", reloaded.getName());
+        assertEquals(4L, companyService.getCompanyVersion());
+    }
+
+    @Test
+    void saveCompanyInfo_ShouldUpdateManagedRecordAndRefreshCache() {
+        // Given
+        CompanyService companyService = new CompanyService(companyRepository, Duration.ofHours(1));
+        Company form = new Company();
+        form.setName("Zmieniona nazwa");
+        form.setVersion(3L);
+        when(companyRepository.findFirstByOrderByIdAsc()).thenReturn(Optional.of(storedCompany));
+        when(companyRepository.saveAndFlush(any(Company.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Company saved = companyService.saveCompanyInfo(form);
+
+        // Then
+        assertSame(storedCompany, saved);
+        assertEquals("Zmieniona nazwa", saved.getName());
+        assertSame(saved, companyService.getCompanyInfo());
+        verify(companyRepository, never()).getCompanyInfo();
+    }
+
+    @Test
+    void saveCompanyInfo_WhenFormVersionIsStale_ShouldThrowException() {
+        // Given
+        CompanyService companyService = new CompanyService(companyRepository, Duration.ofHours(1));
+        Company form = new Company();
+        form.setName("Zmieniona nazwa");
+        form.setVersion(2L);
+        when(companyRepository.findFirstByOrderByIdAsc()).thenReturn(Optional.of(storedCompany));
+
+        // When/Then
+        assertThrows(IllegalStateException.class, () -> companyService.saveCompanyInfo(form));
+        verify(companyRepository, never()).saveAndFlush(any());
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.service;
+
+import org.example.event.InvoiceChangedEvent;
+import org.example.exception.ResourceNotFoundException;
+import org.example.model.ArchivedInvoicePdf;
+import org.example.model.Invoice;
+import org.example.model.InvoiceStatsSnapshot;
+import org.example.model.enums.InvoiceStatus;
+import org.example.repository.ArchivedInvoicePdfRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testy jednostkowe dla klasy InvoiceArchiveService.
+ */
+@ExtendWith(MockitoExtension.class)
+public class InvoiceArchiveServiceTest {
+
+    private static final byte[] PDF = "%PDF-1.4 faktura".getBytes(StandardCharsets.US_ASCII);
+
+    @Mock
+    private InvoiceService invoiceService;
+
+    @Mock
+    private PdfService pdfService;
+
+    @Mock
+    private ArchivedInvoicePdfRepository archiveRepository;
+
+    @TempDir
+    Path directory;
+
+    private InvoiceArchiveService invoiceArchiveService;
+    private Invoice invoice;
+
+    @BeforeEach
+    void setup() throws Exception {
+        invoiceArchiveService = new InvoiceArchiveService(invoiceService, pdfService, archiveRepository,
+                directory.toString());
+
+        invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNumber("FV/2024/05/01");
+        invoice.setStatus(InvoiceStatus.OPLACONA);
+        lenient().when(invoiceService.findById(1L)).thenReturn(invoice);
+        lenient().doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write(PDF);
+            return null;
+        }).when(pdfService).writeInvoicePdf(eq(invoice), any(OutputStream.class));
+        lenient().when(archiveRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoiceArchiveService.shutdown();
+    }
+
+    @Test
+    void findArchivedPdf_WhenPaidInvoiceNotArchived_ShouldStoreContentAddressedFileWithManifest() throws Exception {
+        // Given
+        when(archiveRepository.findById(1L)).thenReturn(Optional.empty());
+        String sha = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(PDF));
+
+        // When
+        InvoiceArchiveService.ArchivedPdf archived = invoiceArchiveService.findArchivedPdf(invoice);
+
+        // Then
+        assertNotNull(archived);
+        assertEquals(sha, archived.getSha256());
+        assertEquals(PDF.length, archived.getSize());
+        Path file = directory.resolve("objects").resolve(sha.substring(0, 2)).resolve(sha + ".pdf");
+        assertArrayEquals(PDF, Files.readAllBytes(file));
+        assertEquals(sha + "  objects/" + sha.substring(0, 2) + "/" + sha + ".pdf\n",
+                Files.readString(directory.resolve(InvoiceArchiveService.MANIFEST_FILE)));
+        verify(archiveRepository).save(argThat(saved -> saved.getSha256().equals(sha)
+                && saved.getInvoiceNumber().equals("FV/2024/05/01")));
+    }
+
+    @Test
+    void findArchivedPdf_WhenAlreadyArchived_ShouldNotRenderAgain() throws Exception {
+        // Given
+        when(archiveRepository.findById(1L)).thenReturn(Optional.empty());
+        ArchivedInvoicePdf saved = invoiceArchiveService.refresh(1L);
+        when(archiveRepository.findById(1L)).thenReturn(Optional.of(saved));
+
+        // When
+        InvoiceArchiveService.ArchivedPdf archived = invoiceArchiveService.findArchivedPdf(invoice);
+
+        // Then
+        assertEquals(saved.getSha256(), archived.getSha256());
+        verify(pdfService, times(1)).writeInvoicePdf(any(), any());
+    }
+
+    @Test
+    void onInvoiceChanging_WhenPaidInvoiceEdited_ShouldRemoveStaleMappingBeforeCommit() throws Exception {
+        // Given - faktura zarchiwizowana w poprzednim stanie
+        when(archiveRepository.findById(1L)).thenReturn(Optional.empty());
+        ArchivedInvoicePdf stale = invoiceArchiveService.refresh(1L);
+        when(archiveRepository.existsById(1L)).thenReturn(true);
+        InvoiceStatsSnapshot before = new InvoiceStatsSnapshot(LocalDate.of(2024, 5, 1),
+                InvoiceStatus.OPLACONA, 100.0);
+        InvoiceStatsSnapshot after = new InvoiceStatsSnapshot(LocalDate.of(2024, 5, 1),
+                InvoiceStatus.OPLACONA, 150.0);
+
+        // When
+        invoiceArchiveService.onInvoiceChanging(new InvoiceChangedEvent(1L, before, after));
+
+        // Then - powiązanie usunięte w transakcji zapisu, a kolejne pobranie generuje bieżący dokument
+        verify(archiveRepository).deleteById(1L);
+        byte[] edited = "%PDF-1.4 faktura po zmianie".getBytes(StandardCharsets.US_ASCII);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write(edited);
+            return null;
+        }).when(pdfService).writeInvoicePdf(eq(invoice), any(OutputStream.class));
+        InvoiceArchiveService.ArchivedPdf archived = invoiceArchiveService.findArchivedPdf(invoice);
+        assertNotEquals(stale.getSha256(), archived.getSha256());
+        assertEquals(edited.length, archived.getSize());
+    }
+
+    @Test
+    void onInvoiceChanging_WhenInvoiceNeverPaid_ShouldKeepArchiveUntouched() {
+        // Given
+        InvoiceStatsSnapshot before = new InvoiceStatsSnapshot(LocalDate.of(2024, 5, 1),
+                InvoiceStatus.NIEOPLACONA, 100.0);
+        InvoiceStatsSnapshot after = new InvoiceStatsSnapshot(LocalDate.of(2024, 5, 1),
+                InvoiceStatus.NIEOPLACONA, 150.0);
+
+        // When
+        invoiceArchiveService.onInvoiceChanging(new InvoiceChangedEvent(1L, before, after));
+
+        // Then
+        verifyNoInteractions(archiveRepository);
+    }
+
+    @Test
+    void findArchivedPdf_WhenInvoiceNotPaid_ShouldReturnNull() throws Exception {
+        // Given
+        invoice.setStatus(InvoiceStatus.NIEOPLACONA);
+
+        // When & Then
+        assertNull(invoiceArchiveService.findArchivedPdf(invoice));
+        verify(pdfService, never()).writeInvoicePdf(any(), any());
+    }
+
+    @Test
+    void refresh_WhenDifferentInvoicesArchivedConcurrently_ShouldRenderInParallel() throws Exception {
+        // Given
+        Invoice other = new Invoice();
+        other.setId(2L);
+        other.setInvoiceNumber("FV/2024/05/02");
+        other.setStatus(InvoiceStatus.OPLACONA);
+        when(invoiceService.findById(2L)).thenReturn(other);
+        CountDownLatch rendering = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            rendering.countDown();
+            // Przy wspólnej blokadzie drugi dokument nie zacząłby się generować
+            assertTrue(rendering.await(5, TimeUnit.SECONDS));
+            invocation.getArgument(1, OutputStream.class).write(PDF);
+            return null;
+        }).when(pdfService).writeInvoicePdf(any(Invoice.class), any(OutputStream.class));
+
+        // When
+        CompletableFuture<ArchivedInvoicePdf> first = CompletableFuture.supplyAsync(() -> invoiceArchiveService.refresh(1L));
+        ArchivedInvoicePdf second = invoiceArchiveService.refresh(2L);
+
+        // Then
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second);
+        assertEquals(1, Files.readAllLines(directory.resolve(InvoiceArchiveService.MANIFEST_FILE)).size());
+        verify(archiveRepository, times(2)).save(any());
+    }
+
+    @Test
+    void refresh_WhenInvoiceDeleted_ShouldRemoveArchiveEntry() {
+        // Given
+        when(invoiceService.findById(2L)).thenThrow(new ResourceNotFoundException("Faktura", 2L));
+        when(archiveRepository.existsById(2L)).thenReturn(true);
+
+        // When
+        assertNull(invoiceArchiveService.refresh(2L));
+
+        // Then
+        verify(archiveRepository).deleteById(2L);
+    }
+
+    @Test
+    void transferTo_ShouldWriteRequestedRange() throws Exception {
+        // Given
+        when(archiveRepository.findById(1L)).thenReturn(Optional.empty());
+        InvoiceArchiveService.ArchivedPdf archived = invoiceArchiveService.findArchivedPdf(invoice);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        archived.transferTo(out, 1, 4);
+
+        // Then
+        assertEquals("PDF-", out.toString(StandardCharsets.US_ASCII));
+    }
+}
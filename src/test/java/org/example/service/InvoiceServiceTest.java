@@ -1,27 +1,53 @@
 package org.example.service;
 
+import org.example.event.InvoiceChangedEvent;
 import org.example.exception.ResourceNotFoundException;
 import org.example.model.Customer;
 import org.example.model.Invoice;
+import org.example.model.InvoiceCursor;
 import org.example.model.InvoiceItem;
+import org.example.model.InvoiceSearchCriteria;
+import org.example.model.InvoiceStatsSnapshot;
+import org.example.model.KeysetPage;
 import org.example.model.enums.InvoiceStatus;
 import org.example.repository.CustomerRepository;
 import org.example.repository.InvoiceRepository;
+import org.example.repository.projection.InvoiceItemView;
+import org.example.repository.projection.InvoiceListView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 /**
@@ -36,9 +62,20 @@ public class InvoiceServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private InvoiceNumberService invoiceNumberService;
+
+    @Mock
+    private InvoiceStatisticsService invoiceStatisticsService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private InvoiceService invoiceService;
 
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
     private Invoice testInvoice;
     private Customer testCustomer;
 
@@ -112,18 +149,21 @@ public class InvoiceServiceTest {
 
         when(customerRepository.findById(1L)).thenReturn(Optional.of(testCustomer));
         when(invoiceRepository.save(any(Invoice.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(invoiceRepository.findAll()).thenReturn(Collections.emptyList());
+        when(invoiceNumberService.nextInvoiceNumber(newInvoice.getIssueDate())).thenReturn("FV/2024/01/01");
 
         // When
         Invoice savedInvoice = invoiceService.save(newInvoice);
 
         // Then
         assertNotNull(savedInvoice);
-        assertNotNull(savedInvoice.getInvoiceNumber());
+        assertEquals("FV/2024/01/01", savedInvoice.getInvoiceNumber());
         assertEquals(testCustomer, savedInvoice.getCustomer());
         assertEquals(newInvoice.getItems().get(0).getInvoice(), savedInvoice);
 
         verify(invoiceRepository).save(newInvoice);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof InvoiceChangedEvent changed
+                && changed.getBefore() == null
+                && InvoiceStatsSnapshot.of(savedInvoice).equals(changed.getAfter())));
     }
 
     @Test
@@ -172,6 +212,41 @@ public class InvoiceServiceTest {
         });
 
         verify(invoiceRepository, never()).save(any(Invoice.class));
+        verify(invoiceNumberService, never()).nextInvoiceNumber(any());
+    }
+
+    @Test
+    void save_WhenInvoiceHasNumber_ShouldNotAllocateNewNumber() {
+        // Given
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(testCustomer));
+        when(invoiceRepository.save(any(Invoice.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Invoice savedInvoice = invoiceService.save(testInvoice);
+
+        // Then
+        assertEquals("FV/2023/01/01", savedInvoice.getInvoiceNumber());
+        verify(invoiceNumberService, never()).nextInvoiceNumber(any());
+    }
+
+    @Test
+    void save_ShouldRecalculateStoredTotal() {
+        // Given
+        InvoiceItem secondItem = new InvoiceItem();
+        secondItem.setProduct("Druga usługa");
+        secondItem.setQuantity(3);
+        secondItem.setPrice(50.0);
+        testInvoice.getItems().add(secondItem);
+
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(testCustomer));
+        when(invoiceRepository.save(any(Invoice.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Invoice savedInvoice = invoiceService.save(testInvoice);
+
+        // Then
+        assertEquals(250.0, savedInvoice.getTotal(), 0.001);
+        assertEquals(savedInvoice, secondItem.getInvoice());
     }
 
     @Test
@@ -211,7 +286,8 @@ public class InvoiceServiceTest {
     @Test
     void deleteById_WhenInvoiceExists_ShouldDeleteInvoice() {
         // Given
-        when(invoiceRepository.existsById(1L)).thenReturn(true);
+        InvoiceStatsSnapshot snapshot = InvoiceStatsSnapshot.of(testInvoice);
+        when(invoiceRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testInvoice));
         doNothing().when(invoiceRepository).deleteById(1L);
 
         // When
@@ -219,12 +295,85 @@ public class InvoiceServiceTest {
 
         // Then
         verify(invoiceRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof InvoiceChangedEvent changed
+                && snapshot.equals(changed.getBefore())
+                && changed.getAfter() == null));
+    }
+
+    /**
+     * Tworzy zmienioną przez użytkownika wersję faktury testowej z jedną pozycją o podanej cenie.
+     */
+    private Invoice editedInvoice(double price) {
+        Invoice invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNumber("FV/2023/01/01");
+        invoice.setIssueDate(testInvoice.getIssueDate());
+        invoice.setDueDate(testInvoice.getDueDate());
+        invoice.setStatus(InvoiceStatus.NIEOPLACONA);
+        InvoiceItem item = new InvoiceItem();
+        item.setProduct("Usługa testowa");
+        item.setQuantity(1);
+        item.setPrice(price);
+        invoice.getItems().add(item);
+        return invoice;
+    }
+
+    @Test
+    void save_WhenSameInvoiceEditedConcurrently_ShouldApplyEachStatisticsChangeOnce() throws Exception {
+        // Given - baza z fakturą na 100 zł; odczyt stanu sprzed zmiany blokuje wiersz do końca transakcji
+        Semaphore rowLock = new Semaphore(1);
+        AtomicReference<Invoice> stored = new AtomicReference<>(editedInvoice(100.0));
+        stored.get().recalculateTotal();
+        when(invoiceRepository.findByIdForUpdate(1L)).thenAnswer(invocation -> {
+            rowLock.acquire();
+            return Optional.of(stored.get());
+        });
+        when(invoiceRepository.save(any(Invoice.class))).thenAnswer(invocation -> {
+            stored.set(invocation.getArgument(0));
+            return stored.get();
+        });
+        // Statystyki aktualizowane o różnicę stanów z każdego zdarzenia
+        DoubleAdder statisticsTotal = new DoubleAdder();
+        statisticsTotal.add(100.0);
+        doAnswer(invocation -> {
+            InvoiceChangedEvent event = invocation.getArgument(0);
+            statisticsTotal.add(event.getAfter().getTotal() - event.getBefore().getTotal());
+            return null;
+        }).when(eventPublisher).publishEvent(any(Object.class));
+
+        // When - dwie równoległe transakcje edytują tę samą fakturę
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> edits = new ArrayList<>();
+            for (double price : new double[]{200.0, 300.0}) {
+                edits.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return invoiceService.save(editedInvoice(price));
+                    } finally {
+                        // Zatwierdzenie transakcji zwalnia blokadę wiersza
+                        rowLock.release();
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> edit : edits) {
+                edit.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then - suma w statystykach odpowiada kwocie ostatecznie zapisanej faktury
+        verify(eventPublisher, times(2)).publishEvent(any(Object.class));
+        assertEquals(stored.get().getTotal(), statisticsTotal.sum(), 0.001);
     }
 
     @Test
     void deleteById_WhenInvoiceDoesNotExist_ShouldThrowException() {
         // Given
-        when(invoiceRepository.existsById(99L)).thenReturn(false);
+        when(invoiceRepository.findByIdForUpdate(99L)).thenReturn(Optional.empty());
 
         // When/Then
         assertThrows(ResourceNotFoundException.class, () -> {
@@ -233,4 +382,107 @@ public class InvoiceServiceTest {
 
         verify(invoiceRepository, never()).deleteById(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findInvoicePage_WhenMoreRowsThanPageSize_ShouldReturnNextCursor() {
+        // Given
+        InvoiceListView first = invoiceOn(3L, LocalDate.of(2024, 5, 3));
+        InvoiceListView second = invoiceOn(2L, LocalDate.of(2024, 5, 2));
+        InvoiceListView third = invoiceOn(1L, LocalDate.of(2024, 5, 1));
+
+        when(invoiceRepository.searchInvoicesAfter(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+                eq(InvoiceCursor.START.getIssueDate()), eq(InvoiceCursor.START.getId()), any(Pageable.class)))
+                .thenReturn(Arrays.asList(first, second, third));
+
+        // When
+        KeysetPage<InvoiceListView> page = invoiceService.findInvoicePage(
+                InvoiceSearchCriteria.byStatus(null), null, null, 2);
+
+        // Then
+        assertEquals(2, page.getContent().size());
+        assertEquals("2024-05-02_2", page.getNextCursor());
+        assertFalse(page.hasPrevious());
+    }
+
+    @Test
+    void findInvoicePage_WhenNavigatingBackwards_ShouldReturnRowsInListOrder() {
+        // Given
+        InvoiceListView newer = invoiceOn(5L, LocalDate.of(2024, 6, 2));
+        InvoiceListView older = invoiceOn(4L, LocalDate.of(2024, 6, 1));
+
+        when(invoiceRepository.searchInvoicesBefore(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+                eq(LocalDate.of(2024, 5, 31)), eq(3L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(older, newer));
+
+        // When
+        KeysetPage<InvoiceListView> page = invoiceService.findInvoicePage(
+                InvoiceSearchCriteria.byStatus(null), null, "2024-05-31_3", 2);
+
+        // Then
+        assertEquals(Arrays.asList(newer, older), page.getContent());
+        assertEquals("2024-06-01_4", page.getNextCursor());
+        assertFalse(page.hasPrevious());
+    }
+
+    @Test
+    void findInvoicePage_WhenCursorIsInvalid_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () ->
+                invoiceService.findInvoicePage(InvoiceSearchCriteria.byStatus(null), "abc", null, 20));
+    }
+
+    private InvoiceListView invoiceOn(Long id, LocalDate issueDate) {
+        return projectionFactory.createProjection(InvoiceListView.class, Map.of("id", id, "issueDate", issueDate));
+    }
+
+    @Test
+    void findItemsByInvoice_ShouldGroupItemsLoadedInSingleQuery() {
+        // Given
+        InvoiceListView first = invoiceOn(1L, LocalDate.of(2024, 5, 1));
+        InvoiceListView second = invoiceOn(2L, LocalDate.of(2024, 5, 2));
+        InvoiceItemView itemA = projectionFactory.createProjection(InvoiceItemView.class,
+                Map.of("invoiceId", 1L, "product", "A", "quantity", 2, "price", 10.0));
+        InvoiceItemView itemB = projectionFactory.createProjection(InvoiceItemView.class,
+                Map.of("invoiceId", 1L, "product", "B", "quantity", 1, "price", 5.0));
+
+        when(invoiceRepository.findItemViewsByInvoiceIds(List.of(1L, 2L))).thenReturn(List.of(itemA, itemB));
+
+        // When
+        Map<Long, List<InvoiceItemView>> itemsByInvoice = invoiceService.findItemsByInvoice(List.of(first, second));
+
+        // Then
+        assertEquals(List.of(itemA, itemB), itemsByInvoice.get(1L));
+        assertNull(itemsByInvoice.get(2L));
+        assertEquals(20.0, itemA.getTotal(), 0.001);
+        verify(invoiceRepository, times(1)).findItemViewsByInvoiceIds(any());
+    }
+
+    @Test
+    void findOverdueInvoices_ShouldQueryUnpaidInvoicesPastDueDate() {
+        // Given
+        when(invoiceRepository.findByStatusAndDueDateBefore(eq(InvoiceStatus.NIEOPLACONA), eq(LocalDate.now()),
+                any(Pageable.class))).thenReturn(new PageImpl<>(List.of(testInvoice)));
+
+        // When
+        Page<Invoice> page = invoiceService.findOverdueInvoices(0, 1000);
+
+        // Then
+        assertEquals(List.of(testInvoice), page.getContent());
+        verify(invoiceRepository).findByStatusAndDueDateBefore(eq(InvoiceStatus.NIEOPLACONA), eq(LocalDate.now()),
+                argThat(pageable -> pageable.getPageSize() == InvoiceService.MAX_PAGE_SIZE));
+        verify(invoiceRepository, never()).findAll();
+    }
+
+    @Test
+    void findInvoicesForMonth_ShouldQueryHalfOpenDateRange() {
+        // Given
+        when(invoiceRepository.findByIssueDateGreaterThanEqualAndIssueDateLessThanOrderByIssueDateAscIdAsc(
+                LocalDate.of(2024, 12, 1), LocalDate.of(2025, 1, 1))).thenReturn(List.of(testInvoice));
+
+        // When
+        List<Invoice> invoices = invoiceService.findInvoicesForMonth(2024, 12);
+
+        // Then
+        assertEquals(List.of(testInvoice), invoices);
+        verify(invoiceRepository, never()).findAll();
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.service;
+
+import com.itextpdf.text.Image;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy jednostkowe dla klasy LogoImageService.
+ */
+public class LogoImageServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private Path writeImage(String name, int width, int height) throws Exception {
+        Path file = directory.resolve(name);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+        return file;
+    }
+
+    @Test
+    void getLogo_WhenImageTooLarge_ShouldDownscaleKeepingAspectRatio() throws Exception {
+        // Given
+        Path file = writeImage("logo.png", 2000, 500);
+        LogoImageService logoImageService = new LogoImageService(600, 240);
+
+        // When
+        Image logo = logoImageService.getLogo(file.toString());
+
+        // Then
+        assertNotNull(logo);
+        assertEquals(600f, logo.getWidth());
+        assertEquals(150f, logo.getHeight());
+    }
+
+    @Test
+    void prepare_WhenImageWithinLimits_ShouldKeepOriginalBytes() throws Exception {
+        // Given - nieprzezroczysty PNG mniejszy od maksymalnych wymiarów
+        Path file = writeImage("logo.png", 300, 100);
+        byte[] original = Files.readAllBytes(file);
+        LogoImageService logoImageService = new LogoImageService(600, 240);
+
+        // When
+        byte[] prepared = logoImageService.prepare(original);
+
+        // Then - plik nie jest ponownie kodowany (np. do stratnego JPEG)
+        assertArrayEquals(original, prepared);
+        assertEquals(300f, logoImageService.getLogo(file.toString()).getWidth());
+    }
+
+    @Test
+    void getLogo_WhenFileReplaced_ShouldReloadImage() throws Exception {
+        // Given
+        Path file = writeImage("logo.png", 100, 50);
+        LogoImageService logoImageService = new LogoImageService(600, 240);
+        String fingerprint = logoImageService.getFingerprint(file.toString());
+        assertEquals(100f, logoImageService.getLogo(file.toString()).getWidth());
+
+        // When - nowy plik pod tą samą ścieżką
+        writeImage("logo.png", 200, 50);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+
+        // Then
+        assertNotEquals(fingerprint, logoImageService.getFingerprint(file.toString()));
+        assertEquals(200f, logoImageService.getLogo(file.toString()).getWidth());
+    }
+
+    @Test
+    void getLogo_WhenPathMissing_ShouldReturnNull() {
+        // Given
+        LogoImageService logoImageService = new LogoImageService(600, 240);
+
+        // When & Then
+        assertNull(logoImageService.getLogo(null));
+        assertNull(logoImageService.getLogo(directory.resolve("brak.png").toString()));
+        assertEquals("", logoImageService.getFingerprint(directory.resolve("brak.png").toString()));
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy jednostkowe dla klasy LongLongMap.
+ */
+public class LongLongMapTest {
+
+    @Test
+    void put_WhenManyKeys_ShouldGrowAndKeepAllMappings() {
+        // Given
+        LongLongMap map = new LongLongMap(4);
+
+        // When
+        for (long id = 0; id < 10_000; id++) {
+            map.put(id * 31, id + 1);
+        }
+
+        // Then
+        assertEquals(10_000, map.size());
+        for (long id = 0; id < 10_000; id++) {
+            assertEquals(id + 1, map.get(id * 31));
+        }
+    }
+
+    @Test
+    void get_WhenKeyMissing_ShouldReturnMissing() {
+        // Given
+        LongLongMap map = new LongLongMap();
+        map.put(7L, 100L);
+        map.put(7L, 101L);
+
+        // When & Then
+        assertEquals(1, map.size());
+        assertEquals(101L, map.get(7L));
+        assertEquals(LongLongMap.MISSING, map.get(8L));
+        assertEquals(LongLongMap.MISSING, map.get(0L));
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.service;
+
+import org.example.model.Company;
+import org.example.model.Customer;
+import org.example.model.Invoice;
+import org.example.model.InvoiceItem;
+import org.example.model.PdfCacheStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testy jednostkowe dla klasy PdfCacheService.
+ */
+@ExtendWith(MockitoExtension.class)
+public class PdfCacheServiceTest {
+
+    @Mock
+    private PdfService pdfService;
+
+    @Mock
+    private CompanyService companyService;
+
+    @Mock
+    private LogoImageService logoImageService;
+
+    @TempDir
+    Path cacheDirectory;
+
+    private Invoice invoice;
+
+    @BeforeEach
+    void setup() {
+        lenient().when(companyService.getCompanyInfo()).thenReturn(new Company());
+
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setName("Klient");
+
+        invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNumber("FV/2024/05/01");
+        invoice.setIssueDate(LocalDate.of(2024, 5, 1));
+        invoice.setDueDate(LocalDate.of(2024, 5, 15));
+        invoice.setCustomer(customer);
+
+        InvoiceItem item = new InvoiceItem();
+        item.setProduct("Usługa");
+        item.setQuantity(1);
+        item.setPrice(100.0);
+        invoice.addItem(item);
+    }
+
+    private PdfCacheService createService(long memoryMaxBytes) {
+        return new PdfCacheService(pdfService, companyService, logoImageService, memoryMaxBytes, memoryMaxBytes,
+                cacheDirectory.toString(), 1024 * 1024);
+    }
+
+    private void renderAs(byte[]... documents) throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write(documents[Math.min(calls.getAndIncrement(), documents.length - 1)]);
+            return null;
+        }).when(pdfService).writeInvoicePdf(eq(invoice), any(OutputStream.class));
+    }
+
+    private byte[] read(PdfCacheService.CachedPdf pdf) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdf.writeTo(out);
+        assertEquals(pdf.getSize(), out.size());
+        return out.toByteArray();
+    }
+
+    @Test
+    void openInvoicePdf_ShouldGenerateDocumentOnlyOnce() throws Exception {
+        // Given
+        PdfCacheService pdfCacheService = createService(1024 * 1024);
+        when(companyService.getCompanyVersion()).thenReturn(1L);
+        renderAs(new byte[]{1, 2, 3});
+
+        // When
+        byte[] first = read(pdfCacheService.openInvoicePdf(invoice));
+        byte[] second = read(pdfCacheService.openInvoicePdf(invoice));
+
+        // Then
+        assertArrayEquals(new byte[]{1, 2, 3}, first);
+        assertArrayEquals(first, second);
+        verify(pdfService, times(1)).writeInvoicePdf(any(), any());
+        PdfCacheStatistics statistics = pdfCacheService.getStatistics();
+        assertEquals(1, statistics.getMemoryHits());
+        assertEquals(1, statistics.getMisses());
+    }
+
+    @Test
+    void cacheInvoicePdf_ShouldReturnKeyOfCachedDocument() throws Exception {
+        // Given
+        renderAs(new byte[]{1, 2, 3});
+        PdfCacheService pdfCacheService = createService(1024);
+
+        // When
+        String key = pdfCacheService.cacheInvoicePdf(invoice);
+
+        // Then - dokument jest czytany po kluczu, bez ponownego generowania
+        assertArrayEquals(new byte[]{1, 2, 3}, read(pdfCacheService.openCachedPdf(key)));
+        assertNull(pdfCacheService.openCachedPdf("brak"));
+        verify(pdfService, times(1)).writeInvoicePdf(eq(invoice), any(OutputStream.class));
+    }
+
+    @Test
+    void openInvoicePdf_WhenInvoiceOrCompanyChanged_ShouldRegenerate() throws Exception {
+        // Given
+        PdfCacheService pdfCacheService = createService(1024 * 1024);
+        when(companyService.getCompanyVersion()).thenReturn(1L, 1L, 2L);
+        renderAs(new byte[]{1});
+        read(pdfCacheService.openInvoicePdf(invoice));
+
+        // When - zmiana pozycji, a następnie zmiana danych firmy
+        invoice.getItems().get(0).setQuantity(2);
+        read(pdfCacheService.openInvoicePdf(invoice));
+        read(pdfCacheService.openInvoicePdf(invoice));
+
+        // Then
+        verify(pdfService, times(3)).writeInvoicePdf(eq(invoice), any());
+        assertEquals(3, pdfCacheService.getStatistics().getMisses());
+    }
+
+    @Test
+    void openInvoicePdf_WhenEvictedFromMemory_ShouldReadFromDisk() throws Exception {
+        // Given - pamięć operacyjna mieści tylko jeden dokument
+        when(companyService.getCompanyVersion()).thenReturn(1L);
+        renderAs(new byte[]{1, 2, 3}, new byte[]{4, 5, 6});
+        PdfCacheService pdfCacheService = createService(3);
+        byte[] original = read(pdfCacheService.openInvoicePdf(invoice));
+        invoice.setNotes("Uwagi");
+        read(pdfCacheService.openInvoicePdf(invoice));
+        invoice.setNotes(null);
+
+        // When
+        byte[] cached = read(pdfCacheService.openInvoicePdf(invoice));
+
+        // Then
+        assertArrayEquals(original, cached);
+        verify(pdfService, times(2)).writeInvoicePdf(eq(invoice), any());
+        assertEquals(1, pdfCacheService.getStatistics().getDiskHits());
+    }
+
+    @Test
+    void openInvoicePdf_WhenDocumentTooLargeForMemory_ShouldStreamFromDisk() throws Exception {
+        // Given - dokumenty większe niż 2 bajty nie trafiają do pamięci operacyjnej
+        when(companyService.getCompanyVersion()).thenReturn(1L);
+        renderAs(new byte[]{1, 2, 3});
+        PdfCacheService pdfCacheService = new PdfCacheService(pdfService, companyService, logoImageService, 1024, 2,
+                cacheDirectory.toString(), 1024 * 1024);
+
+        // When
+        byte[] first = read(pdfCacheService.openInvoicePdf(invoice));
+        byte[] second = read(pdfCacheService.openInvoicePdf(invoice));
+
+        // Then
+        assertArrayEquals(first, second);
+        PdfCacheStatistics statistics = pdfCacheService.getStatistics();
+        assertEquals(0, statistics.getMemoryEntries());
+        assertEquals(1, statistics.getDiskHits());
+        assertEquals(3, statistics.getDiskBytes());
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.service;
+
+import org.example.exception.ResourceNotFoundException;
+import org.example.model.Invoice;
+import org.example.model.PdfJobStatus;
+import org.example.model.enums.PdfJobState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testy jednostkowe dla klasy PdfJobService.
+ */
+@ExtendWith(MockitoExtension.class)
+public class PdfJobServiceTest {
+
+    @Mock
+    private InvoiceService invoiceService;
+
+    @Mock
+    private PdfCacheService pdfCacheService;
+
+    private PdfJobService pdfJobService;
+
+    @BeforeEach
+    void setup() {
+        Invoice invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNumber("FV/2024/05/01");
+        lenient().when(invoiceService.findById(anyLong())).thenReturn(invoice);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pdfJobService.shutdown();
+    }
+
+    private PdfJobService createService(int queueCapacity, Duration ttl) {
+        pdfJobService = new PdfJobService(invoiceService, pdfCacheService, 1, queueCapacity, ttl);
+        return pdfJobService;
+    }
+
+    private PdfJobStatus awaitFinished(String jobId, String owner) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        PdfJobStatus status = pdfJobService.getStatus(jobId, owner);
+        while (!status.getState().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = pdfJobService.getStatus(jobId, owner);
+        }
+        return status;
+    }
+
+    @Test
+    void submit_ShouldGenerateDocumentForOwnerOnly() throws Exception {
+        // Given
+        createService(10, Duration.ofMinutes(15));
+        when(pdfCacheService.cacheInvoicePdf(any())).thenReturn("klucz");
+        when(pdfCacheService.openCachedPdf("klucz")).thenReturn(new PdfCacheService.CachedPdf(new byte[]{1, 2, 3}));
+
+        // When
+        PdfJobStatus submitted = pdfJobService.submit(1L, "jan");
+        PdfJobStatus finished = awaitFinished(submitted.getId(), "jan");
+
+        // Then
+        assertEquals(PdfJobState.DONE, finished.getState());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdfJobService.openResult(submitted.getId(), "jan").writeTo(out);
+        assertArrayEquals(new byte[]{1, 2, 3}, out.toByteArray());
+        assertThrows(ResourceNotFoundException.class, () -> pdfJobService.getStatus(submitted.getId(), "anna"));
+        // Wynik jest czytany z pamięci podręcznej PDF - bez ponownego generowania i osobnej kopii
+        verify(pdfCacheService, never()).openInvoicePdf(any());
+    }
+
+    @Test
+    void openResult_WhenEvictedFromCache_ShouldRegenerateDocument() throws Exception {
+        // Given
+        createService(10, Duration.ofMinutes(15));
+        when(pdfCacheService.cacheInvoicePdf(any())).thenReturn("klucz");
+        when(pdfCacheService.openCachedPdf("klucz")).thenReturn(null);
+        when(pdfCacheService.openInvoicePdf(any())).thenReturn(new PdfCacheService.CachedPdf(new byte[]{4, 5}));
+        PdfJobStatus submitted = pdfJobService.submit(1L, "jan");
+        awaitFinished(submitted.getId(), "jan");
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdfJobService.openResult(submitted.getId(), "jan").writeTo(out);
+
+        // Then
+        assertArrayEquals(new byte[]{4, 5}, out.toByteArray());
+    }
+
+    @Test
+    void submit_WhenQueueFull_ShouldRejectJob() throws Exception {
+        // Given - jedyny wątek jest zajęty, a kolejka mieści jedno zadanie
+        createService(1, Duration.ofMinutes(15));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(pdfCacheService.cacheInvoicePdf(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "klucz";
+        });
+        pdfJobService.submit(1L, "jan");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        pdfJobService.submit(2L, "jan");
+
+        // When & Then
+        assertThrows(RejectedExecutionException.class, () -> pdfJobService.submit(3L, "jan"));
+        release.countDown();
+    }
+
+    @Test
+    void removeExpiredJobs_ShouldRemoveFinishedJobs() throws Exception {
+        // Given
+        createService(10, Duration.ZERO);
+        when(pdfCacheService.cacheInvoicePdf(any())).thenReturn("klucz");
+        PdfJobStatus submitted = pdfJobService.submit(1L, "jan");
+        awaitFinished(submitted.getId(), "jan");
+
+        // When
+        pdfJobService.removeExpiredJobs();
+
+        // Then
+        assertThrows(ResourceNotFoundException.class, () -> pdfJobService.getStatus(submitted.getId(), "jan"));
+    }
+}
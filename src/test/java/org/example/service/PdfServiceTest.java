@@ -0,0 +1,192 @@
+package org.example.service;
+
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.example.model.Company;
+import org.example.model.Customer;
+import org.example.model.Invoice;
+import org.example.model.InvoiceItem;
+import org.example.model.enums.PdfOutputMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testy jednostkowe dla klasy PdfService.
+ */
+@ExtendWith(MockitoExtension.class)
+public class PdfServiceTest {
+
+    private static final String DEJAVU_REGULAR = "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf";
+    private static final String DEJAVU_BOLD = "/usr/share/fonts/truetype/dejavu/DejaVuSans-Bold.ttf";
+
+    @Mock
+    private CompanyService companyService;
+
+    private PdfService createService(PdfOutputMode outputMode, String regularFontPath, String boldFontPath) {
+        return new PdfService(companyService, new LogoImageService(600, 240), outputMode,
+                regularFontPath, boldFontPath);
+    }
+
+    private Invoice createInvoice(int items) {
+        Customer customer = new Customer();
+        customer.setName("Klient");
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("FV/2024/05/01");
+        invoice.setCustomer(customer);
+        for (int i = 1; i <= items; i++) {
+            InvoiceItem item = new InvoiceItem();
+            item.setProduct("Pozycja " + i);
+            item.setQuantity(1);
+            item.setPrice(i);
+            invoice.addItem(item);
+        }
+        return invoice;
+    }
+
+    @Test
+    void writeInvoicePdf_WithManyItems_ShouldWriteCompleteDocumentAndKeepStreamOpen() throws Exception {
+        // Given - faktura z kilkuset pozycjami (tabela przekazywana do dokumentu partiami)
+        Company company = new Company();
+        company.setName("Firma");
+        when(companyService.getCompanyInfo()).thenReturn(company);
+
+        Invoice invoice = createInvoice(300);
+
+        PdfService pdfService = createService(PdfOutputMode.STANDARD, "", "");
+        ByteArrayOutputStream out = spy(new ByteArrayOutputStream());
+
+        // When
+        pdfService.writeInvoicePdf(invoice, out);
+
+        // Then
+        verify(out, never()).close();
+        PdfReader reader = new PdfReader(out.toByteArray());
+        assertTrue(reader.getNumberOfPages() > 1);
+        reader.close();
+    }
+
+    @Test
+    void formatAmount_ShouldMatchStringFormat() {
+        // Given
+        double[] amounts = {0, 0.125, 1.005, 2.675, 99.999, 1234567.891, -12.5};
+
+        for (double amount : amounts) {
+            // When
+            String formatted = PdfService.formatAmount(amount);
+
+            // Then
+            assertEquals(String.format("%.2f zł", amount), formatted);
+        }
+    }
+
+    @Test
+    void writeInvoicePdf_ShouldReadCompanyOnEveryDocumentButReuseTemplate() throws Exception {
+        // Given
+        Company company = new Company();
+        company.setName("Firma");
+        company.setNip("1234567890");
+        company.setVersion(1L);
+        when(companyService.getCompanyInfo()).thenReturn(company);
+
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("FV/2024/05/01");
+        PdfService pdfService = createService(PdfOutputMode.STANDARD, "", "");
+
+        // When
+        byte[] first = pdfService.generateInvoicePdf(invoice);
+        company.setName("Zmieniona nazwa");
+        byte[] sameVersion = pdfService.generateInvoicePdf(invoice);
+        company.setVersion(2L);
+        byte[] newVersion = pdfService.generateInvoicePdf(invoice);
+
+        // Then - blok sprzedawcy jest przebudowywany dopiero po zmianie wersji danych firmy
+        assertTrue(extractText(first).contains("Firma"));
+        assertFalse(extractText(sameVersion).contains("Zmieniona nazwa"));
+        assertTrue(extractText(newVersion).contains("Zmieniona nazwa"));
+    }
+
+    @Test
+    void writeInvoicePdf_InCompactMode_ShouldBeSmallerThanStandardWithoutSlowingDown() throws Exception {
+        // Given
+        Company company = new Company();
+        company.setName("Firma");
+        when(companyService.getCompanyInfo()).thenReturn(company);
+        Invoice invoice = createInvoice(200);
+        PdfService standard = createService(PdfOutputMode.STANDARD, "", "");
+        PdfService compact = createService(PdfOutputMode.COMPACT, "", "");
+
+        // When - mediana czasu z kilku prób (pierwsze wywołania rozgrzewają JIT)
+        byte[] standardPdf = standard.generateInvoicePdf(invoice);
+        byte[] compactPdf = compact.generateInvoicePdf(invoice);
+        long standardNanos = medianNanos(standard, invoice);
+        long compactNanos = medianNanos(compact, invoice);
+
+        // Then
+        assertTrue(compactPdf.length < standardPdf.length,
+                "COMPACT: " + compactPdf.length + " B, STANDARD: " + standardPdf.length + " B");
+        assertTrue(new String(compactPdf, 0, 8, StandardCharsets.US_ASCII).startsWith("%PDF-1.5"));
+        assertEquals(extractText(standardPdf), extractText(compactPdf));
+        // Luźny limit - test ma wychwycić rząd wielkości, a nie wahania maszyny testowej
+        assertTrue(compactNanos < standardNanos * 5 + 50_000_000L,
+                "COMPACT: " + compactNanos / 1_000_000 + " ms, STANDARD: " + standardNanos / 1_000_000 + " ms");
+    }
+
+    @Test
+    void writeInvoicePdf_InArchiveMode_ShouldEmbedFontSubsetAndMetadata() throws Exception {
+        // Given
+        assumeTrue(Files.exists(Path.of(DEJAVU_REGULAR)) && Files.exists(Path.of(DEJAVU_BOLD)),
+                "Brak czcionek DejaVu w systemie");
+        Company company = new Company();
+        company.setName("Żółta Firma");
+        when(companyService.getCompanyInfo()).thenReturn(company);
+        PdfService pdfService = createService(PdfOutputMode.ARCHIVE, DEJAVU_REGULAR, DEJAVU_BOLD);
+
+        // When
+        byte[] pdf = pdfService.generateInvoicePdf(createInvoice(3));
+
+        // Then
+        assertTrue(new String(pdf, 0, 8, StandardCharsets.US_ASCII).startsWith("%PDF-1.4"));
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            assertNotNull(reader.getMetadata());
+            assertTrue(PdfTextExtractor.getTextFromPage(reader, 1).contains("Żółta Firma"));
+        } finally {
+            reader.close();
+        }
+        // Podzbiór czcionki ma nazwę z sześcioliterowym prefiksem, np. ABCDEF+DejaVuSans
+        String content = new String(pdf, StandardCharsets.ISO_8859_1);
+        assertTrue(content.matches("(?s).*/[A-Z]{6}\\+DejaVuSans.*"));
+    }
+
+    private long medianNanos(PdfService pdfService, Invoice invoice) throws Exception {
+        long[] samples = new long[7];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            pdfService.generateInvoicePdf(invoice);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private String extractText(byte[] pdf) throws Exception {
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            return PdfTextExtractor.getTextFromPage(reader, 1);
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.service;
+
+import org.example.event.EntityChangedEvent;
+import org.example.model.Customer;
+import org.example.model.InvoiceStatistics;
+import org.example.model.StatisticsSnapshot;
+import org.example.model.enums.InvoiceStatus;
+import org.example.repository.CustomerRepository;
+import org.example.repository.InvoiceRepository;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testy jednostkowe dla klasy StatisticsService.
+ */
+@ExtendWith(MockitoExtension.class)
+public class StatisticsServiceTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private InvoiceStatisticsService invoiceStatisticsService;
+
+    @InjectMocks
+    private StatisticsService statisticsService;
+
+    @BeforeEach
+    void setup() {
+        InvoiceStatistics invoices = new InvoiceStatistics();
+        invoices.add(InvoiceStatus.OPLACONA, 2, 300.0);
+        invoices.add(InvoiceStatus.NIEOPLACONA, 1, 50.0);
+
+        when(invoiceStatisticsService.getOverallStatistics()).thenReturn(invoices);
+        when(invoiceStatisticsService.findYears()).thenReturn(List.of(2024));
+        when(userRepository.count()).thenReturn(3L);
+        when(userRepository.countByActiveTrue()).thenReturn(2L);
+        when(invoiceRepository.count()).thenReturn(3L);
+        when(invoiceRepository.countByStatus(InvoiceStatus.OPLACONA)).thenReturn(2L);
+        when(invoiceRepository.countByStatus(InvoiceStatus.NIEOPLACONA)).thenReturn(1L);
+        when(invoiceRepository.countByOverdueTrue()).thenReturn(1L);
+        when(customerRepository.count()).thenReturn(5L);
+    }
+
+    @Test
+    void getSnapshot_ShouldUseCountQueriesAndCacheResult() {
+        // When
+        StatisticsSnapshot first = statisticsService.getSnapshot();
+        StatisticsSnapshot second = statisticsService.getSnapshot();
+
+        // Then
+        assertSame(first, second);
+        assertEquals(3, first.getTotalUsers());
+        assertEquals(1, first.getInactiveUsers());
+        assertEquals(2, first.getPaidInvoices());
+        assertEquals(300.0, first.getPaidTotal(), 0.001);
+        assertEquals(5, first.getTotalCustomers());
+        verify(customerRepository, times(1)).count();
+        verify(customerRepository, never()).findAll();
+        verify(invoiceRepository, never()).findAll();
+    }
+
+    @Test
+    void getSnapshot_AfterEntityChange_ShouldRecompute() {
+        // Given
+        StatisticsSnapshot first = statisticsService.getSnapshot();
+
+        // When
+        statisticsService.onEntityChanged(new EntityChangedEvent(Customer.class));
+        StatisticsSnapshot second = statisticsService.getSnapshot();
+
+        // Then
+        assertNotSame(first, second);
+        assertTrue(second.getDataVersion() > first.getDataVersion());
+        verify(customerRepository, times(2)).count();
+    }
+
+    @Test
+    void getSnapshot_WhenCalledConcurrently_ShouldComputeOnce() throws Exception {
+        // Given - pierwsze obliczenie trwa, dopóki wszystkie wątki nie zgłoszą żądania
+        int threads = 8;
+        CountDownLatch started = new CountDownLatch(threads);
+        when(customerRepository.count()).thenAnswer(invocation -> {
+            started.await(5, TimeUnit.SECONDS);
+            return 5L;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // When
+            List<Future<StatisticsSnapshot>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    return statisticsService.getSnapshot();
+                }));
+            }
+
+            // Then
+            StatisticsSnapshot expected = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<StatisticsSnapshot> result : results) {
+                assertSame(expected, result.get(5, TimeUnit.SECONDS));
+            }
+            verify(customerRepository, times(1)).count();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}